@@ -1,85 +1,144 @@
 import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class AdminDashboardFrame extends JFrame {
-    private JButton uploadStudentsButton, uploadRoomsButton, uploadExamSlotsButton, allocateSeatsButton, viewReportButton;
+    private JButton uploadStudentsButton, uploadRoomsButton, uploadExamSlotsButton, uploadEnrollmentsButton, allocateSeatsButton, viewReportButton, viewWarningsButton, whatIfButton;
+    private final JLabel allocationStatusLabel = new JLabel();
+    private final JButton cancelAllocationButton = new JButton("Cancel");
+    private final Set<AllocationScheduler.Job> activeJobs = new LinkedHashSet<>(); // EDT only
 
     public AdminDashboardFrame() {
         setTitle("Admin Dashboard");
-        setSize(500, 400);
+        setSize(500, 490);
         setLayout(null);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
         uploadStudentsButton = new JButton("Upload Students");
         uploadRoomsButton = new JButton("Upload Rooms");
         uploadExamSlotsButton = new JButton("Upload Exam Slots");
+        uploadEnrollmentsButton = new JButton("Upload Enrollments");
         allocateSeatsButton = new JButton("Allocate Seats");
         viewReportButton = new JButton("View Reports");
+        viewWarningsButton = new JButton("View Warnings");
+        whatIfButton = new JButton("What-If Planner");
 
-        uploadStudentsButton.setBounds(150, 50, 200, 30);
-        uploadRoomsButton.setBounds(150, 100, 200, 30);
-        uploadExamSlotsButton.setBounds(150, 150, 200, 30);
-        allocateSeatsButton.setBounds(150, 200, 200, 30);
-        viewReportButton.setBounds(150, 250, 200, 30);
+        uploadStudentsButton.setBounds(150, 40, 200, 30);
+        uploadRoomsButton.setBounds(150, 85, 200, 30);
+        uploadExamSlotsButton.setBounds(150, 130, 200, 30);
+        uploadEnrollmentsButton.setBounds(150, 175, 200, 30);
+        allocateSeatsButton.setBounds(150, 220, 200, 30);
+        viewReportButton.setBounds(150, 265, 200, 30);
+        viewWarningsButton.setBounds(150, 310, 200, 30);
+        whatIfButton.setBounds(150, 355, 200, 30);
+        allocationStatusLabel.setBounds(20, 400, 350, 20);
+        cancelAllocationButton.setBounds(380, 396, 100, 28);
+        cancelAllocationButton.setEnabled(false);
 
         add(uploadStudentsButton);
         add(uploadRoomsButton);
         add(uploadExamSlotsButton);
+        add(uploadEnrollmentsButton);
         add(allocateSeatsButton);
         add(viewReportButton);
+        add(viewWarningsButton);
+        add(whatIfButton);
+        add(allocationStatusLabel);
+        add(cancelAllocationButton);
 
-        // Dummy uploads for now
-        uploadStudentsButton.addActionListener(ignored -> JOptionPane.showMessageDialog(this, "Students CSV upload not yet implemented."));
-        uploadRoomsButton.addActionListener(ignored -> JOptionPane.showMessageDialog(this, "Rooms CSV upload not yet implemented."));
-        uploadExamSlotsButton.addActionListener(ignored -> JOptionPane.showMessageDialog(this, "Exam slots CSV upload not yet implemented."));
+        // CSV uploads (streamed import with progress)
+        uploadStudentsButton.addActionListener(ignored -> new BulkUploadStudentFrame(CsvImporter.Kind.STUDENTS));
+        uploadRoomsButton.addActionListener(ignored -> new BulkUploadStudentFrame(CsvImporter.Kind.ROOMS));
+        uploadExamSlotsButton.addActionListener(ignored -> new BulkUploadStudentFrame(CsvImporter.Kind.EXAM_SLOTS));
+        uploadEnrollmentsButton.addActionListener(ignored -> new BulkUploadStudentFrame(CsvImporter.Kind.ENROLLMENTS));
 
-        // Allocate Seats (calls logic)
+        // Allocate Seats (calls logic) for one or more exam slots
         allocateSeatsButton.addActionListener(ignored -> {
-            new SwingWorker<SeatAllocator.AllocationResult, Void>() {
-                protected SeatAllocator.AllocationResult doInBackground() {
-                    SeatAllocator allocator = new SeatAllocator();
-                    // For demo: hardcode examSlotId = "EX01"
-                    return allocator.allocateSeatsForExam("EX01");
-                }
-                protected void done() {
-                    try {
-                        SeatAllocator.AllocationResult res = get();
-                        if (res.success) {
-                            JOptionPane.showMessageDialog(AdminDashboardFrame.this, "Seat allocation completed.");
-                        } else {
-                            JOptionPane.showMessageDialog(AdminDashboardFrame.this, "Seat allocation failed.");
-                        }
-                        if (!res.warnings.isEmpty()) {
-                            JOptionPane.showMessageDialog(AdminDashboardFrame.this,
-                                    "ADMIN WARNINGS:\n" + String.join("\n", res.warnings));
-                        }
-                        // TODO: Open report frame (reading allocations from DB)
-                        // new AllocationReportFrame();
-                    } catch (Exception ex) {
-                        JOptionPane.showMessageDialog(AdminDashboardFrame.this,
-                                "Error during allocation: " + ex.getMessage());
-                    }
-                }
-            }.execute();
+            String input = JOptionPane.showInputDialog(this, "Exam slot IDs (comma-separated):", "EX01");
+            if (input == null) return;
+            List<String> slotIds = new ArrayList<>();
+            for (String id : input.split(",")) {
+                if (!id.trim().isEmpty()) slotIds.add(id.trim());
+            }
+            if (slotIds.isEmpty()) return;
+
+            // queued per slot: a slot already waiting is not allocated twice, and writes never overlap
+            List<AllocationScheduler.Job> jobs = AllocationScheduler.shared().submitAll(slotIds,
+                    job -> SwingUtilities.invokeLater(this::showProgress));
+            activeJobs.addAll(jobs);
+            showProgress();
+            CompletableFuture.allOf(jobs.stream().map(AllocationScheduler.Job::result).toArray(CompletableFuture[]::new))
+                    .thenRun(() -> SwingUtilities.invokeLater(() -> showResults(jobs)));
         });
 
-        // View Reports (fetch from DB, e.g., in a JTable)
-        viewReportButton.addActionListener(ignored -> {
-            SeatAllocator allocator = new SeatAllocator();
-            var records = allocator.generateFullReport();
-            if (records.isEmpty()) {
-                JOptionPane.showMessageDialog(this, "No allocations found.");
-            } else {
-                StringBuilder sb = new StringBuilder("Seat Allocations:\n");
-                for (var rec : records) {
-                    sb.append(rec.toString()).append("\n");
-                }
-                JTextArea area = new JTextArea(sb.toString(), 20, 50);
-                area.setEditable(false);
-                JOptionPane.showMessageDialog(this, new JScrollPane(area), "Report", JOptionPane.INFORMATION_MESSAGE);
+        // Cancel the allocations of this window that are still queued or computing; writes are never interrupted
+        cancelAllocationButton.addActionListener(ignored -> {
+            for (AllocationScheduler.Job job : new ArrayList<>(activeJobs)) {
+                if (cancellable(job)) job.cancel();
             }
+            showProgress();
         });
 
+        // View Reports (paged table loaded from DB as it scrolls)
+        viewReportButton.addActionListener(ignored -> new AllocationReportFrame());
+
+        // View Warnings (admin journal, newest first)
+        viewWarningsButton.addActionListener(ignored -> new AdminJournalFrame());
+
+        // What-If Planner (scenarios on an in-memory snapshot, nothing is written)
+        whatIfButton.addActionListener(ignored -> new WhatIfPlannerFrame());
+
         setLocationRelativeTo(null);
         setVisible(true);
     }
+
+    // state of the allocations started from this window, on the status line
+    private void showProgress() {
+        StringBuilder text = new StringBuilder();
+        boolean anyCancellable = false;
+        for (Iterator<AllocationScheduler.Job> it = activeJobs.iterator(); it.hasNext(); ) {
+            AllocationScheduler.Job job = it.next();
+            if (job.result().isDone()) {
+                it.remove();
+                continue;
+            }
+            if (text.length() > 0) text.append(", ");
+            text.append(job.examSlotId).append(": ").append(job.state().name().toLowerCase());
+            anyCancellable |= cancellable(job);
+        }
+        allocationStatusLabel.setText(text.toString());
+        cancelAllocationButton.setEnabled(anyCancellable);
+    }
+
+    private static boolean cancellable(AllocationScheduler.Job job) {
+        AllocationScheduler.State state = job.state();
+        return state == AllocationScheduler.State.QUEUED || state == AllocationScheduler.State.COMPUTING;
+    }
+
+    private void showResults(List<AllocationScheduler.Job> jobs) {
+        showProgress();
+        StringBuilder summary = new StringBuilder();
+        List<String> warnings = new ArrayList<>();
+        for (AllocationScheduler.Job job : jobs) {
+            SeatAllocator.AllocationResult res = job.result().join();
+            summary.append(job.examSlotId).append(": ")
+                    .append(job.state() == AllocationScheduler.State.CANCELLED ? "cancelled" : res.success ? "completed" : "failed")
+                    .append(" (").append(job.queuedMillis()).append(" ms queued, ").append(job.computeMillis())
+                    .append(" ms compute, ").append(job.writeMillis()).append(" ms write")
+                    .append(job.requests() > 1 ? ", " + job.requests() + " requests merged" : "").append(")\n");
+            if (res.metrics.isEnabled()) {
+                // per-phase breakdown: timings on one line, counters on the next
+                summary.append("    ").append(res.metrics.summary().replace("; ", "\n    ")).append("\n");
+            }
+            for (String w : res.warnings) warnings.add(job.examSlotId + ": " + w);
+        }
+        JOptionPane.showMessageDialog(this, "Seat allocation finished.\n" + summary);
+        if (!warnings.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "ADMIN WARNINGS:\n" + String.join("\n", warnings));
+        }
+    }
 }
@@ -0,0 +1,166 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admin warnings and events, written to the AdminWarning table off the caller's thread.
+ *
+ * {@link #log} stamps the entry and puts it on a bounded queue; one background thread drains the
+ * queue and inserts up to {@link #BATCH_SIZE} entries per transaction on its own connection. An
+ * entry therefore survives a rollback of the allocation that raised it, and the allocation's
+ * write lock is never held for it. When the queue stays full for {@link #OFFER_MILLIS} the entry
+ * is dropped and a count of dropped entries is journalled with the next batch. Pending entries are
+ * written on JVM shutdown and by {@link DatabaseConnection#shutdown}.
+ */
+public final class AdminJournal {
+
+    public enum Severity {
+        INFO, WARNING, ERROR;
+
+        /** Stored severity; unknown values read as WARNING. */
+        static Severity parse(String value) {
+            for (Severity s : values()) {
+                if (s.name().equalsIgnoreCase(value)) return s;
+            }
+            return WARNING;
+        }
+    }
+
+    /** One journal row; id is 0 until written, examSlotId is null for entries about no slot. */
+    public static final class Entry {
+        public final long id;
+        public final String createdAt; // ISO-8601 instant, null for rows from before the journal
+        public final String examSlotId;
+        public final Severity severity;
+        public final String text;
+
+        public Entry(long id, String createdAt, String examSlotId, Severity severity, String text) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.examSlotId = examSlotId;
+            this.severity = severity;
+            this.text = text;
+        }
+    }
+
+    static final int CAPACITY = Integer.getInteger("seatwise.journal.capacity", 10_000);
+    static final int BATCH_SIZE = 500;
+    private static final long OFFER_MILLIS = 1_000;
+    private static final int WRITE_ATTEMPTS = 3;
+
+    private static final BlockingQueue<Entry> QUEUE = new ArrayBlockingQueue<>(CAPACITY);
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final Object LOCK = new Object();
+    private static long pending; // queued or being written, guarded by LOCK
+    private static Thread writer;
+
+    private AdminJournal() {
+    }
+
+    public static void info(String examSlotId, String text) { log(Severity.INFO, examSlotId, text); }
+    public static void warn(String examSlotId, String text) { log(Severity.WARNING, examSlotId, text); }
+    public static void error(String examSlotId, String text) { log(Severity.ERROR, examSlotId, text); }
+
+    /** Queue an entry; returns at once unless the queue is full. */
+    public static void log(Severity severity, String examSlotId, String text) {
+        Entry entry = new Entry(0, Instant.now().toString(), examSlotId, severity, text);
+        synchronized (LOCK) {
+            if (writer == null) start();
+            pending++;
+        }
+        boolean queued = false;
+        try {
+            queued = QUEUE.offer(entry, OFFER_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queued) {
+            DROPPED.incrementAndGet();
+            written(1);
+        }
+    }
+
+    /** Wait up to timeoutMillis until every entry logged so far is written; false on timeout. */
+    public static boolean flush(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (LOCK) {
+            while (pending > 0) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) return false;
+                try {
+                    LOCK.wait(left);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // guarded by LOCK
+    private static void start() {
+        writer = new Thread(AdminJournal::drain, "admin-journal");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(5_000), "admin-journal-flush"));
+    }
+
+    private static void drain() {
+        List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            try {
+                batch.add(QUEUE.take());
+            } catch (InterruptedException ex) {
+                return;
+            }
+            QUEUE.drainTo(batch, BATCH_SIZE - 1);
+            int logged = batch.size();
+            long dropped = DROPPED.getAndSet(0);
+            if (dropped > 0) {
+                batch.add(new Entry(0, Instant.now().toString(), null, Severity.ERROR,
+                        dropped + " admin journal entries were dropped because the journal queue was full."));
+            }
+            write(batch);
+            batch.clear();
+            written(logged);
+        }
+    }
+
+    // one transaction per batch; after the last failed attempt the batch is lost (and printed)
+    private static void write(List<Entry> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                AllocationDAO.saveAdminWarnings(conn, batch);
+                conn.commit();
+                return;
+            } catch (SQLException ex) {
+                if (attempt == WRITE_ATTEMPTS) {
+                    ex.printStackTrace();
+                    for (Entry e : batch) System.err.println("Admin journal entry lost: " + e.severity + " " + e.text);
+                    return;
+                }
+            }
+            try {
+                Thread.sleep(500L * attempt);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void written(int count) {
+        synchronized (LOCK) {
+            pending -= count;
+            LOCK.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Admin journal viewer: warnings and events newest first, one page at a time, optionally for one
+ * exam slot. Older/Newer page by keyset on the entry id, so every page is one indexed query
+ * however long the journal has grown. Entries still queued in AdminJournal are written first.
+ */
+public class AdminJournalFrame extends JFrame {
+    private static final int PAGE_SIZE = 200;
+
+    private final JTextField slotField = new JTextField(8);
+    private final JButton applyButton = new JButton("Apply");
+    private final JButton newerButton = new JButton("< Newer");
+    private final JButton olderButton = new JButton("Older >");
+    private final JLabel statusLabel = new JLabel("Loading...");
+    private final JournalModel model = new JournalModel();
+
+    // paging state, EDT only: the id each page shown so far started below (0 = newest)
+    private final List<Long> pageStarts = new ArrayList<>();
+    private String examSlotId;
+    private int total;
+    private int generation;
+
+    public AdminJournalFrame() {
+        setTitle("Admin Warnings");
+        setSize(900, 500);
+        setLayout(new BorderLayout());
+
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filters.add(new JLabel("Exam slot:"));
+        filters.add(slotField);
+        filters.add(applyButton);
+        filters.add(newerButton);
+        filters.add(olderButton);
+        add(filters, BorderLayout.NORTH);
+
+        JTable table = new JTable(model);
+        table.getColumnModel().getColumn(0).setPreferredWidth(60);
+        table.getColumnModel().getColumn(1).setPreferredWidth(180);
+        table.getColumnModel().getColumn(2).setPreferredWidth(80);
+        table.getColumnModel().getColumn(3).setPreferredWidth(80);
+        table.getColumnModel().getColumn(4).setPreferredWidth(500);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+
+        applyButton.addActionListener(ignored -> {
+            String value = slotField.getText().trim();
+            reload(value.isEmpty() ? null : value);
+        });
+        slotField.addActionListener(ignored -> applyButton.doClick());
+        newerButton.addActionListener(ignored -> {
+            pageStarts.remove(pageStarts.size() - 1);
+            load(pageStarts.remove(pageStarts.size() - 1), false);
+        });
+        olderButton.addActionListener(ignored -> load(model.rows.get(model.rows.size() - 1).id, false));
+
+        reload(null);
+        setLocationRelativeTo(null);
+        setVisible(true);
+    }
+
+    private void reload(String slot) {
+        examSlotId = slot;
+        pageStarts.clear();
+        load(0, true);
+    }
+
+    private void load(long beforeId, boolean count) {
+        int gen = ++generation;
+        String slot = examSlotId;
+        newerButton.setEnabled(false);
+        olderButton.setEnabled(false);
+        statusLabel.setText("Loading...");
+        new SwingWorker<List<AdminJournal.Entry>, Void>() {
+            private int rows = -1;
+
+            protected List<AdminJournal.Entry> doInBackground() throws Exception {
+                AdminJournal.flush(2_000); // show what has been logged so far
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    if (count) rows = AllocationDAO.countAdminWarnings(conn, slot);
+                    return AllocationDAO.fetchAdminWarnings(conn, slot, beforeId, PAGE_SIZE);
+                }
+            }
+            protected void done() {
+                if (gen != generation) return; // filter changed while loading
+                try {
+                    List<AdminJournal.Entry> page = get();
+                    if (rows >= 0) total = rows;
+                    pageStarts.add(beforeId);
+                    model.setRows(page);
+                    int first = (pageStarts.size() - 1) * PAGE_SIZE;
+                    statusLabel.setText(page.isEmpty() ? "No entries."
+                            : "Entries " + (first + 1) + "-" + (first + page.size()) + " of " + total
+                            + (slot == null ? "" : " for " + slot) + ", newest first.");
+                    newerButton.setEnabled(pageStarts.size() > 1);
+                    olderButton.setEnabled(page.size() == PAGE_SIZE);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    statusLabel.setText("Could not load the journal: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private static class JournalModel extends AbstractTableModel {
+        private final String[] columns = {"#", "Time", "Severity", "Exam Slot", "Message"};
+        private List<AdminJournal.Entry> rows = new ArrayList<>();
+
+        void setRows(List<AdminJournal.Entry> page) {
+            rows = page;
+            fireTableDataChanged();
+        }
+
+        public int getRowCount() { return rows.size(); }
+        public int getColumnCount() { return columns.length; }
+        public String getColumnName(int col) { return columns[col]; }
+
+        public Object getValueAt(int row, int col) {
+            AdminJournal.Entry e = rows.get(row);
+            switch (col) {
+                case 0: return e.id;
+                case 1: return e.createdAt == null ? "" : e.createdAt;
+                case 2: return e.severity;
+                case 3: return e.examSlotId == null ? "" : e.examSlotId;
+                default: return e.text;
+            }
+        }
+    }
+}
@@ -1,35 +1,163 @@
+import java.io.IOException;
+import java.io.Writer;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AllocationDAO {
+    private static final String CLEAR_SQL = "DELETE FROM Allocation WHERE exam_slot_id = ?";
+    private static final String INSERT_SQL = "INSERT INTO Allocation(student_id, room_id, seat_no, exam_slot_id) VALUES (?, ?, ?, ?)";
+    private static final String FOR_EXAM_SQL = "SELECT a.student_id, s.name, s.branch, a.room_id, a.seat_no, a.exam_slot_id " +
+                                               "FROM Allocation a JOIN Student s ON a.student_id = s.student_id WHERE a.exam_slot_id = ?";
+    private static final String DELETE_SQL = "DELETE FROM Allocation WHERE exam_slot_id = ? AND student_id = ?";
+    private static final String UPDATE_SQL = "UPDATE Allocation SET room_id = ?, seat_no = ? WHERE exam_slot_id = ? AND student_id = ?";
+    private static final String STUDENT_SQL = "SELECT student_id, name, branch FROM Student WHERE student_id IN (";
+    private static final int STUDENT_CHUNK = 500; // ids per IN list, well under SQLite's parameter limit
+    private static final String ALL_SQL = "SELECT a.student_id, s.name, s.branch, a.room_id, a.seat_no, a.exam_slot_id " +
+                                          "FROM Allocation a JOIN Student s ON a.student_id = s.student_id " +
+                                          "ORDER BY a.exam_slot_id, a.room_id, a.seat_no";
+    private static final String FOR_STUDENT_SQL = "SELECT a.student_id, s.name, s.branch, a.room_id, a.seat_no, a.exam_slot_id " +
+                                                  "FROM Allocation a JOIN Student s ON a.student_id = s.student_id WHERE a.student_id = ?";
+    private static final String WARNING_SQL = "INSERT INTO AdminWarning(created_at, exam_slot_id, severity, warning_text) VALUES (?, ?, ?, ?)";
+    private static final String ENROLLED_SQL = "SELECT s.student_id, s.name, s.branch " +
+                                               "FROM Enrollment e JOIN Student s ON s.student_id = e.student_id WHERE e.exam_slot_id = ?";
+    private static final String ENROLLED_COUNT_SQL = "SELECT COUNT(*) FROM Enrollment WHERE exam_slot_id = ?";
+    private static final String ENROLLMENT_ANY_SQL = "SELECT 1 FROM Enrollment LIMIT 1";
+    private static final String ENROLL_SQL = "INSERT OR IGNORE INTO Enrollment(exam_slot_id, student_id) VALUES (?, ?)";
+    private static final String UNENROLL_SQL = "DELETE FROM Enrollment WHERE exam_slot_id = ? AND student_id = ?";
+    private static final String CLOSE_ROOM_SQL = "INSERT OR IGNORE INTO RoomClosure(exam_slot_id, room_id) VALUES (?, ?)";
+    private static final String REOPEN_ROOM_SQL = "DELETE FROM RoomClosure WHERE exam_slot_id = ? AND room_id = ?";
+    private static final String BUMP_VERSION_SQL = "INSERT INTO SlotVersion(exam_slot_id, version) VALUES (?, 1) " +
+                                                   "ON CONFLICT(exam_slot_id) DO UPDATE SET version = version + 1 RETURNING version";
+    private static final String VERSIONS_SQL = "SELECT exam_slot_id, version FROM SlotVersion";
 
-    public static void clearAllocationsForExam(Connection conn, String examSlotId) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM Allocation WHERE exam_slot_id = ?")) {
+    public static int clearAllocationsForExam(Connection conn, String examSlotId) throws SQLException {
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, CLEAR_SQL)) {
             ps.setString(1, examSlotId);
-            ps.executeUpdate();
+            return ps.executeUpdate();
         }
     }
 
+    /**
+     * Count one more change to the slot's seats, in the caller's transaction; returns the new version.
+     * Every transaction that writes a slot's allocations calls this before it commits.
+     */
+    public static long bumpSlotVersion(Connection conn, String examSlotId) throws SQLException {
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, BUMP_VERSION_SQL)) {
+            ps.setString(1, examSlotId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /** Version of every slot that has been allocated; see bumpSlotVersion. */
+    public static Map<String, Long> fetchSlotVersions(Connection conn) throws SQLException {
+        Map<String, Long> versions = new HashMap<>();
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, VERSIONS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) versions.put(rs.getString(1), rs.getLong(2));
+        }
+        return versions;
+    }
+
     public static void saveAllocationBatch(Connection conn, List<AllocationRecord> allocations) throws SQLException {
-        String sql = "INSERT INTO Allocation(student_id, room_id, seat_no, exam_slot_id) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = prepareInsert(conn)) {
             for (AllocationRecord r : allocations) {
-                ps.setString(1, r.getStudentId());
-                ps.setString(2, r.getRoomId());
-                ps.setInt(3, r.getSeatNo());
-                ps.setString(4, r.getExamSlotId());
+                bindInsert(ps, r);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /** Allocation INSERT for callers that manage their own batches (see AllocationWriter). */
+    static PreparedStatement prepareInsert(Connection conn) throws SQLException {
+        return DatabaseConnection.prepare(conn, INSERT_SQL);
+    }
+
+    static void bindInsert(PreparedStatement ps, AllocationRecord r) throws SQLException {
+        ps.setString(1, r.getStudentId());
+        ps.setString(2, r.getRoomId());
+        ps.setInt(3, r.getSeatNo());
+        ps.setString(4, r.getExamSlotId());
+    }
+
+    public static List<AllocationRecord> fetchAllocationsForExam(Connection conn, String examSlotId) throws SQLException {
+        List<AllocationRecord> list = new ArrayList<>();
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, FOR_EXAM_SQL)) {
+            ps.setString(1, examSlotId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new AllocationRecord(
+                        rs.getString(1), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getInt(5), rs.getString(6)
+                    ));
+                }
+            }
+        }
+        return list;
+    }
+
+    public static void deleteAllocations(Connection conn, String examSlotId, Collection<String> studentIds) throws SQLException {
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, DELETE_SQL)) {
+            for (String id : studentIds) {
+                ps.setString(1, examSlotId);
+                ps.setString(2, id);
                 ps.addBatch();
             }
             ps.executeBatch();
         }
     }
 
+    /** Moves each student to the room and seat of its record, within the record's exam slot. */
+    public static void updateSeats(Connection conn, List<AllocationRecord> moved) throws SQLException {
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, UPDATE_SQL)) {
+            for (AllocationRecord r : moved) {
+                ps.setString(1, r.getRoomId());
+                ps.setInt(2, r.getSeatNo());
+                ps.setString(3, r.getExamSlotId());
+                ps.setString(4, r.getStudentId());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /** The given students that exist in the Student table, in the order asked for; one query per 500 ids. */
+    public static StudentTable fetchStudents(Connection conn, Collection<String> studentIds) throws SQLException {
+        Map<String, String[]> rows = new HashMap<>();
+        List<String> ids = new ArrayList<>(studentIds);
+        for (int from = 0; from < ids.size(); from += STUDENT_CHUNK) {
+            List<String> chunk = ids.subList(from, Math.min(ids.size(), from + STUDENT_CHUNK));
+            try (PreparedStatement ps = DatabaseConnection.prepare(conn, studentSql(chunk.size()))) {
+                for (int i = 0; i < chunk.size(); i++) ps.setString(i + 1, chunk.get(i));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) rows.put(rs.getString(1), new String[]{rs.getString(2), rs.getString(3)});
+                }
+            }
+        }
+        StudentTable found = new StudentTable(studentIds.size());
+        for (String id : studentIds) {
+            String[] row = rows.get(id);
+            if (row != null) found.add(id, row[0], row[1]);
+        }
+        return found;
+    }
+
+    private static String studentSql(int ids) {
+        return STUDENT_SQL + String.join(", ", Collections.nCopies(ids, "?")) + ")";
+    }
+
+    /** Every allocation, grouped by exam slot, then room and seat. */
     public static List<AllocationRecord> fetchAllAllocations(Connection conn) throws SQLException {
         List<AllocationRecord> list = new ArrayList<>();
-        String sql = "SELECT a.student_id, s.name, s.branch, a.room_id, a.seat_no, a.exam_slot_id " +
-                     "FROM Allocation a JOIN Student s ON a.student_id = s.student_id ORDER BY a.room_id, a.seat_no";
-        try (PreparedStatement ps = conn.prepareStatement(sql);
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, ALL_SQL);
              ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
                 list.add(new AllocationRecord(
@@ -41,10 +169,136 @@ public class AllocationDAO {
         return list;
     }
 
+    // ------------------- Paged report -------------------
+    // Report rows are ordered by (exam slot, room, seat, student). Pages continue from the last row
+    // already shown (keyset), so a page costs the same wherever it sits in the report; the unique
+    // (exam_slot_id, room_id, seat_no) index serves both the order and the cursor, and
+    // (room_id, exam_slot_id, seat_no) does the same when the report is filtered by room.
+
+    private static final String REPORT_SELECT = "SELECT a.student_id, s.name, s.branch, a.room_id, a.seat_no, a.exam_slot_id " +
+                                                "FROM Allocation a JOIN Student s ON a.student_id = s.student_id";
+    private static final String REPORT_ORDER = " ORDER BY a.exam_slot_id, a.room_id, a.seat_no, a.student_id";
+    private static final String REPORT_COUNT = "SELECT COUNT(*) FROM Allocation a JOIN Student s ON a.student_id = s.student_id";
+    /** Number of report rows matching the filter; a null slot or room means "any". */
+    public static int countAllocations(Connection conn, String examSlotId, String roomId) throws SQLException {
+        String sql = REPORT_COUNT + reportWhere(examSlotId, roomId, null);
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, sql)) {
+            bindReportFilter(ps, examSlotId, roomId, null);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Up to limit report rows that come after the given row (null = from the start). Pages are read
+     * by this cursor alone, so every page is one index range however far into the report it is.
+     */
+    public static List<AllocationRecord> fetchReportPage(Connection conn, String examSlotId, String roomId,
+                                                         AllocationRecord after, int limit) throws SQLException {
+        List<AllocationRecord> page = new ArrayList<>(limit);
+        String sql = reportPageSql(examSlotId, roomId, after);
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, sql)) {
+            int i = bindReportFilter(ps, examSlotId, roomId, after);
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    page.add(new AllocationRecord(
+                        rs.getString(1), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getInt(5), rs.getString(6)
+                    ));
+                }
+            }
+        }
+        return page;
+    }
+
+    /** Writes the filtered report as CSV row by row from the result set; returns the number of rows written. */
+    public static long exportAllocations(Connection conn, String examSlotId, String roomId, Writer out)
+            throws SQLException, IOException {
+        String sql = REPORT_SELECT + reportWhere(examSlotId, roomId, null) + REPORT_ORDER;
+        long rows = 0;
+        out.write("student_id,name,branch,room_id,seat_no,exam_slot_id\n");
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, sql)) {
+            bindReportFilter(ps, examSlotId, roomId, null);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.write(csv(rs.getString(1)) + "," + csv(rs.getString(2)) + "," + csv(rs.getString(3)) + ","
+                            + csv(rs.getString(4)) + "," + rs.getInt(5) + "," + csv(rs.getString(6)) + "\n");
+                    rows++;
+                }
+            }
+        }
+        out.flush();
+        return rows;
+    }
+
+    /** Receives report rows one at a time, in report order. */
+    public interface RowHandler {
+        void row(AllocationRecord r) throws IOException;
+    }
+
+    /** Passes one slot's rows to the handler in room and seat order, straight from the result set; returns the row count. */
+    public static long streamSlotAllocations(Connection conn, String examSlotId, RowHandler handler)
+            throws SQLException, IOException {
+        String sql = REPORT_SELECT + reportWhere(examSlotId, null, null) + REPORT_ORDER;
+        long rows = 0;
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, sql)) {
+            bindReportFilter(ps, examSlotId, null, null);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    handler.row(new AllocationRecord(
+                        rs.getString(1), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getInt(5), rs.getString(6)
+                    ));
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static String reportPageSql(String examSlotId, String roomId, AllocationRecord after) {
+        return REPORT_SELECT + reportWhere(examSlotId, roomId, after) + REPORT_ORDER + " LIMIT ?";
+    }
+
+    private static String csv(String value) {
+        return value == null ? "" : CsvImporter.CsvReader.quote(value);
+    }
+
+    private static String reportWhere(String examSlotId, String roomId, AllocationRecord after) {
+        List<String> clauses = new ArrayList<>();
+        if (examSlotId != null) clauses.add("a.exam_slot_id = ?");
+        if (roomId != null) clauses.add("a.room_id = ?");
+        // within one room a seat is unique per slot, so (slot, seat) is the whole cursor and one index range
+        if (after != null) {
+            clauses.add(roomId != null ? "(a.exam_slot_id, a.seat_no) > (?, ?)"
+                    : "(a.exam_slot_id, a.room_id, a.seat_no, a.student_id) > (?, ?, ?, ?)");
+        }
+        return clauses.isEmpty() ? "" : " WHERE " + String.join(" AND ", clauses);
+    }
+
+    // binds the parameters of reportWhere and returns the next free parameter index
+    private static int bindReportFilter(PreparedStatement ps, String examSlotId, String roomId,
+                                        AllocationRecord after) throws SQLException {
+        int i = 1;
+        if (examSlotId != null) ps.setString(i++, examSlotId);
+        if (roomId != null) ps.setString(i++, roomId);
+        if (after != null) {
+            ps.setString(i++, after.getExamSlotId());
+            if (roomId != null) {
+                ps.setInt(i++, after.getSeatNo());
+            } else {
+                ps.setString(i++, after.getRoomId());
+                ps.setInt(i++, after.getSeatNo());
+                ps.setString(i++, after.getStudentId());
+            }
+        }
+        return i;
+    }
+
     public static AllocationRecord fetchAllocationForStudent(Connection conn, String studentId) throws SQLException {
-        String sql = "SELECT a.student_id, s.name, s.branch, a.room_id, a.seat_no, a.exam_slot_id " +
-                     "FROM Allocation a JOIN Student s ON a.student_id = s.student_id WHERE a.student_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, FOR_STUDENT_SQL)) {
             ps.setString(1, studentId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
@@ -58,11 +312,170 @@ public class AllocationDAO {
         return null;
     }
 
-    public static void saveAdminWarning(Connection conn, String text) throws SQLException {
-        String sql = "INSERT INTO AdminWarning(warning_text) VALUES(?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, text);
-            ps.executeUpdate();
+    // ------------------- Admin journal -------------------
+    // Newest first; pages continue below the smallest id already shown (keyset on the rowid).
+
+    private static final String JOURNAL_SELECT = "SELECT id, created_at, exam_slot_id, severity, warning_text FROM AdminWarning";
+    private static final String JOURNAL_COUNT = "SELECT COUNT(*) FROM AdminWarning";
+
+    /** Batch insert for AdminJournal's writer; the caller commits. */
+    public static void saveAdminWarnings(Connection conn, List<AdminJournal.Entry> entries) throws SQLException {
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, WARNING_SQL)) {
+            for (AdminJournal.Entry e : entries) {
+                ps.setString(1, e.createdAt);
+                ps.setString(2, e.examSlotId);
+                ps.setString(3, e.severity.name());
+                ps.setString(4, e.text);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /** Number of journal entries, all or for one slot (null = all). */
+    public static int countAdminWarnings(Connection conn, String examSlotId) throws SQLException {
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, JOURNAL_COUNT + journalWhere(examSlotId, false))) {
+            if (examSlotId != null) ps.setString(1, examSlotId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /** Up to limit journal entries older than beforeId (0 = from the newest), newest first. */
+    public static List<AdminJournal.Entry> fetchAdminWarnings(Connection conn, String examSlotId, long beforeId, int limit)
+            throws SQLException {
+        List<AdminJournal.Entry> page = new ArrayList<>(limit);
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, journalPageSql(examSlotId, beforeId > 0))) {
+            int i = 1;
+            if (examSlotId != null) ps.setString(i++, examSlotId);
+            if (beforeId > 0) ps.setLong(i++, beforeId);
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    page.add(new AdminJournal.Entry(rs.getLong(1), rs.getString(2), rs.getString(3),
+                            AdminJournal.Severity.parse(rs.getString(4)), rs.getString(5)));
+                }
+            }
+        }
+        return page;
+    }
+
+    private static String journalPageSql(String examSlotId, boolean before) {
+        return JOURNAL_SELECT + journalWhere(examSlotId, before) + " ORDER BY id DESC LIMIT ?";
+    }
+
+    private static String journalWhere(String examSlotId, boolean before) {
+        List<String> clauses = new ArrayList<>();
+        if (examSlotId != null) clauses.add("exam_slot_id = ?");
+        if (before) clauses.add("id < ?");
+        return clauses.isEmpty() ? "" : " WHERE " + String.join(" AND ", clauses);
+    }
+
+    // ------------------- Enrollment -------------------
+
+    /** Students enrolled in the slot, read straight into a StudentTable; ids with no Student row are left out. */
+    public static StudentTable fetchEnrolledStudents(Connection conn, String examSlotId) throws SQLException {
+        StudentTable table = new StudentTable();
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, ENROLLED_SQL)) {
+            ps.setString(1, examSlotId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) table.add(rs.getString(1), rs.getString(2), rs.getString(3));
+            }
+        }
+        return table;
+    }
+
+    /** Enrollment rows of the slot, including ids that have no Student row. */
+    public static int countEnrollments(Connection conn, String examSlotId) throws SQLException {
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, ENROLLED_COUNT_SQL)) {
+            ps.setString(1, examSlotId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /** Whether any enrollment has been loaded; without one every student sits every slot. */
+    public static boolean hasEnrollments(Connection conn) throws SQLException {
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, ENROLLMENT_ANY_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    public static void enroll(Connection conn, String examSlotId, Collection<String> studentIds) throws SQLException {
+        updateSlotRows(conn, ENROLL_SQL, examSlotId, studentIds);
+    }
+
+    public static void unenroll(Connection conn, String examSlotId, Collection<String> studentIds) throws SQLException {
+        updateSlotRows(conn, UNENROLL_SQL, examSlotId, studentIds);
+    }
+
+    // ------------------- Room closures -------------------
+
+    /** Close the rooms for the slot; SeatAllocator.fetchAllRooms(conn, slot) leaves them out. */
+    public static void closeRooms(Connection conn, String examSlotId, Collection<String> roomIds) throws SQLException {
+        updateSlotRows(conn, CLOSE_ROOM_SQL, examSlotId, roomIds);
+    }
+
+    public static void reopenRooms(Connection conn, String examSlotId, Collection<String> roomIds) throws SQLException {
+        updateSlotRows(conn, REOPEN_ROOM_SQL, examSlotId, roomIds);
+    }
+
+    // one (exam_slot_id, id) row per id, batched
+    private static void updateSlotRows(Connection conn, String sql, String examSlotId, Collection<String> ids)
+            throws SQLException {
+        if (ids.isEmpty()) return;
+        try (PreparedStatement ps = DatabaseConnection.prepare(conn, sql)) {
+            for (String id : ids) {
+                ps.setString(1, examSlotId);
+                ps.setString(2, id);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Every statement this DAO issues, report filters in each combination the UI and lookup service
+     * use, for the query-plan check in DatabaseSchema. Whole-report reads may walk an index in order.
+     */
+    static List<DatabaseSchema.PlannedQuery> plannedQueries() {
+        AllocationRecord cursor = new AllocationRecord("", null, null, "", 0, "");
+        List<DatabaseSchema.PlannedQuery> q = new ArrayList<>();
+        q.add(new DatabaseSchema.PlannedQuery("clearAllocationsForExam", CLEAR_SQL, false));
+        q.add(new DatabaseSchema.PlannedQuery("fetchAllocationsForExam", FOR_EXAM_SQL, false));
+        q.add(new DatabaseSchema.PlannedQuery("deleteAllocations", DELETE_SQL, false));
+        q.add(new DatabaseSchema.PlannedQuery("updateSeats", UPDATE_SQL, false));
+        q.add(new DatabaseSchema.PlannedQuery("fetchStudents", studentSql(STUDENT_CHUNK), false));
+        q.add(new DatabaseSchema.PlannedQuery("fetchAllAllocations", ALL_SQL, true));
+        q.add(new DatabaseSchema.PlannedQuery("fetchAllocationForStudent", FOR_STUDENT_SQL, false));
+        // every report filter the DAO builds; only unfiltered reads may walk the whole report index
+        for (String slot : new String[]{null, ""}) {
+            for (String room : new String[]{null, ""}) {
+                boolean fullRead = slot == null && room == null;
+                String filter = slot == null ? (room == null ? "all" : "room") : (room == null ? "slot" : "slot, room");
+                String where = reportWhere(slot, room, null);
+                q.add(new DatabaseSchema.PlannedQuery("countAllocations(" + filter + ")", REPORT_COUNT + where, fullRead));
+                q.add(new DatabaseSchema.PlannedQuery("exportAllocations(" + filter + ")", REPORT_SELECT + where + REPORT_ORDER, fullRead));
+                q.add(new DatabaseSchema.PlannedQuery("fetchReportPage(" + filter + ", first)", reportPageSql(slot, room, null), fullRead));
+                q.add(new DatabaseSchema.PlannedQuery("fetchReportPage(" + filter + ", next)", reportPageSql(slot, room, cursor), false));
+            }
         }
+        q.add(new DatabaseSchema.PlannedQuery("fetchEnrolledStudents", ENROLLED_SQL, false));
+        q.add(new DatabaseSchema.PlannedQuery("countEnrollments", ENROLLED_COUNT_SQL, false));
+        q.add(new DatabaseSchema.PlannedQuery("hasEnrollments", ENROLLMENT_ANY_SQL, true)); // stops at the first row
+        q.add(new DatabaseSchema.PlannedQuery("unenroll", UNENROLL_SQL, false));
+        q.add(new DatabaseSchema.PlannedQuery("reopenRooms", REOPEN_ROOM_SQL, false));
+        q.add(new DatabaseSchema.PlannedQuery("bumpSlotVersion", BUMP_VERSION_SQL, false));
+        q.add(new DatabaseSchema.PlannedQuery("fetchSlotVersions", VERSIONS_SQL, true)); // one row per slot
+        q.add(new DatabaseSchema.PlannedQuery("countAdminWarnings(all)", JOURNAL_COUNT, true));
+        q.add(new DatabaseSchema.PlannedQuery("countAdminWarnings(slot)", JOURNAL_COUNT + journalWhere("", false), false));
+        q.add(new DatabaseSchema.PlannedQuery("fetchAdminWarnings(first)", journalPageSql(null, false), true)); // stops after one page
+        q.add(new DatabaseSchema.PlannedQuery("fetchAdminWarnings(next)", journalPageSql(null, true), false));
+        q.add(new DatabaseSchema.PlannedQuery("fetchAdminWarnings(slot, first)", journalPageSql("", false), false));
+        q.add(new DatabaseSchema.PlannedQuery("fetchAdminWarnings(slot, next)", journalPageSql("", true), false));
+        return q;
     }
 }
@@ -0,0 +1,208 @@
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Phase timings and counters of one slot's allocation run.
+ *
+ * Each run gets its own instance, attached to its AllocationResult and folded into the
+ * process-wide totals published over JMX as "seatwise:type=Allocation". With
+ * -Dseatwise.metrics=false every run shares a disabled instance and each probe is a single
+ * field check, so the allocator pays nothing measurable for the instrumentation.
+ */
+public class AllocationMetrics {
+
+    /**
+     * Timed parts of an allocation, in pipeline order. With the pipelined writer, clear and insert
+     * run on the writer thread alongside the compute phases, and "await writer" is the part of
+     * them the allocating thread still waits for; the phase total can then exceed wall-clock time.
+     */
+    public enum Phase {
+        FETCH_STUDENTS("fetch students"),
+        FETCH_ROOMS("fetch rooms"),
+        REORGANIZE("reorganize"),
+        PLACE("place"),
+        REPAIR("repair"),
+        OPTIMIZE("optimize"),
+        BUILD_RECORDS("build records"),
+        CLEAR("clear"),
+        INSERT("insert"),
+        AWAIT_WRITER("await writer"),
+        COMMIT("commit"),
+        SNAPSHOT("snapshot");
+
+        final String label;
+        Phase(String label) { this.label = label; }
+    }
+
+    /** Counted quantities of a run. */
+    public enum Counter {
+        STUDENTS("students"),
+        ROOMS("rooms"),
+        SWAPS_ATTEMPTED("swaps attempted"),
+        SWAPS_SUCCEEDED("swaps succeeded"),
+        OPTIMIZER_MOVES("optimizer moves"),
+        RESIDUAL_VIOLATIONS("residual violations"),
+        ROWS_CLEARED("rows cleared"),
+        ROWS_WRITTEN("rows written");
+
+        final String label;
+        Counter(String label) { this.label = label; }
+    }
+
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("seatwise.metrics"));
+    private static final AllocationMetrics DISABLED = new AllocationMetrics(null, false);
+
+    private final String examSlotId;
+    private final boolean enabled;
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final long[] counters = new long[Counter.values().length];
+
+    private AllocationMetrics(String examSlotId, boolean enabled) {
+        this.examSlotId = examSlotId;
+        this.enabled = enabled;
+    }
+
+    /** Metrics for a new run, or the shared no-op instance when instrumentation is off. */
+    public static AllocationMetrics start(String examSlotId) {
+        return ENABLED ? new AllocationMetrics(examSlotId, true) : DISABLED;
+    }
+
+    /** Metrics that record nothing, for results that were not measured. */
+    public static AllocationMetrics none() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public String examSlotId() { return examSlotId; }
+
+    /** Timestamp to pass to {@link #stop}; 0 when disabled. */
+    public long begin() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void stop(Phase phase, long begin) {
+        if (enabled) phaseNanos[phase.ordinal()] += System.nanoTime() - begin;
+    }
+
+    public void count(Counter counter, long value) {
+        if (enabled) counters[counter.ordinal()] += value;
+    }
+
+    public long phaseNanos(Phase phase) { return phaseNanos[phase.ordinal()]; }
+    public long counter(Counter counter) { return counters[counter.ordinal()]; }
+
+    public long totalNanos() {
+        long total = 0;
+        for (long n : phaseNanos) total += n;
+        return total;
+    }
+
+    /** Phase name to milliseconds (fractional), in pipeline order. */
+    public Map<String, Double> phaseMillis() {
+        Map<String, Double> out = new LinkedHashMap<>();
+        for (Phase p : Phase.values()) out.put(p.label, phaseNanos[p.ordinal()] / 1e6);
+        return out;
+    }
+
+    /** One-line breakdown for the dashboard and logs. */
+    public String summary() {
+        if (!enabled) return "metrics disabled";
+        StringBuilder sb = new StringBuilder();
+        for (Phase p : Phase.values()) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(p.label).append(' ').append(String.format("%.1f", phaseNanos[p.ordinal()] / 1e6)).append(" ms");
+        }
+        sb.append("; ");
+        for (Counter c : Counter.values()) {
+            if (c.ordinal() > 0) sb.append(", ");
+            sb.append(counters[c.ordinal()]).append(' ').append(c.label);
+        }
+        return sb.toString();
+    }
+
+    /** Adds a finished run to the JMX totals. */
+    void publish(boolean success) {
+        if (enabled) Totals.INSTANCE.record(this, success);
+    }
+
+    // ------------------- JMX -------------------
+
+    /** Process-wide allocation totals and the last run's breakdown, as seen in JConsole/VisualVM. */
+    public interface AllocationStatsMXBean {
+        long getRuns();
+        long getFailures();
+        String getLastExamSlotId();
+        double getLastTotalMillis();
+        Map<String, Double> getLastPhaseMillis();
+        Map<String, Long> getLastCounters();
+        Map<String, Double> getTotalPhaseMillis();
+        Map<String, Long> getTotalCounters();
+        void reset();
+    }
+
+    static final class Totals implements AllocationStatsMXBean {
+        static final Totals INSTANCE = register(new Totals());
+
+        private long runs;
+        private long failures;
+        private AllocationMetrics last;
+        private final long[] phaseNanos = new long[Phase.values().length];
+        private final long[] counters = new long[Counter.values().length];
+
+        private static Totals register(Totals totals) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(totals, new ObjectName("seatwise:type=Allocation"));
+            } catch (Exception ex) {
+                // still usable in-process (e.g. a second class loader already registered the name)
+                ex.printStackTrace();
+            }
+            return totals;
+        }
+
+        synchronized void record(AllocationMetrics m, boolean success) {
+            runs++;
+            if (!success) failures++;
+            last = m;
+            for (int i = 0; i < phaseNanos.length; i++) phaseNanos[i] += m.phaseNanos[i];
+            for (int i = 0; i < counters.length; i++) counters[i] += m.counters[i];
+        }
+
+        @Override public synchronized long getRuns() { return runs; }
+        @Override public synchronized long getFailures() { return failures; }
+        @Override public synchronized String getLastExamSlotId() { return last == null ? null : last.examSlotId; }
+        @Override public synchronized double getLastTotalMillis() { return last == null ? 0 : last.totalNanos() / 1e6; }
+        @Override public synchronized Map<String, Double> getLastPhaseMillis() { return last == null ? Map.of() : last.phaseMillis(); }
+
+        @Override
+        public synchronized Map<String, Long> getLastCounters() {
+            return last == null ? Map.of() : counterMap(last.counters);
+        }
+
+        @Override
+        public synchronized Map<String, Double> getTotalPhaseMillis() {
+            Map<String, Double> out = new LinkedHashMap<>();
+            for (Phase p : Phase.values()) out.put(p.label, phaseNanos[p.ordinal()] / 1e6);
+            return out;
+        }
+
+        @Override public synchronized Map<String, Long> getTotalCounters() { return counterMap(counters); }
+
+        @Override
+        public synchronized void reset() {
+            runs = 0;
+            failures = 0;
+            last = null;
+            Arrays.fill(phaseNanos, 0);
+            Arrays.fill(counters, 0);
+        }
+
+        private static Map<String, Long> counterMap(long[] values) {
+            Map<String, Long> out = new LinkedHashMap<>();
+            for (Counter c : Counter.values()) out.put(c.label, values[c.ordinal()]);
+            return out;
+        }
+    }
+}
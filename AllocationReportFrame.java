@@ -0,0 +1,260 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.io.File;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Allocation report viewer. Rows are loaded a page at a time off the EDT as they scroll into view,
+ * only a bounded number of pages are kept, and CSV export streams straight from the database to disk.
+ * Seating charts of the filtered slot are written per room by SeatingChartExporter.
+ */
+public class AllocationReportFrame extends JFrame {
+    private final JTextField slotField = new JTextField(8);
+    private final JTextField roomField = new JTextField(8);
+    private final JButton applyButton = new JButton("Apply");
+    private final JButton exportButton = new JButton("Export CSV...");
+    private final JButton chartsButton = new JButton("Seating Charts...");
+    private final JLabel statusLabel = new JLabel("Loading...");
+    private final PagedAllocationModel model = new PagedAllocationModel();
+
+    public AllocationReportFrame() {
+        setTitle("Seat Allocations");
+        setSize(800, 500);
+        setLayout(new BorderLayout());
+
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filters.add(new JLabel("Exam slot:"));
+        filters.add(slotField);
+        filters.add(new JLabel("Room:"));
+        filters.add(roomField);
+        filters.add(applyButton);
+        filters.add(exportButton);
+        filters.add(chartsButton);
+        add(filters, BorderLayout.NORTH);
+
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(false); // sorting would pull every page; rows are already in report order
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+
+        applyButton.addActionListener(ignored -> model.setFilter(filter(slotField), filter(roomField)));
+        slotField.addActionListener(ignored -> applyButton.doClick());
+        roomField.addActionListener(ignored -> applyButton.doClick());
+        exportButton.addActionListener(ignored -> exportCsv());
+        chartsButton.addActionListener(ignored -> exportCharts());
+
+        model.setFilter(null, null);
+        setLocationRelativeTo(null);
+        setVisible(true);
+    }
+
+    private static String filter(JTextField field) {
+        String value = field.getText().trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private void exportCsv() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("allocations.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File target = chooser.getSelectedFile();
+        String slot = filter(slotField), room = filter(roomField);
+
+        exportButton.setEnabled(false);
+        statusLabel.setText("Exporting to " + target.getName() + "...");
+        new SwingWorker<Long, Void>() {
+            protected Long doInBackground() throws Exception {
+                try (Connection conn = DatabaseConnection.getConnection();
+                     Writer out = Files.newBufferedWriter(target.toPath(), StandardCharsets.UTF_8)) {
+                    return AllocationDAO.exportAllocations(conn, slot, room, out);
+                }
+            }
+            protected void done() {
+                exportButton.setEnabled(true);
+                try {
+                    statusLabel.setText("Exported " + get() + " rows to " + target.getName() + ".");
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    statusLabel.setText("Export failed: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void exportCharts() {
+        String slot = filter(slotField);
+        if (slot == null) {
+            JOptionPane.showMessageDialog(this, "Enter the exam slot to print seating charts for.");
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File target = chooser.getSelectedFile();
+
+        chartsButton.setEnabled(false);
+        statusLabel.setText("Writing seating charts for " + slot + "...");
+        new SwingWorker<SeatingChartExporter.ExportResult, Void>() {
+            protected SeatingChartExporter.ExportResult doInBackground() throws Exception {
+                return SeatingChartExporter.exportSlot(slot, target.toPath());
+            }
+            protected void done() {
+                chartsButton.setEnabled(true);
+                try {
+                    SeatingChartExporter.ExportResult res = get();
+                    statusLabel.setText("Wrote charts for " + res.rooms + " rooms (" + res.seats + " seats) to "
+                            + res.directory + " in " + res.millis + " ms.");
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    statusLabel.setText("Seating charts failed: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Table model over the filtered report. The row count comes from a COUNT query; rows are fetched
+     * in pages by keyset from the last row of the page before. The first-row cursor of each page seen
+     * so far is remembered, so an evicted page reloads with one query and a far jump walks ahead from
+     * the nearest known page, one keyset query per page in between (only their cursors are kept).
+     * All state is confined to the EDT; queries run in SwingWorkers.
+     */
+    private class PagedAllocationModel extends AbstractTableModel {
+        private static final int PAGE_SIZE = 500;
+        private static final int MAX_CACHED_PAGES = 20;
+        private final String[] columns = {"Student ID", "Name", "Branch", "Room", "Seat", "Exam Slot"};
+
+        private final Map<Integer, List<AllocationRecord>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<AllocationRecord>> eldest) {
+                return size() > MAX_CACHED_PAGES;
+            }
+        };
+        private final TreeMap<Integer, AllocationRecord> cursors = new TreeMap<>(); // page -> last row before it
+        private String examSlotId, roomId;
+        private int rowCount;
+        private int generation;
+        private int wantedPage = -1;
+        private boolean loading;
+
+        void setFilter(String examSlotId, String roomId) {
+            this.examSlotId = examSlotId;
+            this.roomId = roomId;
+            generation++;
+            pages.clear();
+            cursors.clear();
+            cursors.put(0, null);
+            rowCount = 0;
+            wantedPage = -1;
+            loading = false;
+            fireTableDataChanged();
+            statusLabel.setText("Counting...");
+
+            int gen = generation;
+            new SwingWorker<Integer, Void>() {
+                protected Integer doInBackground() throws SQLException {
+                    try (Connection conn = DatabaseConnection.getConnection()) {
+                        return AllocationDAO.countAllocations(conn, examSlotId, roomId);
+                    }
+                }
+                protected void done() {
+                    if (gen != generation) return;
+                    try {
+                        rowCount = get();
+                        statusLabel.setText(rowCount == 0 ? "No allocations found." : rowCount + " allocations");
+                        fireTableDataChanged();
+                    } catch (Exception ex) {
+                        ex.printStackTrace();
+                        statusLabel.setText("Could not load report: " + ex.getMessage());
+                    }
+                }
+            }.execute();
+        }
+
+        @Override public int getRowCount() { return rowCount; }
+        @Override public int getColumnCount() { return columns.length; }
+        @Override public String getColumnName(int column) { return columns[column]; }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            int page = row / PAGE_SIZE;
+            List<AllocationRecord> rows = pages.get(page);
+            if (rows == null) {
+                request(page);
+                return column == 0 ? "..." : "";
+            }
+            int offset = row % PAGE_SIZE;
+            if (offset >= rows.size()) return ""; // rows deleted since the count
+            AllocationRecord rec = rows.get(offset);
+            switch (column) {
+                case 0: return rec.getStudentId();
+                case 1: return rec.getStudentName();
+                case 2: return rec.getBranch();
+                case 3: return rec.getRoomId();
+                case 4: return rec.getSeatNo();
+                default: return rec.getExamSlotId();
+            }
+        }
+
+        // the most recently painted missing page wins; one query is in flight at a time
+        private void request(int page) {
+            wantedPage = page;
+            if (!loading) loadWanted();
+        }
+
+        private void loadWanted() {
+            if (wantedPage < 0 || pages.containsKey(wantedPage)) {
+                loading = false;
+                return;
+            }
+            // the wanted page itself when its cursor is known, otherwise the nearest page before it whose cursor is
+            Map.Entry<Integer, AllocationRecord> known = cursors.floorEntry(wantedPage);
+            int page = known.getKey();
+            boolean wanted = page == wantedPage;
+            AllocationRecord after = known.getValue();
+            String slot = examSlotId, room = roomId;
+            int gen = generation;
+            loading = true;
+
+            new SwingWorker<List<AllocationRecord>, Void>() {
+                protected List<AllocationRecord> doInBackground() throws SQLException {
+                    try (Connection conn = DatabaseConnection.getConnection()) {
+                        return AllocationDAO.fetchReportPage(conn, slot, room, after, PAGE_SIZE);
+                    }
+                }
+                protected void done() {
+                    if (gen != generation) return;
+                    List<AllocationRecord> rows;
+                    try {
+                        rows = get();
+                    } catch (Exception ex) {
+                        ex.printStackTrace();
+                        statusLabel.setText("Could not load rows: " + ex.getMessage());
+                        loading = false;
+                        wantedPage = -1;
+                        return;
+                    }
+                    if (rows.size() == PAGE_SIZE) {
+                        cursors.put(page + 1, rows.get(PAGE_SIZE - 1));
+                    } else if (!wanted) {
+                        pages.put(wantedPage, Collections.emptyList()); // the report ends before it: rows deleted since the count
+                    }
+                    if (wanted) {
+                        pages.put(page, rows);
+                        int first = page * PAGE_SIZE;
+                        int last = Math.min(rowCount, first + PAGE_SIZE) - 1;
+                        if (last >= first) fireTableRowsUpdated(first, last);
+                    }
+                    loadWanted();
+                }
+            }.execute();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Queue of allocation jobs, at most one waiting job per exam slot.
+ *
+ * A request for a slot that already has a job waiting joins that job instead of adding another;
+ * a request for a slot whose job is already running queues one follow-up job, since the data may
+ * have changed since that run read it. Slots are computed in parallel on
+ * -Dseatwise.scheduler.threads workers (default: all cores), never two jobs of the same slot at
+ * once, and every plan is written by one writer thread, one transaction at a time, so jobs never
+ * contend for SQLite's write lock. Listeners hear each state change on the scheduler's threads.
+ */
+public class AllocationScheduler {
+    static final int THREADS = Integer.getInteger("seatwise.scheduler.threads", Runtime.getRuntime().availableProcessors());
+
+    private static AllocationScheduler shared;
+
+    public enum State { QUEUED, COMPUTING, WRITING, DONE, CANCELLED }
+
+    public interface Listener {
+        void jobChanged(Job job);
+    }
+
+    /** One slot's allocation, shared by every request that was merged into it. */
+    public final class Job {
+        public final String examSlotId;
+        private final CompletableFuture<SeatAllocator.AllocationResult> result = new CompletableFuture<>();
+        private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+        private final long submitted = System.nanoTime();
+        private volatile long started, computed, finished;
+        private volatile State state = State.QUEUED;
+        private boolean cancelRequested; // guarded by the scheduler
+        private int requests = 1;         // guarded by the scheduler
+
+        private Job(String examSlotId) {
+            this.examSlotId = examSlotId;
+        }
+
+        public State state() { return state; }
+
+        /** Completes when the job is done or cancelled; a cancelled job completes with a failed result. */
+        public CompletableFuture<SeatAllocator.AllocationResult> result() { return result; }
+
+        /** Requests merged into this job, including the first. */
+        public int requests() {
+            synchronized (AllocationScheduler.this) {
+                return requests;
+            }
+        }
+
+        public long queuedMillis() {
+            long until = started != 0 ? started : finished != 0 ? finished : System.nanoTime();
+            return (until - submitted) / 1_000_000;
+        }
+
+        public long computeMillis() { return computed == 0 ? 0 : (computed - started) / 1_000_000; }
+        public long writeMillis() { return finished == 0 || computed == 0 ? 0 : (finished - computed) / 1_000_000; }
+
+        /** See {@link AllocationScheduler#cancel}. */
+        public boolean cancel() { return AllocationScheduler.this.cancel(this); }
+    }
+
+    public static class Stats {
+        public final int queued;
+        public final int running;
+        public final long submitted;
+        public final long coalesced;
+        public final long completed;
+        public final long cancelled;
+        public final long totalQueueMillis;
+        public final long maxQueueMillis;
+        public final long totalLatencyMillis; // submission to completion, completed jobs only
+        public final long maxLatencyMillis;
+
+        Stats(int queued, int running, long submitted, long coalesced, long completed, long cancelled,
+              long totalQueueMillis, long maxQueueMillis, long totalLatencyMillis, long maxLatencyMillis) {
+            this.queued = queued;
+            this.running = running;
+            this.submitted = submitted;
+            this.coalesced = coalesced;
+            this.completed = completed;
+            this.cancelled = cancelled;
+            this.totalQueueMillis = totalQueueMillis;
+            this.maxQueueMillis = maxQueueMillis;
+            this.totalLatencyMillis = totalLatencyMillis;
+            this.maxLatencyMillis = maxLatencyMillis;
+        }
+
+        @Override
+        public String toString() {
+            long avgQueue = completed == 0 ? 0 : totalQueueMillis / completed;
+            long avgLatency = completed == 0 ? 0 : totalLatencyMillis / completed;
+            return "queued=" + queued + " running=" + running + " submitted=" + submitted + " coalesced=" + coalesced
+                    + " completed=" + completed + " cancelled=" + cancelled + " queue wait=" + avgQueue + "ms avg (max "
+                    + maxQueueMillis + "ms) latency=" + avgLatency + "ms avg (max " + maxLatencyMillis + "ms)";
+        }
+    }
+
+    private final SeatAllocator allocator;
+    private final int threads;
+    private final ExecutorService workers;
+    private final ExecutorService writer;
+
+    // guarded by this
+    private final Map<String, Job> waiting = new LinkedHashMap<>(); // slot -> its queued job, in submission order
+    private final Map<String, Job> running = new HashMap<>();
+    private long submitted, coalesced, completed, cancelled;
+    private long totalQueueNanos, maxQueueNanos, totalLatencyNanos, maxLatencyNanos;
+
+    public AllocationScheduler(SeatAllocator allocator, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1");
+        this.allocator = allocator;
+        this.threads = threads;
+        this.workers = Executors.newFixedThreadPool(threads, daemon("allocation-job"));
+        this.writer = Executors.newSingleThreadExecutor(daemon("allocation-job-writer"));
+    }
+
+    /** The dashboard's scheduler: a default SeatAllocator on {@link #THREADS} workers. */
+    public static synchronized AllocationScheduler shared() {
+        if (shared == null) shared = new AllocationScheduler(new SeatAllocator(), THREADS);
+        return shared;
+    }
+
+    /** Queue an allocation of the slot, or join the job already waiting for it. The listener may be null. */
+    public Job submit(String examSlotId, Listener listener) {
+        Job job;
+        synchronized (this) {
+            submitted++;
+            job = waiting.get(examSlotId);
+            if (job != null) {
+                job.requests++;
+                coalesced++;
+            } else {
+                job = new Job(examSlotId);
+                waiting.put(examSlotId, job);
+            }
+            if (listener != null) job.listeners.addIfAbsent(listener);
+        }
+        if (listener != null) listener.jobChanged(job);
+        dispatch();
+        return job;
+    }
+
+    /** One job per distinct slot, in order. */
+    public List<Job> submitAll(Collection<String> examSlotIds, Listener listener) {
+        List<Job> jobs = new ArrayList<>();
+        for (String slot : new LinkedHashSet<>(examSlotIds)) jobs.add(submit(slot, listener));
+        return jobs;
+    }
+
+    /**
+     * Cancel a job for every request merged into it. A waiting job is dropped at once; a job being
+     * computed finishes computing but is not written. Returns false once the job is being written or is over.
+     */
+    public boolean cancel(Job job) {
+        synchronized (this) {
+            if (waiting.get(job.examSlotId) == job) {
+                waiting.remove(job.examSlotId);
+            } else if (job.state == State.COMPUTING && !job.cancelRequested) {
+                job.cancelRequested = true;
+                return true;
+            } else {
+                return false;
+            }
+        }
+        end(job, State.CANCELLED, SeatAllocator.failure("Allocation of " + job.examSlotId + " was cancelled."));
+        return true;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(waiting.size(), running.size(), submitted, coalesced, completed, cancelled,
+                totalQueueNanos / 1_000_000, maxQueueNanos / 1_000_000,
+                totalLatencyNanos / 1_000_000, maxLatencyNanos / 1_000_000);
+    }
+
+    // start waiting jobs, oldest first, while workers are free; a slot that is running waits its turn
+    private void dispatch() {
+        List<Job> started = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Job> it = waiting.values().iterator();
+            while (running.size() < threads && it.hasNext()) {
+                Job job = it.next();
+                if (running.containsKey(job.examSlotId)) continue;
+                it.remove();
+                running.put(job.examSlotId, job);
+                job.started = System.nanoTime();
+                job.state = State.COMPUTING;
+                started.add(job);
+            }
+        }
+        for (Job job : started) {
+            notifyListeners(job);
+            workers.execute(() -> compute(job));
+        }
+    }
+
+    private void compute(Job job) {
+        SeatAllocator.SlotPlan plan;
+        try {
+            plan = allocator.planSlot(job.examSlotId);
+        } catch (Throwable ex) {
+            // Errors too (OutOfMemoryError, a writer's rethrown failure): a job that never ends keeps its slot stuck
+            ex.printStackTrace();
+            job.computed = System.nanoTime();
+            end(job, State.DONE, ex instanceof SQLException ? SeatAllocator.databaseFailure((SQLException) ex)
+                    : SeatAllocator.failure("Error during allocation: " + ex));
+            return;
+        }
+        job.computed = System.nanoTime();
+        boolean cancelledMeanwhile;
+        synchronized (this) {
+            cancelledMeanwhile = job.cancelRequested;
+            if (!cancelledMeanwhile) job.state = State.WRITING;
+        }
+        if (cancelledMeanwhile) {
+            end(job, State.CANCELLED, SeatAllocator.failure("Allocation of " + job.examSlotId + " was cancelled."));
+            return;
+        }
+        notifyListeners(job);
+        writer.execute(() -> {
+            SeatAllocator.AllocationResult result;
+            try {
+                result = allocator.persistSlot(plan);
+            } catch (Throwable ex) {
+                ex.printStackTrace();
+                result = SeatAllocator.failure("Error during allocation: " + ex);
+            }
+            end(job, State.DONE, result);
+        });
+    }
+
+    private void end(Job job, State state, SeatAllocator.AllocationResult result) {
+        job.finished = System.nanoTime();
+        synchronized (this) {
+            running.remove(job.examSlotId, job);
+            if (state == State.CANCELLED) {
+                cancelled++;
+            } else {
+                completed++;
+                long queued = job.started - job.submitted;
+                long latency = job.finished - job.submitted;
+                totalQueueNanos += queued;
+                maxQueueNanos = Math.max(maxQueueNanos, queued);
+                totalLatencyNanos += latency;
+                maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+            }
+            job.state = state;
+        }
+        notifyListeners(job);
+        job.result.complete(result);
+        dispatch();
+    }
+
+    private static void notifyListeners(Job job) {
+        for (Listener l : job.listeners) {
+            try {
+                l.jobChanged(job);
+            } catch (RuntimeException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread th = new Thread(r, name);
+            th.setDaemon(true);
+            return th;
+        };
+    }
+}
@@ -0,0 +1,31 @@
+import java.util.List;
+
+/**
+ * How one slot's students are seated once they and the rooms have been loaded. A strategy
+ * fills the rooms in list order (a room is only used once the ones before it are full) and
+ * records the same-branch neighbour pairs it could not avoid in {@link SeatAllocator.Placement#violations}.
+ *
+ * Chosen per allocator with {@link SeatAllocator#setStrategy}; the default comes from
+ * -Dseatwise.strategy (greedy or annealing).
+ */
+public interface AllocationStrategy {
+
+    /** Short name for logs and the comparison harness. */
+    String name();
+
+    /**
+     * Seat the students into the rooms. The allocator supplies the grid neighbourhood and the
+     * greedy phases; phase timings go to metrics.
+     */
+    SeatAllocator.Placement allocate(SeatAllocator allocator, StudentTable students,
+                                     List<SeatAllocator.RoomInfo> rooms, AllocationMetrics metrics);
+
+    /** Strategy by name: "greedy", or "annealing" with its budget and threads from system properties. */
+    static AllocationStrategy named(String name) {
+        switch (name) {
+            case "greedy": return new GreedyStrategy();
+            case "annealing": return new AnnealingStrategy();
+            default: throw new IllegalArgumentException("Unknown allocation strategy: " + name);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes one slot's seats while the allocator is still working on them.
+ *
+ * A writer thread clears the slot's old rows as soon as it starts, then takes finished rooms
+ * from a small bounded queue and binds them into INSERT batches of {@link #BATCH_SIZE} rows.
+ * Everything runs in the caller's open transaction on the caller's connection: the caller
+ * must not use that connection until {@link #finish} or {@link #abort} has returned, and then
+ * commits or rolls back as usual. Heap use on the JDBC side is bounded by the queue, not the slot.
+ */
+public class AllocationWriter {
+    static final int BATCH_SIZE = Integer.getInteger("seatwise.writer.batchSize", 1_000);
+    private static final int QUEUE_ROOMS = Integer.getInteger("seatwise.writer.queueRooms", 8);
+    private static final List<AllocationRecord> END = new ArrayList<>();
+
+    private final Connection conn;
+    private final String examSlotId;
+    private final AllocationMetrics metrics;
+    private final BlockingQueue<List<AllocationRecord>> queue = new ArrayBlockingQueue<>(QUEUE_ROOMS);
+    private final AtomicBoolean stop = new AtomicBoolean();
+    private final Thread thread;
+    private volatile Throwable failure; // anything the writer thread threw; the caller must roll back
+    private int rowsCleared, rowsWritten; // read after join
+
+    private AllocationWriter(Connection conn, String examSlotId, AllocationMetrics metrics) {
+        this.conn = conn;
+        this.examSlotId = examSlotId;
+        this.metrics = metrics;
+        this.thread = new Thread(this::run, "allocation-writer-" + examSlotId);
+        thread.setDaemon(true);
+    }
+
+    /** Start clearing the slot on conn (autocommit off) and accept rooms. */
+    public static AllocationWriter start(Connection conn, String examSlotId, AllocationMetrics metrics) {
+        AllocationWriter writer = new AllocationWriter(conn, examSlotId, metrics);
+        writer.thread.start();
+        return writer;
+    }
+
+    /**
+     * Hand over one finished room's seats. Blocks while the writer is behind; fails once the writer has,
+     * or aborts the writer and fails if the caller is interrupted while waiting.
+     */
+    public void room(List<AllocationRecord> seats) throws SQLException {
+        if (seats.isEmpty()) return;
+        long t = metrics.begin();
+        put(seats);
+        metrics.stop(AllocationMetrics.Phase.AWAIT_WRITER, t);
+        rethrowFailure();
+    }
+
+    /** Wait until every room handed over is written. The caller then commits on its connection. */
+    public void finish() throws SQLException {
+        long t = metrics.begin();
+        put(END); // returns only once END is queued or the writer has stopped, so the join ends
+        join();
+        metrics.stop(AllocationMetrics.Phase.AWAIT_WRITER, t);
+        rethrowFailure();
+        metrics.count(AllocationMetrics.Counter.ROWS_CLEARED, rowsCleared);
+        metrics.count(AllocationMetrics.Counter.ROWS_WRITTEN, rowsWritten);
+    }
+
+    /** Stop writing and wait for the thread to let go of the connection. The caller then rolls back; finish fails from now on. */
+    public void abort() {
+        stop.set(true);
+        queue.clear();
+        queue.offer(END);
+        join();
+        if (failure == null) failure = new SQLException("Allocation writer for " + examSlotId + " was aborted");
+    }
+
+    private void run() {
+        try {
+            long t = metrics.begin();
+            rowsCleared = AllocationDAO.clearAllocationsForExam(conn, examSlotId);
+            metrics.stop(AllocationMetrics.Phase.CLEAR, t);
+
+            try (PreparedStatement ps = AllocationDAO.prepareInsert(conn)) {
+                int pending = 0;
+                while (true) {
+                    List<AllocationRecord> seats = take();
+                    if (seats == END || stop.get()) break;
+                    t = metrics.begin();
+                    for (AllocationRecord r : seats) {
+                        AllocationDAO.bindInsert(ps, r);
+                        ps.addBatch();
+                        if (++pending == BATCH_SIZE) {
+                            ps.executeBatch();
+                            pending = 0;
+                        }
+                    }
+                    rowsWritten += seats.size();
+                    metrics.stop(AllocationMetrics.Phase.INSERT, t);
+                }
+                if (pending > 0 && !stop.get()) {
+                    t = metrics.begin();
+                    ps.executeBatch();
+                    metrics.stop(AllocationMetrics.Phase.INSERT, t);
+                }
+            }
+        } catch (Throwable ex) {
+            failure = ex; // rethrown to the caller, so a partly written slot is never committed
+        } finally {
+            stop.set(true);
+        }
+    }
+
+    private void rethrowFailure() throws SQLException {
+        Throwable ex = failure;
+        if (ex == null) return;
+        if (ex instanceof SQLException) throw (SQLException) ex;
+        if (ex instanceof Error) throw (Error) ex;
+        throw new SQLException("Allocation writer for " + examSlotId + " failed", ex);
+    }
+
+    // blocks while the queue is full, but gives up once the writer has stopped; an interrupted caller
+    // aborts the writer instead, since a dropped room (or END) would leave finish() waiting forever
+    private void put(List<AllocationRecord> seats) throws SQLException {
+        try {
+            while (!stop.get() && !queue.offer(seats, 100, TimeUnit.MILLISECONDS)) {
+                // writer still busy
+            }
+        } catch (InterruptedException ex) {
+            abort();
+            Thread.currentThread().interrupt();
+            throw new SQLException("Allocation of " + examSlotId + " was interrupted", ex);
+        }
+    }
+
+    private List<AllocationRecord> take() {
+        try {
+            return queue.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return END;
+        }
+    }
+
+    private void join() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true; // the connection must not be handed back while the writer uses it
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+}
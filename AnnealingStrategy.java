@@ -0,0 +1,360 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Greedy allocation followed by a time-budgeted local search. Every worker thread runs its own
+ * simulated annealing from the greedy placement (different random streams, so the starts
+ * diverge), and the best placement any worker found is kept. The search stops at the budget or
+ * as soon as one worker reaches zero same-branch pairs.
+ *
+ * A move swaps the students of two seats: one seat taken from those with a same-branch
+ * neighbour, the other either anywhere (any room) or in the same room, where it may also be an
+ * empty grid seat. Every room keeps the number of students the greedy fill gave it, so backup
+ * rooms are never opened by the search. Move cost is computed from the neighbours of the two
+ * seats only (flat rooms: left and right seat; grid rooms: the allocator's 4 or 8 neighbourhood).
+ *
+ * Budget and threads default to -Dseatwise.optimizer.budgetMillis (5000) and
+ * -Dseatwise.optimizer.threads (all cores). Searches running at once in one process (slots of a
+ * parallel batch, what-if scenarios) share those threads: a search starts with its share,
+ * threads / (searches running), and always gets at least one worker, so N searches do not run
+ * N times the threads.
+ */
+public class AnnealingStrategy implements AllocationStrategy {
+    private static final double START_TEMPERATURE = 0.6;
+    private static final double END_TEMPERATURE = 0.05;
+    private static final int CHECK_INTERVAL = 1 << 12; // moves between clock reads and temperature updates
+    private static final int SHARED_THREADS = Integer.getInteger("seatwise.optimizer.threads", Runtime.getRuntime().availableProcessors());
+
+    // workers beyond each search's first, shared by every search in the process
+    private static final Semaphore EXTRA_WORKERS = new Semaphore(Math.max(0, SHARED_THREADS - 1));
+    private static final AtomicInteger runningSearches = new AtomicInteger();
+
+    private final long budgetMillis;
+    private final int threads;
+    private volatile IntConsumer progress;
+
+    public AnnealingStrategy() {
+        this(Long.getLong("seatwise.optimizer.budgetMillis", 5_000L), SHARED_THREADS);
+    }
+
+    public AnnealingStrategy(long budgetMillis, int threads) {
+        if (budgetMillis < 0) throw new IllegalArgumentException("Budget must not be negative, got " + budgetMillis);
+        if (threads < 1) throw new IllegalArgumentException("Need at least one thread, got " + threads);
+        this.budgetMillis = budgetMillis;
+        this.threads = threads;
+    }
+
+    /** Called with the new violation count whenever any worker improves on the best so far (from worker threads). */
+    public void setProgressListener(IntConsumer progress) {
+        this.progress = progress;
+    }
+
+    @Override
+    public String name() {
+        return "annealing";
+    }
+
+    @Override
+    public SeatAllocator.Placement allocate(SeatAllocator allocator, StudentTable students,
+                                            List<SeatAllocator.RoomInfo> rooms, AllocationMetrics metrics) {
+        // counted from the start, so searches of one batch that start together see each other
+        int running = runningSearches.incrementAndGet();
+        int extra = 0;
+        try {
+            SeatAllocator.Placement placement = new GreedyStrategy().allocate(allocator, students, rooms, metrics);
+            if (placement.violations == 0 || budgetMillis == 0 || placement.students.length < 2) return placement;
+            int share = Math.max(1, threads / Math.max(running, runningSearches.get()));
+            while (extra < share - 1 && EXTRA_WORKERS.tryAcquire()) extra++;
+            return anneal(allocator, students, rooms, metrics, placement, 1 + extra);
+        } finally {
+            EXTRA_WORKERS.release(extra);
+            runningSearches.decrementAndGet();
+        }
+    }
+
+    private SeatAllocator.Placement anneal(SeatAllocator allocator, StudentTable students, List<SeatAllocator.RoomInfo> rooms,
+                                           AllocationMetrics metrics, SeatAllocator.Placement placement, int workerCount) {
+        long t = metrics.begin();
+        Layout layout = new Layout(students, placement, rooms, allocator.gridNeighbourhood());
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        AtomicInteger best = new AtomicInteger(layout.cost);
+        AtomicBoolean solved = new AtomicBoolean();
+
+        List<Callable<Search>> workers = new ArrayList<>(workerCount);
+        long seed = System.nanoTime();
+        for (int i = 0; i < workerCount; i++) {
+            long workerSeed = seed + i * 0x9E3779B97F4A7C15L;
+            workers.add(() -> new Search(layout, workerSeed).run(deadline, best, solved));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread th = new Thread(r, "seat-annealing");
+            th.setDaemon(true);
+            return th;
+        });
+        Search winner = null;
+        long moves = 0;
+        try {
+            for (Future<Search> f : pool.invokeAll(workers)) {
+                Search s = f.get();
+                moves += s.moves;
+                if (winner == null || s.savedCost < winner.savedCost) winner = s;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            // a failed worker only loses its own search; the greedy placement is still valid
+            ex.printStackTrace();
+        } finally {
+            pool.shutdownNow();
+        }
+        if (winner != null && winner.savedCost < placement.violations) layout.apply(winner.saved, placement, winner.savedCost);
+        metrics.stop(AllocationMetrics.Phase.OPTIMIZE, t);
+        metrics.count(AllocationMetrics.Counter.OPTIMIZER_MOVES, moves);
+        return placement;
+    }
+
+    /**
+     * Seat positions of the placed rooms with their neighbour lists (CSR), shared read-only by
+     * the workers. Flat rooms contribute their filled seats, grid rooms every grid seat.
+     */
+    private static final class Layout {
+        final int positions;
+        final int[] roomOf;          // room index per position
+        final int[] roomPosStart;    // positions of room r: [roomPosStart[r], roomPosStart[r+1])
+        final int[] nbrStart;        // neighbours of position x: nbr[nbrStart[x] .. nbrStart[x+1])
+        final int[] nbr;
+        final int[] occupied;        // positions seated by the greedy placement; cross-room partners are drawn from these
+        final int[] branch;          // branch per position in the greedy placement, -1 if empty
+        final int[] student;         // student index per position in the greedy placement, -1 if empty
+        final int cost;
+
+        Layout(StudentTable students, SeatAllocator.Placement p, List<SeatAllocator.RoomInfo> rooms, int neighbourhood) {
+            int roomCount = p.roomIds.length;
+            roomPosStart = new int[roomCount + 1];
+            int[] rows = new int[roomCount], cols = new int[roomCount];
+            for (int r = 0; r < roomCount; r++) {
+                SeatAllocator.RoomInfo info = rooms.get(r);
+                if (p.gridRoom[r]) {
+                    rows[r] = info.rows;
+                    cols[r] = info.cols;
+                } else {
+                    rows[r] = 1;
+                    cols[r] = p.roomStart[r + 1] - p.roomStart[r];
+                }
+                roomPosStart[r + 1] = roomPosStart[r] + rows[r] * cols[r];
+            }
+            positions = roomPosStart[roomCount];
+            roomOf = new int[positions];
+            branch = new int[positions];
+            student = new int[positions];
+            Arrays.fill(branch, -1);
+            Arrays.fill(student, -1);
+            occupied = new int[p.students.length];
+            for (int r = 0; r < roomCount; r++) {
+                Arrays.fill(roomOf, roomPosStart[r], roomPosStart[r + 1], r);
+                for (int g = p.roomStart[r]; g < p.roomStart[r + 1]; g++) {
+                    int x = roomPosStart[r] + p.seatNo[g] - 1;
+                    occupied[g] = x;
+                    student[x] = p.students[g];
+                    branch[x] = students.branch(p.students[g]);
+                }
+            }
+
+            // neighbour lists: flat rooms left/right, grid rooms by the allocator's neighbourhood
+            boolean diagonal = neighbourhood == RoomGrid.EIGHT_NEIGHBOURS;
+            int[] scratch = new int[8];
+            nbrStart = new int[positions + 1];
+            for (int x = 0; x < positions; x++) {
+                nbrStart[x + 1] = nbrStart[x] + neighbours(x, p.gridRoom[roomOf[x]], rows, cols, diagonal, scratch);
+            }
+            nbr = new int[nbrStart[positions]];
+            for (int x = 0; x < positions; x++) {
+                int d = neighbours(x, p.gridRoom[roomOf[x]], rows, cols, diagonal, scratch);
+                System.arraycopy(scratch, 0, nbr, nbrStart[x], d);
+            }
+
+            int pairs = 0;
+            for (int x = 0; x < positions; x++) pairs += sameBranchNeighbours(branch, x);
+            cost = pairs / 2;
+        }
+
+        // neighbour positions of x into out; returns how many
+        private int neighbours(int x, boolean grid, int[] rows, int[] cols, boolean diagonal, int[] out) {
+            int r = roomOf[x];
+            int base = roomPosStart[r];
+            int rr = (x - base) / cols[r], cc = (x - base) % cols[r];
+            int d = 0;
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dr == 0 && dc == 0) continue;
+                    if (dr != 0 && (!grid || (dc != 0 && !diagonal))) continue;
+                    int nr = rr + dr, nc = cc + dc;
+                    if (nr < 0 || nr >= rows[r] || nc < 0 || nc >= cols[r]) continue;
+                    out[d++] = base + nr * cols[r] + nc;
+                }
+            }
+            return d;
+        }
+
+        int sameBranchNeighbours(int[] branchAt, int x) {
+            int b = branchAt[x];
+            if (b < 0) return 0;
+            int count = 0;
+            for (int k = nbrStart[x]; k < nbrStart[x + 1]; k++) {
+                if (branchAt[nbr[k]] == b) count++;
+            }
+            return count;
+        }
+
+        /** Writes a searched seating back: per room, seated positions in seat order. */
+        void apply(int[] studentAt, SeatAllocator.Placement p, int violations) {
+            for (int r = 0; r + 1 < roomPosStart.length; r++) {
+                int g = p.roomStart[r];
+                for (int x = roomPosStart[r]; x < roomPosStart[r + 1]; x++) {
+                    if (studentAt[x] < 0) continue;
+                    p.students[g] = studentAt[x];
+                    p.seatNo[g] = x - roomPosStart[r] + 1;
+                    g++;
+                }
+            }
+            p.violations = violations;
+        }
+    }
+
+    /** One worker's annealing run over its own copy of the seating. */
+    private final class Search {
+        final Layout layout;
+        final SplittableRandom rnd;
+        final int[] branch;
+        final int[] student;
+        final int[] confList;        // positions with a same-branch neighbour
+        final int[] confIndex;       // index in confList, -1 if absent
+        int confSize;
+        int cost;
+        int[] saved;
+        int savedCost;
+        long moves;
+
+        Search(Layout layout, long seed) {
+            this.layout = layout;
+            this.rnd = new SplittableRandom(seed);
+            branch = layout.branch.clone();
+            student = layout.student.clone();
+            confList = new int[layout.positions];
+            confIndex = new int[layout.positions];
+            Arrays.fill(confIndex, -1);
+            for (int x = 0; x < layout.positions; x++) recount(x);
+            cost = layout.cost;
+            saved = student.clone();
+            savedCost = cost;
+        }
+
+        Search run(long deadline, AtomicInteger best, AtomicBoolean solved) {
+            long start = System.nanoTime();
+            double span = Math.max(1, deadline - start);
+            double[] accept = new double[17];
+            int[] occupied = layout.occupied;
+            int n = occupied.length;
+            long lastSave = 0;
+            while (confSize > 0) {
+                if ((moves & (CHECK_INTERVAL - 1)) == 0) {
+                    long now = System.nanoTime();
+                    if (now >= deadline || solved.get()) break;
+                    double temperature = START_TEMPERATURE * Math.pow(END_TEMPERATURE / START_TEMPERATURE, (now - start) / span);
+                    for (int d = 1; d < accept.length; d++) accept[d] = Math.exp(-d / temperature);
+                }
+                moves++;
+
+                int a = confList[rnd.nextInt(confSize)];
+                int b;
+                if (rnd.nextBoolean()) {
+                    b = occupied[rnd.nextInt(n)];
+                } else {
+                    int room = layout.roomOf[a];
+                    int from = layout.roomPosStart[room];
+                    b = from + rnd.nextInt(layout.roomPosStart[room + 1] - from);
+                }
+                // an empty seat only takes a student from its own room, so room sizes never change
+                if (branch[a] == branch[b] || (branch[b] < 0 && layout.roomOf[b] != layout.roomOf[a])) continue;
+
+                int delta = delta(a, b);
+                if (delta > 0 && rnd.nextDouble() >= accept[Math.min(delta, accept.length - 1)]) continue;
+                swap(a, b);
+                cost += delta;
+
+                // saving copies every position, so improvements are saved at most once per n moves
+                if (cost < savedCost && (cost == 0 || moves - lastSave >= n)) {
+                    save(best);
+                    lastSave = moves;
+                    if (cost == 0) solved.set(true);
+                }
+            }
+            if (cost < savedCost) save(best);
+            return this;
+        }
+
+        private void save(AtomicInteger best) {
+            System.arraycopy(student, 0, saved, 0, student.length);
+            savedCost = cost;
+            int current;
+            while ((current = best.get()) > cost) {
+                if (best.compareAndSet(current, cost)) {
+                    IntConsumer listener = progress;
+                    if (listener != null) listener.accept(cost);
+                    break;
+                }
+            }
+        }
+
+        // change in same-branch pairs if the students of a (seated) and b (seated or empty) swapped
+        private int delta(int a, int b) {
+            int ba = branch[a], bb = branch[b];
+            int[] nbr = layout.nbr, nbrStart = layout.nbrStart;
+            int d = 0;
+            for (int k = nbrStart[a]; k < nbrStart[a + 1]; k++) {
+                int x = nbr[k];
+                if (x == b) continue;
+                int bx = branch[x];
+                if (bx == ba) d--;
+                else if (bb >= 0 && bx == bb) d++;
+            }
+            for (int k = nbrStart[b]; k < nbrStart[b + 1]; k++) {
+                int x = nbr[k];
+                if (x == a) continue;
+                int bx = branch[x];
+                if (bx == ba) d++;
+                else if (bb >= 0 && bx == bb) d--;
+            }
+            return d;
+        }
+
+        private void swap(int a, int b) {
+            int t = branch[a]; branch[a] = branch[b]; branch[b] = t;
+            t = student[a]; student[a] = student[b]; student[b] = t;
+            int[] nbr = layout.nbr, nbrStart = layout.nbrStart;
+            recount(a);
+            recount(b);
+            for (int k = nbrStart[a]; k < nbrStart[a + 1]; k++) recount(nbr[k]);
+            for (int k = nbrStart[b]; k < nbrStart[b + 1]; k++) recount(nbr[k]);
+        }
+
+        private void recount(int x) {
+            int c = layout.sameBranchNeighbours(branch, x);
+            if (c > 0 && confIndex[x] < 0) {
+                confIndex[x] = confSize;
+                confList[confSize++] = x;
+            } else if (c == 0 && confIndex[x] >= 0) {
+                int last = confList[--confSize];
+                confList[confIndex[x]] = last;
+                confIndex[last] = confIndex[x];
+                confIndex[x] = -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.Arrays;
+
+/**
+ * Orders students so that two of the same branch are as far apart as the branch sizes allow,
+ * in O(n + branches log branches) with no per-student allocation. The gap between two
+ * same-branch students is the number of other students between them (gap 1: never adjacent).
+ *
+ * The order is built as m frames, m being the size of the largest branch. The c branches of
+ * that size open every frame, one student each; every other branch is dealt, largest first,
+ * one student per frame across frames 0..m-2, column by column. A branch therefore moves on by
+ * one frame per student, and every frame but the last holds at least floor((n - c) / (m - 1))
+ * students. That is the largest gap + 1 any ordering can reach ((m - 1) * (gap + 1) + c <= n),
+ * so the order meets a required gap whenever {@link #feasible} says one exists, and needs no
+ * gap as input. When the largest branch is too big even for gap 1, the frames at the end come
+ * up short and hold the unavoidable adjacent pairs.
+ */
+public final class BranchInterleaver {
+
+    private BranchInterleaver() {
+    }
+
+    /** Whether some ordering keeps at least gap other students between every two of one branch. */
+    public static boolean feasible(int[] counts, int gap) {
+        return maxGap(counts) >= gap;
+    }
+
+    /** Largest gap achievable for the branch sizes (Integer.MAX_VALUE when no branch has two students). */
+    public static int maxGap(int[] counts) {
+        long n = 0;
+        int m = 0, c = 0;
+        for (int count : counts) {
+            n += count;
+            if (count > m) {
+                m = count;
+                c = 1;
+            } else if (count == m) {
+                c++;
+            }
+        }
+        if (m <= 1) return Integer.MAX_VALUE;
+        return (int) ((n - c) / (m - 1)) - 1;
+    }
+
+    /**
+     * Student indices 0..n-1 in interleaved order; branch[i] is the branch code of student i
+     * (0..branchCount-1). Students of one branch keep their input order.
+     */
+    public static int[] interleave(int[] branch, int n, int branchCount) {
+        int[] count = new int[branchCount];
+        for (int i = 0; i < n; i++) count[branch[i]]++;
+
+        // students grouped by branch, input order kept within a branch (counting sort)
+        int[] start = new int[branchCount];
+        for (int b = 1; b < branchCount; b++) start[b] = start[b - 1] + count[b - 1];
+        int[] byBranch = new int[n];
+        int[] fill = start.clone();
+        for (int i = 0; i < n; i++) byBranch[fill[branch[i]]++] = i;
+
+        // branch codes by size, largest first (ties: lower code first)
+        long[] keys = new long[branchCount];
+        for (int b = 0; b < branchCount; b++) keys[b] = ((long) (Integer.MAX_VALUE - count[b]) << 32) | b;
+        Arrays.sort(keys);
+        int[] rank = new int[branchCount];
+        for (int k = 0; k < branchCount; k++) rank[k] = (int) keys[k];
+
+        int[] result = new int[n];
+        if (n == 0) return result;
+        int m = count[rank[0]];
+        int c = 0;
+        while (c < branchCount && count[rank[c]] == m) c++;
+        int dealt = m - 1;               // frames that take the other branches
+        int rest = n - c * m;
+
+        int[] frameStart = new int[m + 1];
+        for (int f = 0; f < m; f++) {
+            int len = c;
+            if (f < dealt) len += rest / dealt + (f < rest % dealt ? 1 : 0);
+            frameStart[f + 1] = frameStart[f] + len;
+        }
+
+        // the largest branches open every frame
+        for (int k = 0; k < c; k++) {
+            int from = start[rank[k]];
+            for (int f = 0; f < m; f++) result[frameStart[f] + k] = byBranch[from + f];
+        }
+        // the rest, largest first, one frame further per student
+        int j = 0;
+        for (int k = c; k < branchCount; k++) {
+            int b = rank[k];
+            for (int s = start[b], end = start[b] + count[b]; s < end; s++, j++) {
+                result[frameStart[j % dealt] + c + j / dealt] = byBranch[s];
+            }
+        }
+        return result;
+    }
+}
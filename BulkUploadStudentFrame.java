@@ -1,20 +1,86 @@
 import javax.swing.*;
+import java.io.File;
+import java.util.List;
 
 public class BulkUploadStudentFrame extends JFrame {
     private JButton uploadButton;
+    private JProgressBar progressBar;
+    private JLabel statusLabel;
+    private final CsvImporter.Kind kind;
 
     public BulkUploadStudentFrame() {
-        setTitle("Upload Student Data");
-        setSize(350, 200);
+        this(CsvImporter.Kind.STUDENTS);
+    }
+
+    public BulkUploadStudentFrame(CsvImporter.Kind kind) {
+        this.kind = kind;
+        setTitle("Upload " + label(kind) + " Data");
+        setSize(400, 220);
         setLayout(null);
 
         uploadButton = new JButton("Select CSV & Upload");
-        uploadButton.setBounds(80, 60, 180, 30);
+        uploadButton.setBounds(100, 30, 180, 30);
         add(uploadButton);
 
-        uploadButton.addActionListener(e -> JOptionPane.showMessageDialog(this, "Students CSV uploaded"));
+        progressBar = new JProgressBar(0, 1000);
+        progressBar.setBounds(40, 80, 300, 20);
+        progressBar.setStringPainted(true);
+        add(progressBar);
+
+        statusLabel = new JLabel("No file selected.");
+        statusLabel.setBounds(40, 110, 320, 30);
+        add(statusLabel);
+
+        uploadButton.addActionListener(ignored -> chooseAndUpload());
 
         setLocationRelativeTo(null);
         setVisible(true);
     }
+
+    private void chooseAndUpload() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
+        uploadButton.setEnabled(false);
+        progressBar.setValue(0);
+
+        // import runs off the EDT; progress snapshots are published back to it
+        new SwingWorker<CsvImporter.ImportResult, long[]>() {
+            protected CsvImporter.ImportResult doInBackground() throws Exception {
+                return CsvImporter.importFile(kind, file.toPath(),
+                        (read, imported, rejected, bytes, total) -> publish(new long[]{read, imported, rejected, bytes, total}));
+            }
+            protected void process(List<long[]> chunks) {
+                long[] p = chunks.get(chunks.size() - 1);
+                progressBar.setValue(p[4] == 0 ? 1000 : (int) (p[3] * 1000 / p[4]));
+                statusLabel.setText("Read " + p[0] + ", imported " + p[1] + ", rejected " + p[2]);
+            }
+            protected void done() {
+                uploadButton.setEnabled(true);
+                try {
+                    CsvImporter.ImportResult res = get();
+                    progressBar.setValue(1000);
+                    statusLabel.setText("Imported " + res.rowsImported + " of " + res.rowsRead + " rows in " + res.millis + " ms");
+                    String msg = label(kind) + " CSV uploaded: " + res.rowsImported + " rows imported.";
+                    if (res.errorFile != null) {
+                        msg += "\n" + res.rowsRejected + " rows rejected, see " + res.errorFile;
+                    }
+                    JOptionPane.showMessageDialog(BulkUploadStudentFrame.this, msg);
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    statusLabel.setText("Upload failed.");
+                    JOptionPane.showMessageDialog(BulkUploadStudentFrame.this, "Upload failed: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private static String label(CsvImporter.Kind kind) {
+        switch (kind) {
+            case ROOMS: return "Room";
+            case EXAM_SLOTS: return "Exam Slot";
+            case ENROLLMENTS: return "Enrollment";
+            default: return "Student";
+        }
+    }
 }
@@ -0,0 +1,322 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small fixed-size pool of SQLite connections.
+ *
+ * Physical connections are opened lazily, get the SQLite pragmas applied once, and are handed out
+ * as proxies whose close() returns them to the pool (rolling back any open transaction first).
+ * Each physical connection also keeps an LRU cache of prepared statements for callers that go
+ * through {@link #prepare(Connection, String)}, so hot DAO queries are parsed once per connection.
+ */
+public class ConnectionPool {
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    private final String url;
+    private final String[] pragmas;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final Semaphore permits;
+    private final Deque<PhysicalConnection> idle = new ArrayDeque<>();
+
+    private volatile boolean closed;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public ConnectionPool(String url, int maxSize, long acquireTimeoutMillis, String... pragmas) {
+        if (maxSize < 1) throw new IllegalArgumentException("Pool size must be at least 1");
+        this.url = url;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.pragmas = pragmas;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /** Snapshot of pool usage. Wait times cover time spent blocked on a free connection. */
+    public static class Stats {
+        public final int active;
+        public final int idle;
+        public final int created;
+        public final int maxSize;
+        public final long acquisitions;
+        public final long totalWaitMillis;
+        public final long maxWaitMillis;
+
+        Stats(int active, int idle, int created, int maxSize, long acquisitions, long totalWaitMillis, long maxWaitMillis) {
+            this.active = active;
+            this.idle = idle;
+            this.created = created;
+            this.maxSize = maxSize;
+            this.acquisitions = acquisitions;
+            this.totalWaitMillis = totalWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "active=" + active + " idle=" + idle + " created=" + created + "/" + maxSize
+                    + " acquisitions=" + acquisitions + " wait=" + totalWaitMillis + "ms (max " + maxWaitMillis + "ms)";
+        }
+    }
+
+    public Connection getConnection() throws SQLException {
+        return getConnections(1)[0];
+    }
+
+    /**
+     * Several connections taken in one step: either all of them or, after the acquire timeout,
+     * none. A caller that needs two connections at once must use this instead of two getConnection
+     * calls, or callers each holding one and waiting for the other can exhaust the pool.
+     */
+    public Connection[] getConnections(int count) throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+        if (count < 1 || count > maxSize) {
+            throw new SQLException("Cannot take " + count + " connections from a pool of " + maxSize);
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(count, acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + acquireTimeoutMillis + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", ex);
+        }
+        long waited = System.nanoTime() - start;
+        acquisitions.addAndGet(count);
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        Connection[] out = new Connection[count];
+        int opened = 0;
+        try {
+            for (; opened < count; opened++) out[opened] = checkout();
+        } catch (SQLException ex) {
+            for (int i = 0; i < opened; i++) out[i].close();
+            permits.release(count - opened);
+            throw ex;
+        }
+        return out;
+    }
+
+    // one permit is already held for the returned connection
+    private Connection checkout() throws SQLException {
+        PhysicalConnection pc;
+        synchronized (idle) {
+            pc = idle.pollFirst();
+        }
+        if (pc == null) pc = open();
+        active.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new PooledHandler(pc));
+    }
+
+    public Stats stats() {
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        return new Stats(active.get(), idleCount, created.get(), maxSize, acquisitions.get(),
+                totalWaitNanos.get() / 1_000_000, maxWaitNanos.get() / 1_000_000);
+    }
+
+    /** Closes idle connections; connections still checked out are closed when returned. */
+    public void close() {
+        closed = true;
+        synchronized (idle) {
+            for (PhysicalConnection pc : idle) pc.closeQuietly();
+            idle.clear();
+        }
+    }
+
+    /**
+     * Prepared statement for sql, reused across borrowings of the same physical connection.
+     * Closing the returned statement clears it for the next caller instead of closing it.
+     * Falls back to a plain prepareStatement for non-pooled connections or nested use of the same SQL.
+     */
+    public static PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        if (!Proxy.isProxyClass(conn.getClass()) || !(Proxy.getInvocationHandler(conn) instanceof PooledHandler)) {
+            return conn.prepareStatement(sql);
+        }
+        PooledHandler handler = (PooledHandler) Proxy.getInvocationHandler(conn);
+        if (handler.released) throw new SQLException("Connection is closed");
+        return handler.pc.cachedStatement(sql, conn);
+    }
+
+    private PhysicalConnection open() throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        try (Statement st = conn.createStatement()) {
+            for (String pragma : pragmas) st.execute("PRAGMA " + pragma);
+        } catch (SQLException ex) {
+            conn.close();
+            throw ex;
+        }
+        created.incrementAndGet();
+        return new PhysicalConnection(conn);
+    }
+
+    private void release(PhysicalConnection pc) {
+        boolean reusable;
+        try {
+            if (!pc.conn.getAutoCommit()) {
+                pc.conn.rollback();
+                pc.conn.setAutoCommit(true);
+            }
+            reusable = !closed && !pc.conn.isClosed();
+        } catch (SQLException ex) {
+            reusable = false;
+        }
+        if (reusable) {
+            synchronized (idle) {
+                idle.addFirst(pc);
+            }
+        } else {
+            pc.closeQuietly();
+            created.decrementAndGet();
+        }
+        active.decrementAndGet();
+        permits.release();
+    }
+
+    private static class PhysicalConnection {
+        final Connection conn;
+        final Map<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= STATEMENT_CACHE_SIZE) return false;
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+
+        PhysicalConnection(Connection conn) { this.conn = conn; }
+
+        // owner is the borrower's pooled proxy, which the statement hands out as its connection
+        PreparedStatement cachedStatement(String sql, Connection owner) throws SQLException {
+            CachedStatement cs = statements.get(sql);
+            if (cs == null) {
+                cs = new CachedStatement(conn.prepareStatement(sql));
+                statements.put(sql, cs);
+            } else if (cs.inUse) {
+                return conn.prepareStatement(sql);
+            }
+            cs.inUse = true;
+            cs.owner = owner;
+            return cs.proxy;
+        }
+
+        void closeQuietly() {
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+                // nothing left to release
+            }
+        }
+    }
+
+    private static class CachedStatement implements InvocationHandler {
+        final PreparedStatement ps;
+        final PreparedStatement proxy;
+        Connection owner; // the pooled connection of the current borrowing, never the physical one
+        boolean inUse;
+        boolean evicted;
+
+        CachedStatement(PreparedStatement ps) {
+            this.ps = ps;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        void evict() {
+            evicted = true;
+            if (!inUse) closeQuietly();
+        }
+
+        private void closeQuietly() {
+            try {
+                ps.close();
+            } catch (SQLException ignored) {
+                // statement already unusable
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!inUse) return null;
+                    inUse = false;
+                    owner = null;
+                    if (evicted) {
+                        closeQuietly();
+                    } else {
+                        ps.clearParameters();
+                        ps.clearBatch();
+                    }
+                    return null;
+                case "isClosed":
+                    return !inUse || ps.isClosed();
+                case "getConnection":
+                    // the pooled proxy, so a caller cannot close or commit the physical connection behind the pool's back
+                    if (!inUse) throw new SQLException("Statement is closed");
+                    return owner;
+                default:
+                    if (!inUse) throw new SQLException("Statement is closed");
+                    try {
+                        return method.invoke(ps, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+            }
+        }
+    }
+
+    private class PooledHandler implements InvocationHandler {
+        final PhysicalConnection pc;
+        volatile boolean released;
+
+        PooledHandler(PhysicalConnection pc) { this.pc = pc; }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || pc.conn.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + pc.conn + "]";
+                default:
+                    if (released) throw new SQLException("Connection is closed");
+                    try {
+                        return method.invoke(pc.conn, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+            }
+        }
+    }
+}
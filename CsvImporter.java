@@ -0,0 +1,431 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streaming CSV import for the Student, Room, ExamSlot and Enrollment tables.
+ *
+ * One parser thread reads and validates the file a record at a time and hands chunks of
+ * validated rows to the calling thread through a small bounded queue; the calling thread binds
+ * them into PreparedStatement batches and commits every {@link #TRANSACTION_ROWS} rows. Heap use
+ * is bounded by the queue size, not the file size. Rejected rows go to "&lt;file&gt;.errors.csv"
+ * with the file line they start on and the reason.
+ */
+public class CsvImporter {
+    static final int BATCH_SIZE = 5_000;
+    static final int TRANSACTION_ROWS = 100_000;
+    private static final int QUEUE_CHUNKS = 4;
+    private static final List<String[]> END = new ArrayList<>();
+
+    public enum Kind {
+        STUDENTS("Student", 1, new String[]{"student_id", "name", "branch"}, new String[0]),
+        ROOMS("Room", 1, new String[]{"room_id", "capacity"}, new String[]{"is_backup", "seat_rows", "seat_cols"}),
+        EXAM_SLOTS("ExamSlot", 1, new String[]{"exam_slot_id", "exam_date"}, new String[]{"start_time", "end_time"}),
+        ENROLLMENTS("Enrollment", 2, new String[]{"exam_slot_id", "student_id"}, new String[0]);
+
+        final String table;
+        final int keyColumns; // the first required columns form the table's key
+        final String[] required;
+        final String[] optional;
+
+        Kind(String table, int keyColumns, String[] required, String[] optional) {
+            this.table = table;
+            this.keyColumns = keyColumns;
+            this.required = required;
+            this.optional = optional;
+        }
+    }
+
+    /** Called from the writing thread after each flushed batch. */
+    public interface ProgressListener {
+        void onProgress(long rowsRead, long rowsImported, long rowsRejected, long bytesRead, long totalBytes);
+    }
+
+    public static class ImportResult {
+        public final long rowsRead;
+        public final long rowsImported;
+        public final long rowsRejected;
+        public final Path errorFile;   // null when nothing was rejected
+        public final long millis;
+
+        public ImportResult(long rowsRead, long rowsImported, long rowsRejected, Path errorFile, long millis) {
+            this.rowsRead = rowsRead;
+            this.rowsImported = rowsImported;
+            this.rowsRejected = rowsRejected;
+            this.errorFile = errorFile;
+            this.millis = millis;
+        }
+    }
+
+    /**
+     * Import a CSV file (header row first) into the table for the given kind. An existing row with
+     * the same key gets the file's values for the columns the file has; columns the file leaves out
+     * (a room's seat_rows and seat_cols, say) keep their stored values. Chunks committed before a
+     * failure stay committed.
+     */
+    public static ImportResult importFile(Kind kind, Path csv, ProgressListener listener) throws IOException, SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return importFile(conn, kind, csv, listener);
+        }
+    }
+
+    public static ImportResult importFile(Connection conn, Kind kind, Path csv, ProgressListener listener)
+            throws IOException, SQLException {
+        long start = System.nanoTime();
+        long totalBytes = Files.size(csv);
+        Path errorPath = csv.resolveSibling(csv.getFileName() + ".errors.csv");
+        Files.deleteIfExists(errorPath);
+
+        CountingInputStream in = new CountingInputStream(new BufferedInputStream(Files.newInputStream(csv), 1 << 16));
+        CsvReader reader = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        try {
+            String[] header = reader.next();
+            if (header == null) throw new IOException("CSV file is empty: " + csv);
+            List<String> columns = targetColumns(conn, kind, header);
+            int[] sourceIndex = new int[columns.size()];
+            for (int i = 0; i < sourceIndex.length; i++) sourceIndex[i] = indexOf(header, columns.get(i));
+
+            Parser parser = new Parser(kind, reader, columns, sourceIndex, errorPath);
+            Thread parserThread = new Thread(parser, "csv-parser-" + kind.name().toLowerCase());
+            parserThread.setDaemon(true);
+            parserThread.start();
+
+            String sql = upsertSql(kind, columns);
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            long imported = 0, sinceCommit = 0;
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                while (true) {
+                    List<String[]> chunk = parser.take();
+                    if (chunk == END) break;
+                    for (String[] row : chunk) {
+                        for (int i = 0; i < row.length; i++) ps.setString(i + 1, row[i]);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    imported += chunk.size();
+                    sinceCommit += chunk.size();
+                    if (sinceCommit >= TRANSACTION_ROWS) {
+                        conn.commit();
+                        sinceCommit = 0;
+                    }
+                    if (listener != null) {
+                        listener.onProgress(parser.rowsRead, imported, parser.rowsRejected, in.count, totalBytes);
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException ex) {
+                parser.stop.set(true);
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            if (parser.failure != null) throw parser.failure;
+            if (listener != null) listener.onProgress(parser.rowsRead, imported, parser.rowsRejected, totalBytes, totalBytes);
+            return new ImportResult(parser.rowsRead, imported, parser.rowsRejected,
+                    parser.rowsRejected > 0 ? errorPath : null, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            reader.close();
+        }
+    }
+
+    // required columns plus the optional ones present in both the file and the table
+    private static List<String> targetColumns(Connection conn, Kind kind, String[] header) throws SQLException, IOException {
+        List<String> columns = new ArrayList<>();
+        for (String c : kind.required) {
+            if (indexOf(header, c) < 0) throw new IOException("CSV header is missing required column '" + c + "'");
+            columns.add(c);
+        }
+        Set<String> tableColumns = new HashSet<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT * FROM " + kind.table + " LIMIT 0")) {
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int i = 1; i <= meta.getColumnCount(); i++) tableColumns.add(meta.getColumnName(i).toLowerCase());
+        }
+        for (String c : kind.optional) {
+            if (indexOf(header, c) >= 0 && tableColumns.contains(c)) columns.add(c);
+        }
+        return columns;
+    }
+
+    // insert, or update only the given non-key columns of the row with the same key
+    static String upsertSql(Kind kind, List<String> columns) {
+        String placeholders = String.join(", ", Collections.nCopies(columns.size(), "?"));
+        List<String> keys = columns.subList(0, kind.keyColumns);
+        List<String> updates = new ArrayList<>();
+        for (String c : columns.subList(kind.keyColumns, columns.size())) updates.add(c + " = excluded." + c);
+        return "INSERT INTO " + kind.table + "(" + String.join(", ", columns) + ") VALUES (" + placeholders + ")"
+                + " ON CONFLICT(" + String.join(", ", keys) + ") DO "
+                + (updates.isEmpty() ? "NOTHING" : "UPDATE SET " + String.join(", ", updates));
+    }
+
+    private static int indexOf(String[] header, String column) {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].trim().equalsIgnoreCase(column)) return i;
+        }
+        return -1;
+    }
+
+    /** For each target column, whether the kind requires it; worked out once per file for validate. */
+    static boolean[] requiredColumns(Kind kind, List<String> columns) {
+        boolean[] required = new boolean[columns.size()];
+        for (int i = 0; i < required.length; i++) required[i] = Arrays.asList(kind.required).contains(columns.get(i));
+        return required;
+    }
+
+    /**
+     * Validates one row in place (normalising values where needed).
+     * Returns null when the row is fine, otherwise the reason it is rejected.
+     */
+    static String validate(List<String> columns, boolean[] required, String[] row) {
+        for (int i = 0; i < row.length; i++) {
+            String col = columns.get(i);
+            String v = row[i] == null ? "" : row[i].trim();
+            row[i] = v.isEmpty() ? null : v;
+            if (required[i] && v.isEmpty()) return "missing " + col;
+            if (v.isEmpty()) {
+                if (col.equals("is_backup")) row[i] = "0";
+                continue;
+            }
+            switch (col) {
+                case "capacity":
+                case "seat_rows":
+                case "seat_cols":
+                    try {
+                        int n = Integer.parseInt(v);
+                        if (n < 0 || (col.equals("capacity") && n == 0)) return "invalid " + col + " '" + v + "'";
+                    } catch (NumberFormatException ex) {
+                        return "invalid " + col + " '" + v + "'";
+                    }
+                    break;
+                case "is_backup":
+                    if (v.equals("1") || v.equalsIgnoreCase("true") || v.equalsIgnoreCase("yes")) row[i] = "1";
+                    else if (v.equals("0") || v.equalsIgnoreCase("false") || v.equalsIgnoreCase("no")) row[i] = "0";
+                    else return "invalid is_backup '" + v + "'";
+                    break;
+                case "exam_date":
+                    try {
+                        LocalDate.parse(v);
+                    } catch (DateTimeParseException ex) {
+                        return "invalid exam_date '" + v + "' (expected yyyy-MM-dd)";
+                    }
+                    break;
+                case "start_time":
+                case "end_time":
+                    try {
+                        LocalTime.parse(v);
+                    } catch (DateTimeParseException ex) {
+                        return "invalid " + col + " '" + v + "' (expected HH:mm)";
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return null;
+    }
+
+    // Reads and validates on its own thread, handing chunks of BATCH_SIZE rows to the writer
+    private static class Parser implements Runnable {
+        final CsvReader reader;
+        final List<String> columns;
+        final int[] sourceIndex;
+        final boolean[] required;
+        final Path errorPath;
+        final BlockingQueue<List<String[]>> queue = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        final AtomicBoolean stop = new AtomicBoolean();
+        volatile long rowsRead, rowsRejected;
+        volatile IOException failure;
+
+        Parser(Kind kind, CsvReader reader, List<String> columns, int[] sourceIndex, Path errorPath) {
+            this.reader = reader;
+            this.columns = columns;
+            this.sourceIndex = sourceIndex;
+            this.required = requiredColumns(kind, columns);
+            this.errorPath = errorPath;
+        }
+
+        public void run() {
+            BufferedWriter errors = null;
+            try {
+                List<String[]> chunk = new ArrayList<>(BATCH_SIZE);
+                String[] record;
+                while (!stop.get() && (record = reader.next()) != null) {
+                    long line = reader.recordLine();
+                    if (record.length == 1 && record[0].isEmpty()) continue; // blank line
+                    rowsRead++;
+                    String[] row = new String[sourceIndex.length];
+                    for (int i = 0; i < row.length; i++) {
+                        int src = sourceIndex[i];
+                        row[i] = src >= 0 && src < record.length ? record[src] : null;
+                    }
+                    String reason = validate(columns, required, row);
+                    if (reason != null) {
+                        rowsRejected++;
+                        if (errors == null) {
+                            errors = Files.newBufferedWriter(errorPath, StandardCharsets.UTF_8);
+                            errors.write("line,reason,record\n");
+                        }
+                        errors.write(line + "," + CsvReader.quote(reason) + "," + CsvReader.quote(String.join(",", record)) + "\n");
+                        continue;
+                    }
+                    chunk.add(row);
+                    if (chunk.size() == BATCH_SIZE) {
+                        put(chunk);
+                        chunk = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!chunk.isEmpty()) put(chunk);
+            } catch (IOException ex) {
+                failure = ex;
+            } finally {
+                if (errors != null) {
+                    try {
+                        errors.close();
+                    } catch (IOException ex) {
+                        if (failure == null) failure = ex;
+                    }
+                }
+                put(END);
+            }
+        }
+
+        // blocks while the writer is behind, but gives up once the writer has failed
+        private void put(List<String[]> chunk) {
+            try {
+                while (!stop.get() && !queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    // writer still busy
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        List<String[]> take() {
+            try {
+                return queue.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("CSV import interrupted", ex);
+            }
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) { super(in); }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+
+    /** Minimal RFC 4180 reader: quoted fields, doubled quotes, separators and newlines inside quotes. */
+    static class CsvReader implements Closeable {
+        private final Reader in;
+        private final char[] buf = new char[1 << 16];
+        private int pos, len;
+        private long line = 1;       // physical line of the next char; \n, \r\n and a lone \r each end one
+        private long recordLine;
+        private boolean started;     // false until the first char, which is dropped if it is a byte order mark
+        private final StringBuilder field = new StringBuilder();
+        private final List<String> fields = new ArrayList<>();
+
+        CsvReader(Reader in) { this.in = in; }
+
+        /** File line (1-based) the record last returned by next() starts on; quoted newlines count. */
+        long recordLine() { return recordLine; }
+
+        /** Next record, or null at end of input. */
+        String[] next() throws IOException {
+            recordLine = line;
+            int c = read();
+            if (c < 0) return null;
+            fields.clear();
+            field.setLength(0);
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) break;
+                    if (c == '"') {
+                        int n = read();
+                        if (n == '"') field.append('"');
+                        else { quoted = false; c = n; continue; }
+                    } else {
+                        if (c == '\r') {
+                            int n = read();
+                            if (n == '\n') {
+                                field.append('\r');
+                                c = n;
+                            } else {
+                                line++;
+                                if (n >= 0) pos--;
+                            }
+                        }
+                        field.append((char) c);
+                    }
+                } else {
+                    if (c < 0 || c == '\n') break;
+                    if (c == '\r') {
+                        int n = read();
+                        if (n != '\n') {
+                            line++;
+                            if (n >= 0) pos--;
+                        }
+                        break;
+                    }
+                    if (c == ',') { fields.add(field.toString()); field.setLength(0); }
+                    else if (c == '"' && field.length() == 0) quoted = true;
+                    else field.append((char) c);
+                }
+                c = read();
+            }
+            fields.add(field.toString());
+            return fields.toArray(new String[0]);
+        }
+
+        private int read() throws IOException {
+            if (pos == len) {
+                len = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (len <= 0) { len = 0; return -1; }
+            }
+            char c = buf[pos++];
+            if (!started) {
+                started = true;
+                if (c == '\uFEFF') return read(); // Excel's "CSV UTF-8" starts with one; it is not part of the first column name
+            }
+            if (c == '\n') line++;
+            return c;
+        }
+
+        static String quote(String s) {
+            if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+            return '"' + s.replace("\"", "\"\"") + '"';
+        }
+
+        public void close() throws IOException { in.close(); }
+    }
+}
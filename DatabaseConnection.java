@@ -1,13 +1,98 @@
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 public class DatabaseConnection {
-    private static final String DB_FILE = "data/smartexam.db";
+    private static final String DB_FILE = System.getProperty("seatwise.db.file", "data/smartexam.db");
     private static final String URL = "jdbc:sqlite:" + DB_FILE;
 
+    // Applied once per physical connection: WAL lets readers run while the allocator writes,
+    // NORMAL sync is safe under WAL, and the page cache / mmap keep hot lookups off the disk.
+    private static final String[] PRAGMAS = {
+            "journal_mode = WAL",
+            "synchronous = NORMAL",
+            "cache_size = -16000",
+            "mmap_size = 268435456",
+            "busy_timeout = 5000",
+            "foreign_keys = ON"
+    };
+
+    // every caller holds one connection at a time except a pipelined allocation, which takes its
+    // read and write connection together (getConnections); smaller pools could never serve it
+    static final int MIN_POOL_SIZE = 2;
+    static final int POOL_SIZE = poolSize();
+
+    private static final ConnectionPool POOL = new ConnectionPool(URL, POOL_SIZE,
+            Long.getLong("seatwise.db.acquireTimeoutMillis", 30_000L), PRAGMAS);
+
+    private static volatile boolean schemaReady;
+
+    /** Pooled connection; the first one also brings the schema up to date (see DatabaseSchema). */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL);
+        Connection conn = POOL.getConnection();
+        if (!schemaReady) bootstrapSchema(conn);
+        return conn;
     }
-}
 
+    /** count connections taken together, all or none; see ConnectionPool#getConnections. */
+    public static Connection[] getConnections(int count) throws SQLException {
+        Connection[] conns = POOL.getConnections(count);
+        if (!schemaReady) {
+            try {
+                bootstrapSchema(conns[0]);
+            } catch (SQLException ex) {
+                for (int i = 1; i < count; i++) conns[i].close();
+                throw ex;
+            }
+        }
+        return conns;
+    }
+
+    private static int poolSize() {
+        int size = Integer.getInteger("seatwise.db.poolSize", Math.max(4, Runtime.getRuntime().availableProcessors() + 1));
+        if (size < MIN_POOL_SIZE) {
+            throw new IllegalStateException("-Dseatwise.db.poolSize must be at least " + MIN_POOL_SIZE + ", was " + size);
+        }
+        return size;
+    }
+
+    private static synchronized void bootstrapSchema(Connection conn) throws SQLException {
+        if (schemaReady) return;
+        try {
+            DatabaseSchema.bootstrap(conn);
+        } catch (SQLException ex) {
+            conn.close();
+            throw ex;
+        }
+        schemaReady = true;
+    }
+
+    /** Prepared statement cached on the underlying pooled connection; close it as usual. */
+    public static PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        return ConnectionPool.prepare(conn, sql);
+    }
+
+    /**
+     * Turn the transaction the driver opened on conn (autocommit off, nothing run in it yet) into one
+     * that holds SQLite's write lock from the start, waiting out busy_timeout for it. A transaction that
+     * reads and then writes can then neither fail with SQLITE_BUSY_SNAPSHOT nor write over a commit
+     * made since its read. Commit and roll back as usual.
+     */
+    public static void beginImmediate(Connection conn) throws SQLException {
+        if (conn.getAutoCommit()) throw new SQLException("beginImmediate needs autocommit off");
+        try (Statement st = conn.createStatement()) {
+            st.execute("ROLLBACK"); // the driver's deferred BEGIN, still empty
+            st.execute("BEGIN IMMEDIATE");
+        }
+    }
+
+    public static ConnectionPool.Stats poolStats() {
+        return POOL.stats();
+    }
+
+    public static void shutdown() {
+        AdminJournal.flush(5_000); // the journal writes on a pooled connection
+        POOL.close();
+    }
+}
@@ -0,0 +1,239 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versioned schema for the SeatWise database, applied once when the first connection is handed out.
+ *
+ * PRAGMA user_version records the applied version and each migration runs once inside a
+ * BEGIN IMMEDIATE transaction, so two processes starting together cannot both apply it. After the
+ * schema is current, every AllocationDAO statement is run through EXPLAIN QUERY PLAN and startup
+ * fails if one of them would scan the table (or, for statements that read everything anyway, sort
+ * the rows in a temp b-tree).
+ */
+public class DatabaseSchema {
+    static final int VERSION = 6;
+
+    /** One statement for the query-plan check; fullRead marks statements meant to read every row. */
+    static final class PlannedQuery {
+        final String name;
+        final String sql;
+        final boolean fullRead;
+
+        PlannedQuery(String name, String sql, boolean fullRead) {
+            this.name = name;
+            this.sql = sql;
+            this.fullRead = fullRead;
+        }
+    }
+
+    public static void bootstrap(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            if (userVersion(st) < VERSION) migrate(conn, st);
+        }
+        List<String> problems = checkQueryPlans(conn);
+        if (!problems.isEmpty()) {
+            throw new SQLException("Query plan check failed:\n  " + String.join("\n  ", problems));
+        }
+    }
+
+    private static void migrate(Connection conn, Statement st) throws SQLException {
+        // table rebuilds copy rows between tables; foreign keys are checked by hand instead
+        st.execute("PRAGMA foreign_keys = OFF");
+        try {
+            st.execute("BEGIN IMMEDIATE");
+            try {
+                int version = userVersion(st); // re-read under the write lock
+                if (version > VERSION) {
+                    throw new SQLException("Database schema version " + version + " is newer than this build (" + VERSION + ")");
+                }
+                if (version < 1) migrateTo1(conn, st);
+                if (version < 2) migrateTo2(st);
+                if (version < 3) migrateTo3(conn, st);
+                if (version < 4) migrateTo4(st);
+                if (version < 5) migrateTo5(st);
+                if (version < 6) migrateTo6(st);
+                st.execute("PRAGMA user_version = " + VERSION);
+                st.execute("COMMIT");
+            } catch (SQLException ex) {
+                st.execute("ROLLBACK");
+                throw ex;
+            }
+        } finally {
+            st.execute("PRAGMA foreign_keys = ON");
+        }
+    }
+
+    // Tables with keys and constraints; an Allocation table created by hand is rebuilt into the new shape
+    private static void migrateTo1(Connection conn, Statement st) throws SQLException {
+        st.execute("CREATE TABLE IF NOT EXISTS Student(" +
+                "student_id TEXT PRIMARY KEY, name TEXT NOT NULL, branch TEXT NOT NULL)");
+        st.execute("CREATE TABLE IF NOT EXISTS Room(" +
+                "room_id TEXT PRIMARY KEY, capacity INTEGER NOT NULL CHECK (capacity >= 0), " +
+                "is_backup INTEGER NOT NULL DEFAULT 0, seat_rows INTEGER, seat_cols INTEGER)");
+        st.execute("CREATE TABLE IF NOT EXISTS ExamSlot(" +
+                "exam_slot_id TEXT PRIMARY KEY, exam_date TEXT NOT NULL, start_time TEXT, end_time TEXT)");
+        st.execute("CREATE TABLE IF NOT EXISTS AdminWarning(id INTEGER PRIMARY KEY, warning_text TEXT NOT NULL)");
+
+        // hand-made databases: make sure the lookups by id have a unique index, and rooms can carry geometry
+        if (!hasUniqueIndexOn(conn, "Student", "student_id")) {
+            st.execute("CREATE UNIQUE INDEX ux_student_id ON Student(student_id)");
+        }
+        if (!hasUniqueIndexOn(conn, "Room", "room_id")) {
+            st.execute("CREATE UNIQUE INDEX ux_room_id ON Room(room_id)");
+        }
+        if (!hasColumn(conn, "Room", "seat_rows")) st.execute("ALTER TABLE Room ADD COLUMN seat_rows INTEGER");
+        if (!hasColumn(conn, "Room", "seat_cols")) st.execute("ALTER TABLE Room ADD COLUMN seat_cols INTEGER");
+
+        boolean legacy = tableExists(conn, "Allocation");
+        if (legacy) st.execute("ALTER TABLE Allocation RENAME TO Allocation_legacy");
+        st.execute("CREATE TABLE Allocation(" +
+                "student_id TEXT NOT NULL REFERENCES Student(student_id), " +
+                "room_id TEXT NOT NULL REFERENCES Room(room_id), " +
+                "seat_no INTEGER NOT NULL CHECK (seat_no > 0), " +
+                "exam_slot_id TEXT NOT NULL)");
+        // one student per seat, one seat per student and slot; also the access paths of every DAO query
+        st.execute("CREATE UNIQUE INDEX ux_allocation_seat ON Allocation(exam_slot_id, room_id, seat_no)");
+        st.execute("CREATE UNIQUE INDEX ux_allocation_student ON Allocation(student_id, exam_slot_id)");
+
+        if (legacy) {
+            int before = count(st, "SELECT COUNT(*) FROM Allocation_legacy");
+            try {
+                st.executeUpdate("INSERT INTO Allocation(student_id, room_id, seat_no, exam_slot_id) " +
+                        "SELECT student_id, room_id, seat_no, exam_slot_id FROM Allocation_legacy " +
+                        "WHERE student_id IN (SELECT student_id FROM Student) AND room_id IN (SELECT room_id FROM Room)");
+            } catch (SQLException ex) {
+                throw new SQLException("Existing allocations break the new seat constraints (a seat given twice or a "
+                        + "student seated twice in one slot); re-run allocation for the affected slots first. "
+                        + ex.getMessage(), ex);
+            }
+            int dropped = before - count(st, "SELECT COUNT(*) FROM Allocation");
+            st.execute("DROP TABLE Allocation_legacy");
+            if (dropped > 0) {
+                // written in the upgrade's own transaction; the journal columns come with version 3
+                try (PreparedStatement ps = conn.prepareStatement("INSERT INTO AdminWarning(warning_text) VALUES (?)")) {
+                    ps.setString(1, "Schema upgrade dropped " + dropped
+                            + " allocation rows that referred to missing students or rooms.");
+                    ps.executeUpdate();
+                }
+            }
+        }
+    }
+
+    // Which students sit which slot. Keyed by slot first so a slot's students are one index range;
+    // student ids are not foreign keys so an enrollment file can be loaded before the student list
+    private static void migrateTo2(Statement st) throws SQLException {
+        st.execute("CREATE TABLE IF NOT EXISTS Enrollment(" +
+                "exam_slot_id TEXT NOT NULL, student_id TEXT NOT NULL, " +
+                "PRIMARY KEY (exam_slot_id, student_id)) WITHOUT ROWID");
+        st.execute("CREATE INDEX IF NOT EXISTS ix_enrollment_student ON Enrollment(student_id)");
+    }
+
+    // AdminWarning becomes the admin journal (see AdminJournal): when, which slot and how severe.
+    // Rows from before the upgrade keep a null time and slot.
+    private static void migrateTo3(Connection conn, Statement st) throws SQLException {
+        if (!hasColumn(conn, "AdminWarning", "created_at")) st.execute("ALTER TABLE AdminWarning ADD COLUMN created_at TEXT");
+        if (!hasColumn(conn, "AdminWarning", "exam_slot_id")) st.execute("ALTER TABLE AdminWarning ADD COLUMN exam_slot_id TEXT");
+        if (!hasColumn(conn, "AdminWarning", "severity")) {
+            st.execute("ALTER TABLE AdminWarning ADD COLUMN severity TEXT NOT NULL DEFAULT 'WARNING'");
+        }
+        st.execute("CREATE INDEX IF NOT EXISTS ix_adminwarning_slot ON AdminWarning(exam_slot_id, id)");
+    }
+
+    // A room's seats across every slot, in report order, for the report filtered by room alone
+    private static void migrateTo4(Statement st) throws SQLException {
+        st.execute("CREATE UNIQUE INDEX IF NOT EXISTS ux_allocation_room ON Allocation(room_id, exam_slot_id, seat_no)");
+    }
+
+    // Rooms closed for one exam slot (see IncrementalReallocator.ChangeSet.closeRoom); allocations of
+    // that slot leave them out until they are reopened
+    private static void migrateTo5(Statement st) throws SQLException {
+        st.execute("CREATE TABLE IF NOT EXISTS RoomClosure(" +
+                "exam_slot_id TEXT NOT NULL, room_id TEXT NOT NULL REFERENCES Room(room_id), " +
+                "PRIMARY KEY (exam_slot_id, room_id)) WITHOUT ROWID");
+    }
+
+    // Per-slot counter bumped in every transaction that rewrites a slot's seats, so a seat cache in
+    // another process (the lookup service) can tell that its entries for the slot are stale
+    private static void migrateTo6(Statement st) throws SQLException {
+        st.execute("CREATE TABLE IF NOT EXISTS SlotVersion(" +
+                "exam_slot_id TEXT PRIMARY KEY, version INTEGER NOT NULL) WITHOUT ROWID");
+    }
+
+    /**
+     * EXPLAIN QUERY PLAN for every AllocationDAO statement. Returns one line per statement whose plan
+     * sorts in a temp b-tree or, unless the statement is a full read, scans a table or index;
+     * empty when every plan is acceptable.
+     */
+    public static List<String> checkQueryPlans(Connection conn) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        try (Statement st = conn.createStatement()) {
+            for (PlannedQuery q : AllocationDAO.plannedQueries()) {
+                List<String> plan = new ArrayList<>();
+                try (ResultSet rs = st.executeQuery("EXPLAIN QUERY PLAN " + q.sql)) {
+                    while (rs.next()) plan.add(rs.getString("detail"));
+                }
+                for (String step : plan) {
+                    boolean scan = step.startsWith("SCAN ") && !step.contains("CONSTANT ROW");
+                    boolean sort = step.startsWith("USE TEMP B-TREE");
+                    if (sort || (scan && !q.fullRead)) {
+                        problems.add(q.name + ": " + String.join(" | ", plan));
+                        break;
+                    }
+                }
+            }
+        }
+        return problems;
+    }
+
+    private static int userVersion(Statement st) throws SQLException {
+        try (ResultSet rs = st.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static int count(Statement st, String sql) throws SQLException {
+        try (ResultSet rs = st.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static boolean tableExists(Connection conn, String table) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static boolean hasColumn(Connection conn, String table, String column) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (rs.getString("name").equalsIgnoreCase(column)) return true;
+            }
+        }
+        return false;
+    }
+
+    // a unique index (or primary key) whose only column is the given one
+    private static boolean hasUniqueIndexOn(Connection conn, String table, String column) throws SQLException {
+        List<String> unique = new ArrayList<>();
+        try (Statement st = conn.createStatement()) {
+            try (ResultSet rs = st.executeQuery("PRAGMA index_list(" + table + ")")) {
+                while (rs.next()) {
+                    if (rs.getInt("unique") == 1) unique.add(rs.getString("name"));
+                }
+            }
+            for (String index : unique) {
+                List<String> columns = new ArrayList<>();
+                try (ResultSet rs = st.executeQuery("PRAGMA index_info(\"" + index + "\")")) {
+                    while (rs.next()) columns.add(rs.getString("name"));
+                }
+                if (columns.size() == 1 && columns.get(0).equalsIgnoreCase(column)) return true;
+            }
+        }
+        return false;
+    }
+}
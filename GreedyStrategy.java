@@ -0,0 +1,36 @@
+import java.util.List;
+
+/**
+ * The original allocator: reorganize students so branches alternate, fill the rooms in that
+ * order (grid rooms seat their share on the grid), then swap seats across flat rooms to break
+ * the adjacent pairs that are left. Linear in the number of students and deterministic.
+ */
+public class GreedyStrategy implements AllocationStrategy {
+
+    @Override
+    public String name() {
+        return "greedy";
+    }
+
+    @Override
+    public SeatAllocator.Placement allocate(SeatAllocator allocator, StudentTable students,
+                                            List<SeatAllocator.RoomInfo> rooms, AllocationMetrics metrics) {
+        // ordered list of student indices using the "reorganize" greedy algorithm by branch
+        long t = metrics.begin();
+        int[] order = allocator.reorganizeByBranch(students);
+        metrics.stop(AllocationMetrics.Phase.REORGANIZE, t);
+
+        // allocate the ordered students into rooms sequentially while attempting to avoid adjacency inside rooms.
+        // Rooms with row/column geometry seat their share on the grid; the rest use the flat seat order.
+        t = metrics.begin();
+        SeatAllocator.Placement placement = allocator.placeStudents(students, order, rooms);
+        metrics.stop(AllocationMetrics.Phase.PLACE, t);
+
+        // compute adjacency violations inside each room and attempt small swaps to reduce (best-effort).
+        // Swaps stay among flat rooms so they cannot break a grid room's neighbourhood.
+        t = metrics.begin();
+        placement.violations = allocator.reduceAdjacentSameBranch(students, placement, metrics) + placement.gridViolations;
+        metrics.stop(AllocationMetrics.Phase.REPAIR, t);
+        return placement;
+    }
+}
@@ -0,0 +1,259 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Applies a small change set (students added or withdrawn, rooms closed or reopened) to a slot's
+ * persisted allocation without reshuffling it. Only students who must move are touched: withdrawn
+ * students are deleted, students of closed rooms and new students take free seats chosen so they
+ * have no same-branch neighbour where possible, and nobody else changes seat. Closures are stored in
+ * RoomClosure, so later full allocations of the slot leave the room out too. Writes are row-level
+ * DELETE / UPDATE / INSERT in one transaction.
+ */
+public class IncrementalReallocator {
+
+    /** Late changes to one exam slot. */
+    public static class ChangeSet {
+        public final Set<String> addedStudents = new LinkedHashSet<>();
+        public final Set<String> withdrawnStudents = new LinkedHashSet<>();
+        public final Set<String> closedRooms = new LinkedHashSet<>();
+        public final Set<String> reopenedRooms = new LinkedHashSet<>();
+
+        public ChangeSet addStudent(String studentId) { addedStudents.add(studentId); return this; }
+        public ChangeSet withdrawStudent(String studentId) { withdrawnStudents.add(studentId); return this; }
+        public ChangeSet closeRoom(String roomId) { closedRooms.add(roomId); reopenedRooms.remove(roomId); return this; }
+        /** Undo an earlier closure of the room for this slot; nobody is moved into it now. */
+        public ChangeSet reopenRoom(String roomId) { reopenedRooms.add(roomId); closedRooms.remove(roomId); return this; }
+    }
+
+    // most neighbours a seat can have (grid rooms, eight-neighbourhood)
+    private static final int MAX_CONFLICTS = 8;
+
+    private final int gridNeighbourhood;
+
+    public IncrementalReallocator(int gridNeighbourhood) {
+        this.gridNeighbourhood = gridNeighbourhood;
+    }
+
+    /**
+     * Apply the change set to the slot and commit. conn must have autocommit off and nothing run in its
+     * transaction yet: the write lock is taken before the slot is read, so a concurrent allocation of the
+     * slot is either fully seen or waited for. Result allocations are the rows that were moved or
+     * inserted; nothing is written on failure.
+     */
+    public SeatAllocator.AllocationResult apply(Connection conn, String examSlotId, ChangeSet changes) throws SQLException {
+        DatabaseConnection.beginImmediate(conn);
+        List<String> warnings = new ArrayList<>();
+        Map<String, Integer> branchCodes = new HashMap<>();
+
+        // 0. store the closures first (same transaction), so the rooms read below are the slot's open rooms
+        Set<String> known = new HashSet<>();
+        for (SeatAllocator.RoomInfo info : SeatAllocator.fetchAllRooms(conn)) known.add(info.roomId);
+        List<String> closing = new ArrayList<>();
+        for (String id : changes.closedRooms) {
+            if (known.contains(id)) closing.add(id);
+            else warnings.add("Room " + id + " not found; not closed.");
+        }
+        AllocationDAO.reopenRooms(conn, examSlotId, changes.reopenedRooms);
+        AllocationDAO.closeRooms(conn, examSlotId, closing);
+
+        // 1. current state: open rooms with their seat maps, and who sits where
+        Map<String, RoomSeats> rooms = new LinkedHashMap<>();
+        for (SeatAllocator.RoomInfo info : SeatAllocator.fetchAllRooms(conn, examSlotId)) {
+            rooms.put(info.roomId, new RoomSeats(info));
+        }
+        List<AllocationRecord> current = AllocationDAO.fetchAllocationsForExam(conn, examSlotId);
+        Set<String> seated = new HashSet<>();
+        List<AllocationRecord> toSeat = new ArrayList<>();
+        for (AllocationRecord rec : current) {
+            seated.add(rec.getStudentId());
+            if (changes.withdrawnStudents.contains(rec.getStudentId())) continue;
+            RoomSeats room = rooms.get(rec.getRoomId());
+            if (room == null) {
+                toSeat.add(rec); // room closed (or gone): student has to move
+            } else {
+                room.occupy(rec.getSeatNo(), code(branchCodes, rec.getBranch()));
+            }
+        }
+        int displaced = toSeat.size();
+
+        // 2. new students: must exist and must not already hold a seat in this slot
+        List<String> newIds = new ArrayList<>();
+        for (String id : changes.addedStudents) {
+            if (seated.contains(id)) warnings.add("Student " + id + " already has a seat in " + examSlotId + "; not added.");
+            else newIds.add(id);
+        }
+        StudentTable added = AllocationDAO.fetchStudents(conn, newIds);
+        if (added.size() < newIds.size()) {
+            warnings.add((newIds.size() - added.size()) + " added student(s) not found in Student table; skipped.");
+        }
+        for (int i = 0; i < added.size(); i++) {
+            toSeat.add(added.toRecord(i, null, 0, examSlotId));
+        }
+
+        // 3. seat everyone who needs a seat; normal rooms before backup rooms, clean seats first
+        FreeSeats normalSeats = new FreeSeats(rooms.values(), false);
+        FreeSeats backupSeats = new FreeSeats(rooms.values(), true);
+        List<AllocationRecord> moved = new ArrayList<>();
+        List<AllocationRecord> inserted = new ArrayList<>();
+        int violations = 0;
+        boolean usedBackup = false;
+        for (int i = 0; i < toSeat.size(); i++) {
+            AllocationRecord rec = toSeat.get(i);
+            int branch = code(branchCodes, rec.getBranch());
+            SeatChoice choice = normalSeats.best(branch, gridNeighbourhood);
+            if (choice == null) {
+                choice = backupSeats.best(branch, gridNeighbourhood);
+                usedBackup |= choice != null;
+            }
+            if (choice == null) {
+                warnings.add("Not enough free seats for " + (toSeat.size() - i) + " student(s) in " + examSlotId
+                        + "; no changes were saved.");
+                conn.rollback();
+                return new SeatAllocator.AllocationResult(false, warnings, new ArrayList<>());
+            }
+            choice.room.occupy(choice.seatNo, branch);
+            violations += choice.conflicts;
+            AllocationRecord placed = new AllocationRecord(rec.getStudentId(), rec.getStudentName(), rec.getBranch(),
+                    choice.room.info.roomId, choice.seatNo, examSlotId);
+            (i < displaced ? moved : inserted).add(placed);
+        }
+        if (usedBackup) warnings.add("Backup rooms were used for incremental changes in " + examSlotId + ".");
+        if (violations > 0) {
+            warnings.add("Incremental change introduced " + violations + " same-branch adjacent pairs (no clean seat left).");
+        }
+
+        // 4. row-level writes: free seats first so moves never collide with a leaving student
+        List<String> withdrawn = new ArrayList<>();
+        for (String id : changes.withdrawnStudents) {
+            if (seated.contains(id)) withdrawn.add(id);
+        }
+        AllocationDAO.deleteAllocations(conn, examSlotId, withdrawn);
+        AllocationDAO.updateSeats(conn, moved);
+        AllocationDAO.saveAllocationBatch(conn, inserted);
+        if (AllocationDAO.hasEnrollments(conn)) {
+            // keep enrollment in step so the next full allocation seats the same students
+            List<String> addedIds = new ArrayList<>();
+            for (AllocationRecord rec : inserted) addedIds.add(rec.getStudentId());
+            AllocationDAO.unenroll(conn, examSlotId, changes.withdrawnStudents);
+            AllocationDAO.enroll(conn, examSlotId, addedIds);
+        }
+        long version = AllocationDAO.bumpSlotVersion(conn, examSlotId);
+        conn.commit();
+
+        if (!closing.isEmpty()) warnings.add("Closed for " + examSlotId + ": " + String.join(", ", closing) + ".");
+        if (!changes.reopenedRooms.isEmpty()) {
+            warnings.add("Reopened for " + examSlotId + ": " + String.join(", ", changes.reopenedRooms) + ".");
+        }
+        warnings.add("Incremental update for " + examSlotId + ": " + withdrawn.size() + " removed, "
+                + moved.size() + " moved, " + inserted.size() + " added; all other seats unchanged.");
+        List<AllocationRecord> changed = new ArrayList<>(moved);
+        changed.addAll(inserted);
+        // moved, added and withdrawn students are all in this slot; drop its entries, warm the changed rows
+        SeatAllocator.seatCache().slotCommitted(examSlotId, version, changed);
+        return new SeatAllocator.AllocationResult(true, warnings, changed);
+    }
+
+    private static int code(Map<String, Integer> codes, String branch) {
+        return codes.computeIfAbsent(branch, k -> codes.size());
+    }
+
+    /**
+     * The free seats of the normal (or the backup) rooms in room order, with a cursor per branch and
+     * conflict count k at the first seat that may still have at most k same-branch neighbours.
+     * During one apply seats only fill up, so a seat that is taken, in a full room, or has more
+     * than k neighbours of a branch stays that way, and every cursor only moves forward.
+     */
+    private static class FreeSeats {
+        private final RoomSeats[] room;
+        private final int[] seat;
+        private final Map<Integer, int[]> cursors = new HashMap<>(); // branch -> cursor per k
+
+        FreeSeats(Collection<RoomSeats> rooms, boolean backup) {
+            List<RoomSeats> inRoom = new ArrayList<>();
+            List<Integer> seats = new ArrayList<>();
+            for (RoomSeats r : rooms) {
+                if (r.info.isBackup != backup) continue;
+                for (int s = 1; s <= r.seatCount(); s++) {
+                    if (r.branchAt(s) < 0) {
+                        inRoom.add(r);
+                        seats.add(s);
+                    }
+                }
+            }
+            room = inRoom.toArray(new RoomSeats[0]);
+            seat = new int[seats.size()];
+            for (int i = 0; i < seat.length; i++) seat[i] = seats.get(i);
+        }
+
+        // free seat with the fewest same-branch neighbours, the first in room order among those
+        SeatChoice best(int branch, int neighbourhood) {
+            int[] cursor = cursors.computeIfAbsent(branch, b -> new int[MAX_CONFLICTS + 1]);
+            for (int k = 0; k <= MAX_CONFLICTS; k++) {
+                int i = cursor[k];
+                while (i < seat.length && !fits(i, branch, k, neighbourhood)) i++;
+                cursor[k] = i;
+                if (i < seat.length) return new SeatChoice(room[i], seat[i], room[i].sameBranchNeighbours(seat[i], branch, neighbourhood));
+            }
+            return null;
+        }
+
+        private boolean fits(int i, int branch, int k, int neighbourhood) {
+            RoomSeats r = room[i];
+            return r.occupied < r.info.capacity && r.branchAt(seat[i]) < 0
+                    && r.sameBranchNeighbours(seat[i], branch, neighbourhood) <= k;
+        }
+    }
+
+    private static class SeatChoice {
+        final RoomSeats room;
+        final int seatNo;
+        final int conflicts;
+        SeatChoice(RoomSeats room, int seatNo, int conflicts) { this.room = room; this.seatNo = seatNo; this.conflicts = conflicts; }
+    }
+
+    // branch code per seat number of one open room; grid rooms use row-major seat numbers
+    private static class RoomSeats {
+        final SeatAllocator.RoomInfo info;
+        final int[] branch;
+        int occupied;
+
+        RoomSeats(SeatAllocator.RoomInfo info) {
+            this.info = info;
+            this.branch = new int[seatCount(info) + 1];
+            Arrays.fill(branch, -1);
+        }
+
+        private static int seatCount(SeatAllocator.RoomInfo info) {
+            return info.hasGeometry() ? info.rows * info.cols : info.capacity;
+        }
+
+        int seatCount() { return branch.length - 1; }
+
+        int branchAt(int seatNo) {
+            return seatNo >= 1 && seatNo < branch.length ? branch[seatNo] : -1;
+        }
+
+        void occupy(int seatNo, int code) {
+            if (seatNo >= 1 && seatNo < branch.length) branch[seatNo] = code;
+            occupied++;
+        }
+
+        int sameBranchNeighbours(int seatNo, int code, int neighbourhood) {
+            if (!info.hasGeometry()) {
+                return (branchAt(seatNo - 1) == code ? 1 : 0) + (branchAt(seatNo + 1) == code ? 1 : 0);
+            }
+            int r = (seatNo - 1) / info.cols, c = (seatNo - 1) % info.cols;
+            int count = 0;
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if ((dr == 0 && dc == 0) || (neighbourhood == RoomGrid.FOUR_NEIGHBOURS && dr != 0 && dc != 0)) continue;
+                    int rr = r + dr, cc = c + dc;
+                    if (rr >= 0 && rr < info.rows && cc >= 0 && cc < info.cols
+                            && branch[rr * info.cols + cc + 1] == code) count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+import java.util.Arrays;
+
+/**
+ * Row/column seat grid for one room, used by the grid-aware allocation mode.
+ *
+ * Branch occupancy is kept as one packed bitset per branch (row-major, each row padded
+ * to whole 64-bit words), so "is a same-branch student next to this seat" is a handful of
+ * masked word tests instead of a walk over the students already seated. An instance can be
+ * reset and reused across rooms so large halls do not allocate per room.
+ */
+public class RoomGrid {
+    public static final int FOUR_NEIGHBOURS = 4;
+    public static final int EIGHT_NEIGHBOURS = 8;
+
+    private final int neighbourhood;
+    private final long[][] occupancy; // [branch][row * words + word]
+    private int rows, cols, words;
+    private int[] seatBranch = new int[0]; // branch per seat, -1 if empty
+
+    // scratch buffers reused across place() calls
+    private int[] remaining = new int[0];
+    private int[] bucketStart = new int[0];
+    private int[] pending = new int[0];
+
+    public RoomGrid(int branchCount, int neighbourhood) {
+        if (neighbourhood != FOUR_NEIGHBOURS && neighbourhood != EIGHT_NEIGHBOURS) {
+            throw new IllegalArgumentException("Neighbourhood must be 4 or 8, got " + neighbourhood);
+        }
+        this.neighbourhood = neighbourhood;
+        this.occupancy = new long[branchCount][];
+    }
+
+    /** Clears the grid and sets the geometry for the next room. */
+    public void reset(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.words = (cols + 63) >>> 6;
+        int size = rows * words;
+        for (int b = 0; b < occupancy.length; b++) {
+            if (occupancy[b] == null || occupancy[b].length < size) occupancy[b] = new long[size];
+            else Arrays.fill(occupancy[b], 0, size, 0L);
+        }
+        if (seatBranch.length < rows * cols) seatBranch = new int[rows * cols];
+        Arrays.fill(seatBranch, 0, rows * cols, -1);
+    }
+
+    /**
+     * Seats a cohort of students given by branch code and returns the 0-based row-major seat
+     * index chosen for each one. Seats are filled row by row with the branch that has the
+     * most students left and no same-branch neighbour; a seat no branch can take stays empty.
+     * Students still unseated after that go to the empty seats with the fewest same-branch
+     * neighbours, so the whole cohort is always seated when rows * cols >= cohort size.
+     */
+    public int[] place(int[] cohortBranches) {
+        int[] seatOf = new int[cohortBranches.length];
+        place(cohortBranches, cohortBranches.length, seatOf);
+        return seatOf;
+    }
+
+    /** Same as {@link #place(int[])} for the first n entries, writing seat indices into seatOut. */
+    public void place(int[] cohortBranches, int n, int[] seatOut) {
+        int seats = rows * cols;
+        if (n > seats) throw new IllegalArgumentException("Cohort of " + n + " does not fit " + rows + "x" + cols);
+
+        // cohort positions grouped by branch (counting sort into reusable buffers); each range is
+        // filled back to front and consumed from the end, so earlier cohort positions are seated first
+        int branches = occupancy.length;
+        if (remaining.length < branches) {
+            remaining = new int[branches];
+            bucketStart = new int[branches];
+        }
+        if (pending.length < n) pending = new int[Math.max(n, seats)];
+        Arrays.fill(remaining, 0, branches, 0);
+        for (int i = 0; i < n; i++) remaining[cohortBranches[i]]++;
+        for (int b = 0, start = 0; b < branches; b++) {
+            bucketStart[b] = start;
+            start += remaining[b];
+        }
+        int[] fill = remaining.clone();
+        for (int i = 0; i < n; i++) {
+            int b = cohortBranches[i];
+            pending[bucketStart[b] + --fill[b]] = i;
+        }
+
+        int placed = 0;
+        for (int s = 0; s < seats && placed < n; s++) {
+            int r = s / cols, c = s % cols;
+            int best = -1;
+            for (int b = 0; b < branches; b++) {
+                if (remaining[b] == 0 || (best >= 0 && remaining[b] <= remaining[best])) continue;
+                if (!conflicts(b, r, c)) best = b;
+            }
+            if (best < 0) continue;
+            seatOut[pending[bucketStart[best] + --remaining[best]]] = s;
+            set(best, s);
+            placed++;
+        }
+
+        // relaxed pass: leftovers take the least-conflicting empty seat
+        for (int b = 0; b < branches; b++) {
+            while (remaining[b] > 0) {
+                int bestSeat = -1, bestCost = Integer.MAX_VALUE;
+                for (int s = 0; s < seats && bestCost > 0; s++) {
+                    if (seatBranch[s] >= 0) continue;
+                    int cost = sameBranchNeighbours(b, s / cols, s % cols);
+                    if (cost < bestCost) { bestCost = cost; bestSeat = s; }
+                }
+                seatOut[pending[bucketStart[b] + --remaining[b]]] = bestSeat;
+                set(b, bestSeat);
+            }
+        }
+    }
+
+    /** Whether a student of branch b at (r, c) would have a same-branch neighbour. */
+    public boolean conflicts(int b, int r, int c) {
+        long[] o = occupancy[b];
+        int span = neighbourhood == EIGHT_NEIGHBOURS ? 1 : 0;
+        return anyInRange(o, r, c - 1, c + 1)
+                || (r > 0 && anyInRange(o, r - 1, c - span, c + span))
+                || (r + 1 < rows && anyInRange(o, r + 1, c - span, c + span));
+    }
+
+    /** Number of same-branch neighbour pairs in the grid, each pair counted once. */
+    public int countViolations() {
+        int pairs = 0;
+        for (long[] o : occupancy) {
+            for (int r = 0; r < rows; r++) {
+                for (int w = 0; w < words; w++) {
+                    long x = o[r * words + w];
+                    if (x == 0) continue;
+                    pairs += Long.bitCount(x & shifted(o, r, w, 1));
+                    if (r + 1 < rows) {
+                        pairs += Long.bitCount(x & o[(r + 1) * words + w]);
+                        if (neighbourhood == EIGHT_NEIGHBOURS) {
+                            pairs += Long.bitCount(x & shifted(o, r + 1, w, 1));
+                            pairs += Long.bitCount(x & shifted(o, r + 1, w, -1));
+                        }
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private int sameBranchNeighbours(int b, int r, int c) {
+        int count = 0;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                if ((dr == 0 && dc == 0) || (neighbourhood == FOUR_NEIGHBOURS && dr != 0 && dc != 0)) continue;
+                int rr = r + dr, cc = c + dc;
+                if (rr >= 0 && rr < rows && cc >= 0 && cc < cols && seatBranch[rr * cols + cc] == b) count++;
+            }
+        }
+        return count;
+    }
+
+    private void set(int b, int seat) {
+        int r = seat / cols, c = seat % cols;
+        occupancy[b][r * words + (c >>> 6)] |= 1L << (c & 63);
+        seatBranch[seat] = b;
+    }
+
+    // any bit set in columns [from, to] of row r (clipped to the grid); spans at most two words
+    private boolean anyInRange(long[] o, int r, int from, int to) {
+        from = Math.max(from, 0);
+        to = Math.min(to, cols - 1);
+        if (from > to) return false;
+        int base = r * words;
+        int wf = from >>> 6, wt = to >>> 6;
+        long lowMask = -1L << (from & 63);
+        long highMask = -1L >>> (63 - (to & 63));
+        if (wf == wt) return (o[base + wf] & lowMask & highMask) != 0;
+        return (o[base + wf] & lowMask) != 0 || (o[base + wt] & highMask) != 0;
+    }
+
+    // word w of row r with every column moved by d (bit j holds column j + d)
+    private long shifted(long[] o, int r, int w, int d) {
+        int base = r * words;
+        if (d > 0) {
+            return (o[base + w] >>> 1) | (w + 1 < words ? o[base + w + 1] << 63 : 0L);
+        }
+        return (o[base + w] << 1) | (w > 0 ? o[base + w - 1] >>> 63 : 0L);
+    }
+}
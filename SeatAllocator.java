@@ -1,5 +1,8 @@
+import java.io.IOException;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public class SeatAllocator {
@@ -12,258 +15,710 @@ public class SeatAllocator {
         public final boolean success;
         public final List<String> warnings;
         public final List<AllocationRecord> allocations;
+        public final AllocationMetrics metrics; // phase timings and counters; disabled when not measured
 
         public AllocationResult(boolean success, List<String> warnings, List<AllocationRecord> allocations) {
+            this(success, warnings, allocations, AllocationMetrics.none());
+        }
+
+        public AllocationResult(boolean success, List<String> warnings, List<AllocationRecord> allocations,
+                                AllocationMetrics metrics) {
             this.success = success;
             this.warnings = warnings;
             this.allocations = allocations;
+            this.metrics = metrics;
+        }
+    }
+
+    // shared by every allocator so a commit in one invalidates lookups served by another
+    private static final SeatCache SEAT_CACHE = new SeatCache(Integer.getInteger("seatwise.seatCache.size", 200_000));
+
+    public static SeatCache seatCache() {
+        return SEAT_CACHE;
+    }
+
+    // binary seat map per committed slot, the fallback when the database cannot answer (-Dseatwise.snapshots=false to skip)
+    private static final boolean SNAPSHOTS = !"false".equalsIgnoreCase(System.getProperty("seatwise.snapshots"));
+
+    private static void writeSnapshot(String examSlotId, List<AllocationRecord> allocations) {
+        if (!SNAPSHOTS) return;
+        try {
+            SeatSnapshot.write(SeatSnapshot.directory(), examSlotId, allocations);
+        } catch (IOException ex) {
+            // the allocation is committed; a stale snapshot only matters while the database is down
+            ex.printStackTrace();
+            AdminJournal.warn(examSlotId, "Seat snapshot of " + examSlotId + " could not be written (" + ex
+                    + "); lookups during a database outage may show its previous seats.");
+        }
+    }
+
+    // how often lookups compare the cache with the database's slot versions (0 = on every lookup)
+    private static final long VERSION_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("seatwise.seatCache.checkMillis", 1_000L));
+    private static final AtomicLong nextVersionCheck = new AtomicLong(System.nanoTime());
+
+    // slots rewritten by another process (the dashboard, for the lookup service) since the cache read them
+    // are invalidated here; one lookup at a time runs the check, the others go on with the cache
+    private static void checkSlotVersions() {
+        long now = System.nanoTime();
+        long due = nextVersionCheck.get();
+        if (now - due < 0 || !nextVersionCheck.compareAndSet(due, now + VERSION_CHECK_NANOS)) return;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            SEAT_CACHE.checkVersions(AllocationDAO.fetchSlotVersions(conn));
+        } catch (SQLException ex) {
+            nextVersionCheck.set(now); // database unavailable: check again on the next lookup
+        }
+    }
+
+    /**
+     * Seat of a student through the shared cache, which is first brought in line with commits made by
+     * other processes (at most -Dseatwise.seatCache.checkMillis old). When the database cannot be read
+     * (locked by a long write, pool exhausted) the answer comes from the slot snapshots instead.
+     */
+    public static AllocationRecord lookupSeat(String studentId) throws SQLException {
+        checkSlotVersions();
+        try {
+            return SEAT_CACHE.get(studentId, id -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    return AllocationDAO.fetchAllocationForStudent(conn, id);
+                }
+            });
+        } catch (SQLException ex) {
+            // answered for this call only: a cached snapshot record (no name or branch) would outlive the outage
+            AllocationRecord fromSnapshot = SNAPSHOTS ? SeatSnapshot.lookupAny(studentId) : null;
+            if (fromSnapshot == null) throw ex;
+            return fromSnapshot;
+        }
+    }
+
+    // neighbourhood enforced in rooms that have row/column geometry (4 or 8)
+    private int gridNeighbourhood = RoomGrid.FOUR_NEIGHBOURS;
+
+    public void setGridNeighbourhood(int neighbourhood) {
+        if (neighbourhood != RoomGrid.FOUR_NEIGHBOURS && neighbourhood != RoomGrid.EIGHT_NEIGHBOURS) {
+            throw new IllegalArgumentException("Neighbourhood must be 4 or 8, got " + neighbourhood);
         }
+        this.gridNeighbourhood = neighbourhood;
+    }
+
+    int gridNeighbourhood() {
+        return gridNeighbourhood;
+    }
+
+    // other students required between two of one branch in the seat order (1 = not adjacent);
+    // read only by the imbalance check in computePlan
+    private int branchGap = Integer.getInteger("seatwise.branchGap", 1);
+
+    /**
+     * Minimum number of seats between two students of the same branch along the seat order,
+     * e.g. 2 for halls with long benches. Only decides the imbalance warning: the order always
+     * spreads branches as far as their sizes allow, and the swap repair (SwapRepairEngine), grid
+     * seating (RoomGrid) and the residual violation count always work on direct neighbours, so
+     * a gap above 1 is checked for feasibility but not enforced seat by seat.
+     */
+    public void setBranchGap(int gap) {
+        if (gap < 1) throw new IllegalArgumentException("Branch gap must be at least 1, got " + gap);
+        this.branchGap = gap;
+    }
+
+    // how students are ordered and seated once loaded (-Dseatwise.strategy=greedy|annealing)
+    private AllocationStrategy strategy = AllocationStrategy.named(System.getProperty("seatwise.strategy", "greedy"));
+
+    public void setStrategy(AllocationStrategy strategy) {
+        this.strategy = Objects.requireNonNull(strategy);
     }
 
+    public AllocationStrategy getStrategy() {
+        return strategy;
+    }
+
+    // stream each finished room to a writer thread instead of persisting after the whole plan (-Dseatwise.writer.pipeline=false to skip)
+    private static final boolean PIPELINED_WRITES = !"false".equalsIgnoreCase(System.getProperty("seatwise.writer.pipeline"));
+
     /**
      * Main allocation method.
      * It uses DB data (students, rooms) and saves allocations into Allocation table.
+     * Reads go through their own connection so an AllocationWriter can clear and insert on the
+     * write connection while the seats are still being computed; it is all one transaction.
      */
     public AllocationResult allocateSeatsForExam(String examSlotId) {
-        List<String> warnings = new ArrayList<>();
-        List<AllocationRecord> finalAllocations = new ArrayList<>();
+        if (!PIPELINED_WRITES) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                return persistPlan(conn, computePlan(conn, examSlotId, null));
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+                return databaseFailure(ex);
+            }
+        }
+        // both connections in one step: holding one while waiting for the other can exhaust the pool
+        Connection[] pair;
+        try {
+            pair = DatabaseConnection.getConnections(2);
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return databaseFailure(ex);
+        }
+        try (Connection conn = pair[0]; Connection readConn = pair[1]) {
+            conn.setAutoCommit(false);
+            return persistPlan(conn, computePlan(readConn, examSlotId, conn));
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return databaseFailure(ex);
+        }
+    }
 
+    /**
+     * Apply late changes (students added or withdrawn, rooms closed or reopened) to a slot's existing allocation.
+     * Only affected students get new seats and only their rows are written; everyone else keeps
+     * the seat they already have.
+     */
+    public AllocationResult reallocateIncrementally(String examSlotId, IncrementalReallocator.ChangeSet changes) {
         try (Connection conn = DatabaseConnection.getConnection()) {
             conn.setAutoCommit(false);
-            // 1. fetch students (for this slot) - here we assume all students take examSlot; adapt if student-exam mapping exists
-            List<StudentInfo> students = fetchAllStudents(conn); // fetch all students; adapt to slot filter if needed
-
-            // 2. fetch rooms with backup flag
-            List<RoomInfo> allRooms = fetchAllRooms(conn);
-            List<RoomInfo> normalRooms = allRooms.stream().filter(r -> !r.isBackup).collect(Collectors.toList());
-            List<RoomInfo> backupRooms = allRooms.stream().filter(r -> r.isBackup).collect(Collectors.toList());
-
-            int totalCapacity = normalRooms.stream().mapToInt(r -> r.capacity).sum();
-            int totalStudents = students.size();
-
-            // If overflow with normal rooms, use backup rooms
-            if (totalStudents > totalCapacity) {
-                int backupCapacity = backupRooms.stream().mapToInt(r -> r.capacity).sum();
-                if (totalStudents > (totalCapacity + backupCapacity)) {
-                    // not enough total capacity even with backup -> fail
-                    String msg = "Total students (" + totalStudents + ") exceed total capacity (" + (totalCapacity + backupCapacity) + ").";
-                    warnings.add(msg);
-                    // save admin warning
-                    AllocationDAO.saveAdminWarning(conn, msg);
-                    conn.rollback();
-                    return new AllocationResult(false, warnings, finalAllocations);
-                } else {
-                    // use backup rooms (move them into rooms list)
-                    normalRooms.addAll(backupRooms);
-                    warnings.add("Normal rooms insufficient; backup rooms were included for allocation.");
-                    AllocationDAO.saveAdminWarning(conn, "Backup rooms used for exam slot " + examSlotId);
+            AllocationResult result = new IncrementalReallocator(gridNeighbourhood).apply(conn, examSlotId, changes);
+            if (result.success) {
+                if (SNAPSHOTS) writeSnapshot(examSlotId, AllocationDAO.fetchAllocationsForExam(conn, examSlotId));
+            }
+            return result;
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return databaseFailure(ex);
+        }
+    }
+
+    /**
+     * Result of a multi-slot run: one AllocationResult per slot (in request order),
+     * the compute and persist time of each slot, and the wall-clock time of the whole batch.
+     */
+    public static class BatchResult {
+        public final Map<String, AllocationResult> results;
+        public final Map<String, Long> computeMillis;
+        public final Map<String, Long> persistMillis;
+        public final long wallClockMillis;
+
+        public BatchResult(Map<String, AllocationResult> results, Map<String, Long> computeMillis,
+                           Map<String, Long> persistMillis, long wallClockMillis) {
+            this.results = results;
+            this.computeMillis = computeMillis;
+            this.persistMillis = persistMillis;
+            this.wallClockMillis = wallClockMillis;
+        }
+    }
+
+    /**
+     * Allocate several exam slots at once.
+     * The compute phase (fetch, reorganize, place, repair) of independent slots runs in parallel
+     * on a ForkJoinPool, each on its own read connection. SQLite allows a single writer, so every
+     * finished plan is handed to one writer thread that persists slots one transaction at a time,
+     * each on a connection taken for that write only: no thread holds a connection while it waits
+     * for another, so the batch cannot exhaust the pool however many slots or callers there are.
+     */
+    public BatchResult allocateSeatsForExams(Collection<String> examSlotIds) {
+        long start = System.nanoTime();
+        Set<String> slots = new LinkedHashSet<>(examSlotIds);
+        Map<String, Long> computeNanos = new ConcurrentHashMap<>();
+        Map<String, Long> persistNanos = new ConcurrentHashMap<>();
+        Map<String, AllocationResult> results = new LinkedHashMap<>();
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(slots.size(), Runtime.getRuntime().availableProcessors())));
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Map<String, ForkJoinTask<Future<AllocationResult>>> tasks = new LinkedHashMap<>();
+            for (String slot : slots) {
+                tasks.put(slot, pool.submit(() -> {
+                    long t0 = System.nanoTime();
+                    SlotPlan plan;
+                    try {
+                        plan = planSlot(slot);
+                    } catch (SQLException ex) {
+                        ex.printStackTrace();
+                        computeNanos.put(slot, System.nanoTime() - t0);
+                        return CompletableFuture.completedFuture(databaseFailure(ex));
+                    }
+                    computeNanos.put(slot, System.nanoTime() - t0);
+                    return writer.submit(() -> {
+                        long t1 = System.nanoTime();
+                        try {
+                            return persistSlot(plan);
+                        } finally {
+                            persistNanos.put(slot, System.nanoTime() - t1);
+                        }
+                    });
+                }));
+            }
+            for (Map.Entry<String, ForkJoinTask<Future<AllocationResult>>> e : tasks.entrySet()) {
+                try {
+                    results.put(e.getKey(), e.getValue().get().get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    results.put(e.getKey(), failure("Allocation interrupted."));
+                } catch (ExecutionException ex) {
+                    ex.printStackTrace();
+                    results.put(e.getKey(), failure("Error during allocation: " + ex.getCause()));
                 }
             }
+        } finally {
+            pool.shutdown();
+            writer.shutdown();
+        }
 
-            // Recompute capacity
-            int capacity = normalRooms.stream().mapToInt(r -> r.capacity).sum();
-            if (capacity == 0) {
-                String msg = "No rooms available for allocation.";
-                warnings.add(msg);
-                AllocationDAO.saveAdminWarning(conn, msg);
+        Map<String, Long> computeMillis = new LinkedHashMap<>();
+        Map<String, Long> persistMillis = new LinkedHashMap<>();
+        for (String slot : slots) {
+            computeMillis.put(slot, computeNanos.getOrDefault(slot, 0L) / 1_000_000);
+            persistMillis.put(slot, persistNanos.getOrDefault(slot, 0L) / 1_000_000);
+        }
+        return new BatchResult(results, computeMillis, persistMillis, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Compute one slot's plan on its own read connection without writing anything; see {@link #persistSlot}. */
+    SlotPlan planSlot(String examSlotId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return computePlan(conn, examSlotId, null);
+        }
+    }
+
+    /** Write a plan from {@link #planSlot} in a transaction of its own (AllocationScheduler's writer). */
+    AllocationResult persistSlot(SlotPlan plan) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                return persistPlan(conn, plan);
+            } catch (SQLException ex) {
                 conn.rollback();
-                return new AllocationResult(false, warnings, finalAllocations);
+                throw ex;
             }
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return databaseFailure(ex);
+        }
+    }
 
-            // 3. analyze branch distribution
-            Map<String, List<StudentInfo>> byBranch = students.stream()
-                    .collect(Collectors.groupingBy(s -> s.branch));
+    static AllocationResult databaseFailure(SQLException ex) {
+        return failure("Database error during allocation: " + ex.getMessage());
+    }
 
-            // if one branch hugely dominates, detection threshold:
-            int maxBranchCount = byBranch.values().stream().mapToInt(List::size).max().orElse(0);
-            if (maxBranchCount > (students.size() / 2 + 1)) {
-                // imbalance: cannot fully prevent adjacency. Use relaxed allocation via greedy reordering
-                warnings.add("Branch imbalance detected. Relaxed allocation strategy applied to minimize same-branch adjacency.");
-                AllocationDAO.saveAdminWarning(conn, "Branch imbalance for exam " + examSlotId);
-            }
+    static AllocationResult failure(String warning) {
+        List<String> warnings = new ArrayList<>();
+        warnings.add(warning);
+        return new AllocationResult(false, warnings, new ArrayList<>());
+    }
 
-            // 4. create an ordered list of student IDs using "reorganize" greedy algorithm by branch
-            List<StudentInfo> orderedStudents = reorganizeByBranch(byBranch);
+    /**
+     * Everything one slot's allocation decided before touching the Allocation table:
+     * the outcome, user-facing warnings, admin warnings to record and the seat list.
+     */
+    static class SlotPlan {
+        final String examSlotId;
+        final List<String> warnings = new ArrayList<>();
+        final List<AdminJournal.Entry> adminWarnings = new ArrayList<>(); // journalled by persistPlan
+        final AllocationMetrics metrics;
+        boolean success;
+        List<AllocationRecord> allocations = new ArrayList<>();
+        AllocationWriter writer; // already writing the seats when the plan was computed with a write connection
+        int capacityShortfall;   // students left without a seat even with the backup rooms
+        SlotPlan(String examSlotId) { this.examSlotId = examSlotId; this.metrics = AllocationMetrics.start(examSlotId); }
+
+        /** Queue an admin journal entry for this slot, with the severity of what it reports. */
+        void admin(AdminJournal.Severity severity, String text) {
+            adminWarnings.add(new AdminJournal.Entry(0, null, examSlotId, severity, text));
+        }
+    }
 
-            // 5. allocate orderedStudents into rooms sequentially while attempting to avoid adjacency inside rooms
-            List<AllocationRecord> allocations = new ArrayList<>();
-            int idx = 0;
-            for (RoomInfo room : normalRooms) {
-                for (int seat = 1; seat <= room.capacity && idx < orderedStudents.size(); seat++) {
-                    StudentInfo s = orderedStudents.get(idx++);
-                    allocations.add(new AllocationRecord(s.studentId, s.name, s.branch, room.roomId, seat, examSlotId));
-                }
-                if (idx >= orderedStudents.size()) break;
+    /**
+     * Write a computed plan: admin warnings go to the {@link AdminJournal}, then (on success) the slot
+     * is cleared and its seats inserted in the caller's transaction. A failed plan is rolled back like before. When the plan's
+     * writer has been streaming the seats, this waits for it instead of clearing and inserting.
+     */
+    private AllocationResult persistPlan(Connection conn, SlotPlan plan) throws SQLException {
+        if (plan.writer != null && !plan.success) {
+            plan.writer.abort(); // conn is rolled back below
+        } else if (plan.writer != null) {
+            // the writer owns conn until it is done
+            try {
+                plan.writer.finish();
+            } catch (SQLException | Error ex) {
+                conn.rollback();
+                throw ex;
             }
+        }
+        // journalled outside the transaction, so a failed plan's warnings survive the rollback
+        for (AdminJournal.Entry entry : plan.adminWarnings) {
+            AdminJournal.log(entry.severity, entry.examSlotId, entry.text);
+        }
+        AllocationMetrics metrics = plan.metrics;
+        if (!plan.success) {
+            conn.rollback();
+            metrics.publish(false);
+            return new AllocationResult(false, plan.warnings, plan.allocations, metrics);
+        }
+
+        // 7. Save allocations to DB (clear old for slot then batch insert), unless the writer already has
+        long t;
+        if (plan.writer == null) {
+            t = metrics.begin();
+            metrics.count(AllocationMetrics.Counter.ROWS_CLEARED, AllocationDAO.clearAllocationsForExam(conn, plan.examSlotId));
+            metrics.stop(AllocationMetrics.Phase.CLEAR, t);
+            t = metrics.begin();
+            AllocationDAO.saveAllocationBatch(conn, plan.allocations);
+            metrics.stop(AllocationMetrics.Phase.INSERT, t);
+            metrics.count(AllocationMetrics.Counter.ROWS_WRITTEN, plan.allocations.size());
+        }
+
+        long version = AllocationDAO.bumpSlotVersion(conn, plan.examSlotId);
+        t = metrics.begin();
+        conn.commit();
+        metrics.stop(AllocationMetrics.Phase.COMMIT, t);
+        SEAT_CACHE.slotCommitted(plan.examSlotId, version, plan.allocations);
+        t = metrics.begin();
+        writeSnapshot(plan.examSlotId, plan.allocations);
+        metrics.stop(AllocationMetrics.Phase.SNAPSHOT, t);
+        metrics.publish(true);
+        return new AllocationResult(true, plan.warnings, plan.allocations, metrics);
+    }
+
+    /**
+     * Compute phase of one slot: reads students and rooms, then reorganizes, places and repairs
+     * in memory. Without a writeConn it does not write and the caller persists the returned plan.
+     * With one, a writer starts clearing the slot on it right away and receives each room's seats
+     * as they are built; the caller then finishes (or rolls back) through persistPlan.
+     */
+    private SlotPlan computePlan(Connection conn, String examSlotId, Connection writeConn) throws SQLException {
+        SlotPlan plan = new SlotPlan(examSlotId);
+        if (writeConn == null) {
+            fillPlan(conn, plan);
+            return plan;
+        }
+        plan.writer = AllocationWriter.start(writeConn, examSlotId, plan.metrics);
+        try {
+            fillPlan(conn, plan);
+        } catch (SQLException | RuntimeException | Error ex) {
+            plan.writer.abort();
+            throw ex;
+        }
+        return plan;
+    }
+
+    private void fillPlan(Connection conn, SlotPlan plan) throws SQLException {
+        String examSlotId = plan.examSlotId;
+        List<String> warnings = plan.warnings;
+        AllocationMetrics metrics = plan.metrics;
+
+        // 1. fetch the students enrolled in this slot (everyone, while no enrollment has been loaded)
+        long t = metrics.begin();
+        StudentTable students = fetchSlotStudents(conn, examSlotId, warnings);
+        metrics.stop(AllocationMetrics.Phase.FETCH_STUDENTS, t);
+        metrics.count(AllocationMetrics.Counter.STUDENTS, students.size());
+        if (students.size() == 0) {
+            warnings.add("No students are enrolled in exam slot " + examSlotId + "; nothing was allocated.");
+            return;
+        }
 
-            // 6. Post-check: compute adjacency violations inside each room and attempt small swaps to reduce (best-effort)
-            int violations = reduceAdjacentSameBranch(allocations);
-            if (violations > 0) {
-                warnings.add("Allocation resulted in " + violations + " same-branch adjacent pairs (could not be avoided).");
-                AllocationDAO.saveAdminWarning(conn, "Allocation had " + violations + " adjacency violations for " + examSlotId);
+        // 2. fetch rooms with backup flag
+        t = metrics.begin();
+        List<RoomInfo> allRooms = fetchAllRooms(conn, examSlotId);
+        metrics.stop(AllocationMetrics.Phase.FETCH_ROOMS, t);
+
+        Placement placement = seat(plan, students, allRooms);
+        if (placement == null) return;
+
+        // 7. build the seat records room by room (a room is final once the strategy returns) and stream them to the writer
+        plan.allocations = new ArrayList<>(placement.students.length);
+        for (int r = 0; r < placement.roomIds.length; r++) {
+            t = metrics.begin();
+            List<AllocationRecord> seats = placement.roomRecords(students, examSlotId, r);
+            plan.allocations.addAll(seats);
+            metrics.stop(AllocationMetrics.Phase.BUILD_RECORDS, t);
+            if (plan.writer != null) plan.writer.room(seats);
+        }
+        plan.success = true;
+    }
+
+    /**
+     * Steps 2-6 on students and rooms already loaded, without touching the database: take the normal
+     * rooms (and the backup rooms when those are short), check the branch gap and seat with the strategy.
+     * Warnings go to the plan; returns null when the students cannot be seated. Safe to run on several
+     * threads at once over the same read-only students and rooms (WhatIfPlanner does).
+     */
+    Placement seat(SlotPlan plan, StudentTable students, List<RoomInfo> allRooms) {
+        String examSlotId = plan.examSlotId;
+        List<String> warnings = plan.warnings;
+        AllocationMetrics metrics = plan.metrics;
+        List<RoomInfo> normalRooms = allRooms.stream().filter(r -> !r.isBackup).collect(Collectors.toList());
+        List<RoomInfo> backupRooms = allRooms.stream().filter(r -> r.isBackup).collect(Collectors.toList());
+
+        int totalCapacity = normalRooms.stream().mapToInt(r -> r.capacity).sum();
+        int totalStudents = students.size();
+
+        // If overflow with normal rooms, use backup rooms
+        if (totalStudents > totalCapacity) {
+            int backupCapacity = backupRooms.stream().mapToInt(r -> r.capacity).sum();
+            if (totalStudents > (totalCapacity + backupCapacity)) {
+                // not enough total capacity even with backup -> fail
+                String msg = "Total students (" + totalStudents + ") exceed total capacity (" + (totalCapacity + backupCapacity) + ").";
+                warnings.add(msg);
+                // save admin warning
+                plan.admin(AdminJournal.Severity.ERROR, msg);
+                plan.capacityShortfall = totalStudents - totalCapacity - backupCapacity;
+                return null;
+            } else {
+                // use backup rooms (move them into rooms list)
+                normalRooms.addAll(backupRooms);
+                warnings.add("Normal rooms insufficient; backup rooms were included for allocation.");
+                plan.admin(AdminJournal.Severity.INFO, "Backup rooms used for exam slot " + examSlotId);
             }
+        }
 
-            // 7. Save allocations to DB (clear old for slot then batch insert)
-            AllocationDAO.clearAllocationsForExam(conn, examSlotId);
-            AllocationDAO.saveAllocationBatch(conn, allocations);
+        // Recompute capacity
+        int capacity = normalRooms.stream().mapToInt(r -> r.capacity).sum();
+        if (capacity == 0) {
+            String msg = "No rooms available for allocation.";
+            warnings.add(msg);
+            plan.admin(AdminJournal.Severity.ERROR, msg);
+            plan.capacityShortfall = totalStudents;
+            return null;
+        }
 
-            conn.commit();
-            return new AllocationResult(true, warnings, allocations);
+        // 3. analyze branch distribution: can the seat order keep the branch gap at all? (exact, before placing)
+        int[] branchCounts = students.branchCounts();
+        int maxGap = BranchInterleaver.maxGap(branchCounts);
+        if (maxGap < branchGap) {
+            // imbalance: the largest branch is too big for the gap; the order still spreads it as far as possible
+            warnings.add("Branch imbalance detected: the largest branch has " + Arrays.stream(branchCounts).max().orElse(0)
+                    + " of " + students.size() + " students, so a gap of " + branchGap + " seat(s) cannot be kept"
+                    + (maxGap > 0 ? " (at most " + maxGap + ")" : "") + ". Same-branch students are spread as evenly as possible.");
+            plan.admin(AdminJournal.Severity.WARNING, "Branch imbalance for exam " + examSlotId);
+        }
 
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            warnings.add("Database error during allocation: " + ex.getMessage());
-            return new AllocationResult(false, warnings, finalAllocations);
+        // 4-6. seat the students with the configured strategy (greedy: reorganize by branch, fill rooms
+        //      in order, swap-repair adjacent pairs; annealing: greedy, then a time-budgeted search)
+        Placement placement = strategy.allocate(this, students, normalRooms, metrics);
+        metrics.count(AllocationMetrics.Counter.ROOMS, placement.roomIds.length);
+        int violations = placement.violations;
+        metrics.count(AllocationMetrics.Counter.RESIDUAL_VIOLATIONS, violations);
+        if (violations > 0) {
+            warnings.add("Allocation resulted in " + violations + " same-branch adjacent pairs (could not be avoided).");
+            plan.admin(AdminJournal.Severity.WARNING, "Allocation had " + violations + " adjacency violations for " + examSlotId);
         }
+        return placement;
     }
 
     // ------------------- Helper & inner classes -------------------
 
-    private static class StudentInfo {
-        String studentId;
-        String name;
-        String branch;
-        StudentInfo(String id, String name, String branch) { this.studentId = id; this.name = name; this.branch = branch;}
+    /**
+     * Seats chosen for one run, as parallel arrays over filled rooms in fill order: room i owns
+     * seats [roomStart[i], roomStart[i+1]), each holding a student index and a seat number.
+     */
+    static final class Placement {
+        final String[] roomIds;
+        final boolean[] gridRoom;
+        final int[] roomStart;
+        final int[] students;
+        final int[] seatNo;
+        int gridViolations;
+        int violations; // same-branch neighbour pairs left in the whole placement, set by the strategy
+
+        Placement(int rooms, int seats) {
+            roomIds = new String[rooms];
+            gridRoom = new boolean[rooms];
+            roomStart = new int[rooms + 1];
+            students = new int[seats];
+            seatNo = new int[seats];
+        }
+
+        Placement copy() {
+            Placement p = new Placement(roomIds.length, students.length);
+            System.arraycopy(roomIds, 0, p.roomIds, 0, roomIds.length);
+            System.arraycopy(gridRoom, 0, p.gridRoom, 0, gridRoom.length);
+            System.arraycopy(roomStart, 0, p.roomStart, 0, roomStart.length);
+            System.arraycopy(students, 0, p.students, 0, students.length);
+            System.arraycopy(seatNo, 0, p.seatNo, 0, seatNo.length);
+            p.gridViolations = gridViolations;
+            p.violations = violations;
+            return p;
+        }
+
+        /** The only place records are built: one per seated student, in room and fill order. */
+        List<AllocationRecord> toRecords(StudentTable table, String examSlotId) {
+            List<AllocationRecord> out = new ArrayList<>(students.length);
+            for (int r = 0; r < roomIds.length; r++) out.addAll(roomRecords(table, examSlotId, r));
+            return out;
+        }
+
+        /** Seat records of room r, in seat order. */
+        List<AllocationRecord> roomRecords(StudentTable table, String examSlotId, int r) {
+            List<AllocationRecord> out = new ArrayList<>(roomStart[r + 1] - roomStart[r]);
+            for (int g = roomStart[r]; g < roomStart[r + 1]; g++) {
+                out.add(table.toRecord(students[g], roomIds[r], seatNo[g], examSlotId));
+            }
+            return out;
+        }
     }
 
-    private static class RoomInfo {
+    static class RoomInfo {
         String roomId;
         int capacity;
         boolean isBackup;
+        int rows;   // 0 when the room has no recorded geometry
+        int cols;
         RoomInfo(String id, int cap, boolean b) { this.roomId = id; this.capacity = cap; this.isBackup = b;}
+        RoomInfo(String id, int cap, boolean b, int rows, int cols) { this(id, cap, b); this.rows = rows; this.cols = cols;}
+        // grid mode needs a layout that can hold the full capacity; otherwise fall back to the flat seat order
+        boolean hasGeometry() { return rows > 0 && cols > 0 && rows * cols >= capacity; }
+    }
+
+    StudentTable fetchSlotStudents(Connection conn, String examSlotId, List<String> warnings) throws SQLException {
+        StudentTable enrolled = AllocationDAO.fetchEnrolledStudents(conn, examSlotId);
+        if (enrolled.size() == 0 && !AllocationDAO.hasEnrollments(conn)) return fetchAllStudents(conn);
+        int unknown = AllocationDAO.countEnrollments(conn, examSlotId) - enrolled.size();
+        if (unknown > 0) {
+            warnings.add(unknown + " student(s) enrolled in " + examSlotId + " are not in the Student table; skipped.");
+        }
+        return enrolled;
     }
 
-    private List<StudentInfo> fetchAllStudents(Connection conn) throws SQLException {
-        List<StudentInfo> list = new ArrayList<>();
+    private StudentTable fetchAllStudents(Connection conn) throws SQLException {
+        StudentTable table = new StudentTable();
         try (PreparedStatement ps = conn.prepareStatement("SELECT student_id, name, branch FROM Student");
              ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
-                list.add(new StudentInfo(rs.getString(1), rs.getString(2), rs.getString(3)));
+                table.add(rs.getString(1), rs.getString(2), rs.getString(3));
             }
         }
-        return list;
+        return table;
     }
 
-    private List<RoomInfo> fetchAllRooms(Connection conn) throws SQLException {
+    static List<RoomInfo> fetchAllRooms(Connection conn) throws SQLException {
+        return fetchAllRooms(conn, null);
+    }
+
+    /** Rooms open for the slot: every room except those closed for it in RoomClosure (all rooms when the slot is null). */
+    static List<RoomInfo> fetchAllRooms(Connection conn, String examSlotId) throws SQLException {
         List<RoomInfo> list = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement("SELECT room_id, capacity, is_backup FROM Room ORDER BY is_backup, room_id");
-             ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                list.add(new RoomInfo(rs.getString(1), rs.getInt(2), rs.getInt(3) == 1));
+        String sql = "SELECT * FROM Room"
+                + (examSlotId == null ? "" : " WHERE room_id NOT IN (SELECT room_id FROM RoomClosure WHERE exam_slot_id = ?)")
+                + " ORDER BY is_backup, room_id";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            if (examSlotId != null) ps.setString(1, examSlotId);
+            try (ResultSet rs = ps.executeQuery()) {
+                // seat_rows/seat_cols are optional so older databases without geometry keep working
+                boolean geometry = hasColumn(rs.getMetaData(), "seat_rows") && hasColumn(rs.getMetaData(), "seat_cols");
+                while (rs.next()) {
+                    list.add(new RoomInfo(rs.getString("room_id"), rs.getInt("capacity"), rs.getInt("is_backup") == 1,
+                            geometry ? rs.getInt("seat_rows") : 0, geometry ? rs.getInt("seat_cols") : 0));
+                }
             }
         }
         return list;
     }
 
     /**
-     * Reorganize students by branch to minimize adjacency:
-     * Uses greedy approach: maintain a max-heap of (branch,count), pop the top two branches,
-     * append one student from first, decrease count, push back if remains.
-     * This is similar to reorganize-string algorithm.
+     * Fill rooms in order with the ordered students. Flat rooms get consecutive seat numbers;
+     * rooms with geometry seat their share on the grid (row-major seat numbers) and contribute
+     * their residual neighbour pairs to gridViolations.
      */
-    private List<StudentInfo> reorganizeByBranch(Map<String, List<StudentInfo>> byBranch) {
-        List<StudentInfo> result = new ArrayList<>();
-        PriorityQueue<Map.Entry<String, Integer>> pq = new PriorityQueue<>(
-                (a,b) -> b.getValue() - a.getValue()
-        );
-
-        // Map from branch to queue of students (so we can pop an actual StudentInfo)
-        Map<String, Queue<StudentInfo>> branchQueues = new HashMap<>();
-        for (Map.Entry<String, List<StudentInfo>> e : byBranch.entrySet()) {
-            pq.add(new AbstractMap.SimpleEntry<>(e.getKey(), e.getValue().size()));
-            branchQueues.put(e.getKey(), new LinkedList<>(e.getValue()));
-        }
-
-        while (!pq.isEmpty()) {
-            Map.Entry<String,Integer> first = pq.poll();
-            String branch1 = first.getKey();
-            int count1 = first.getValue();
-
-            Map.Entry<String,Integer> second = null;
-            if (!pq.isEmpty()) {
-                second = pq.poll();
-            }
-
-            // pick from first
-            Queue<StudentInfo> q1 = branchQueues.get(branch1);
-            if (q1 != null && !q1.isEmpty()) result.add(q1.poll());
-
-            if (count1 - 1 > 0) {
-                // will reinsert later with decreased count
-                first = new AbstractMap.SimpleEntry<>(branch1, count1 - 1);
-            } else first = null;
-
-            if (second != null) {
-                String branch2 = second.getKey();
-                Queue<StudentInfo> q2 = branchQueues.get(branch2);
-                if (q2 != null && !q2.isEmpty()) result.add(q2.poll());
-                if (second.getValue() - 1 > 0) {
-                    second = new AbstractMap.SimpleEntry<>(branch2, second.getValue() - 1);
-                } else second = null;
+    Placement placeStudents(StudentTable students, int[] order, List<RoomInfo> rooms) {
+        int n = order.length;
+        int used = 0;
+        for (int idx = 0; used < rooms.size() && idx < n; used++) idx += rooms.get(used).capacity;
+
+        Placement p = new Placement(used, n);
+        RoomGrid grid = new RoomGrid(students.branchCount(), gridNeighbourhood);
+        int[] cohort = new int[0];
+        int[] seatOf = new int[0];
+        int idx = 0;
+        for (int r = 0; r < used; r++) {
+            RoomInfo room = rooms.get(r);
+            int end = Math.min(idx + room.capacity, n);
+            p.roomIds[r] = room.roomId;
+            p.roomStart[r] = idx;
+            if (room.hasGeometry()) {
+                p.gridRoom[r] = true;
+                int size = end - idx;
+                if (cohort.length < size) {
+                    cohort = new int[room.capacity];
+                    seatOf = new int[room.capacity];
+                }
+                for (int i = 0; i < size; i++) cohort[i] = students.branch(order[idx + i]);
+                grid.reset(room.rows, room.cols);
+                grid.place(cohort, size, seatOf);
+                for (int i = 0; i < size; i++) {
+                    p.students[idx + i] = order[idx + i];
+                    p.seatNo[idx + i] = seatOf[i] + 1;
+                }
+                p.gridViolations += grid.countViolations();
+            } else {
+                for (int g = idx; g < end; g++) {
+                    p.students[g] = order[g];
+                    p.seatNo[g] = g - idx + 1;
+                }
             }
-
-            if (first != null) pq.add(first);
-            if (second != null) pq.add(second);
+            idx = end;
         }
+        p.roomStart[used] = idx;
+        return p;
+    }
 
-        // If any student left in any queue (shouldn't happen), append them
-        for (Queue<StudentInfo> q : branchQueues.values()) while (!q.isEmpty()) result.add(q.poll());
+    private static boolean hasColumn(ResultSetMetaData meta, String column) throws SQLException {
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            if (meta.getColumnName(i).equalsIgnoreCase(column)) return true;
+        }
+        return false;
+    }
 
-        return result;
+    /**
+     * Reorganize students by branch to minimize adjacency: spreads every branch as evenly as
+     * its size allows (see BranchInterleaver), so whenever the configured branch gap is
+     * achievable for the branch counts the seat order keeps it. O(n), indices and codes only.
+     */
+    int[] reorganizeByBranch(StudentTable students) {
+        return BranchInterleaver.interleave(students.branchColumn(), students.size(), students.branchCount());
     }
 
     /**
      * Try to reduce adjacent same-branch pairs by swapping with seats in other rooms (best-effort).
+     * Only flat rooms take part. Swap partners come from the indexed SwapRepairEngine, which also
+     * keeps both neighbours of each swapped seat clean, so a repair never introduces a new pair elsewhere.
+     * Seat numbers stay sequential within each room; only the students move.
      * Returns the count of remaining adjacency violations.
      */
-    private int reduceAdjacentSameBranch(List<AllocationRecord> allocations) {
-        // Group allocations by room
-        Map<String, List<AllocationRecord>> byRoom = new LinkedHashMap<>();
-        for (AllocationRecord a : allocations) {
-            byRoom.computeIfAbsent(a.getRoomId(), k -> new ArrayList<>()).add(a);
-        }
-
-        int violations = 0;
-        // For each room, count adjacency violations and try local swaps
-        for (List<AllocationRecord> seats : byRoom.values()) {
-            // seats are ordered by seatNo already when created
-            for (int i = 1; i < seats.size(); i++) {
-                if (seats.get(i).getBranch().equals(seats.get(i-1).getBranch())) {
-                    // try to find a seat in a later room which has a student of a different branch to swap
-                    boolean fixed = false;
-                    for (Map.Entry<String, List<AllocationRecord>> entry : byRoom.entrySet()) {
-                        List<AllocationRecord> otherSeats = entry.getValue();
-                        if (otherSeats == seats) continue;
-                        for (int j = 0; j < otherSeats.size(); j++) {
-                            if (!otherSeats.get(j).getBranch().equals(seats.get(i).getBranch())
-                                && !otherSeats.get(j).getBranch().equals(seats.get(i-1).getBranch())) {
-                                // swap
-                                AllocationRecord tmp = otherSeats.get(j);
-                                otherSeats.set(j, seats.get(i));
-                                seats.set(i, tmp);
-                                fixed = true;
-                                break;
-                            }
-                        }
-                        if (fixed) break;
-                    }
-                    if (!fixed) violations++;
-                }
-            }
+    int reduceAdjacentSameBranch(StudentTable students, Placement p) {
+        return reduceAdjacentSameBranch(students, p, AllocationMetrics.none());
+    }
+
+    /** As above, also counting attempted and successful swaps into metrics. */
+    int reduceAdjacentSameBranch(StudentTable students, Placement p, AllocationMetrics metrics) {
+        // Lay the flat rooms' seats out contiguously for the engine
+        int flatRooms = 0, flatSeats = 0;
+        for (int r = 0; r < p.roomIds.length; r++) {
+            if (p.gridRoom[r]) continue;
+            flatRooms++;
+            flatSeats += p.roomStart[r + 1] - p.roomStart[r];
         }
-        // Flatten back into allocations list in the same room order and seatNo order
-        List<AllocationRecord> merged = new ArrayList<>();
-        for (Map.Entry<String, List<AllocationRecord>> entry : byRoom.entrySet()) {
-            List<AllocationRecord> seatList = entry.getValue();
-            // reassign seat numbers sequentially within room
-            for (int s=0; s<seatList.size(); s++) {
-                AllocationRecord rec = seatList.get(s);
-                merged.add(new AllocationRecord(rec.getStudentId(), rec.getStudentName(), rec.getBranch(),
-                        rec.getRoomId(), s+1, rec.getExamSlotId()));
+        int[] seatIndex = new int[flatSeats];
+        int[] branch = new int[flatSeats];
+        int[] roomStart = new int[flatRooms + 1];
+        int g = 0, fr = 0;
+        for (int r = 0; r < p.roomIds.length; r++) {
+            if (p.gridRoom[r]) continue;
+            roomStart[fr++] = g;
+            for (int s = p.roomStart[r]; s < p.roomStart[r + 1]; s++) {
+                seatIndex[g] = s;
+                branch[g++] = students.branch(p.students[s]);
             }
         }
-        allocations.clear();
-        allocations.addAll(merged);
+        roomStart[fr] = g;
+
+        SwapRepairEngine engine = new SwapRepairEngine(branch, roomStart, students.branchCount());
+        int violations = engine.repair();
+        metrics.count(AllocationMetrics.Counter.SWAPS_ATTEMPTED, engine.swapsAttempted());
+        metrics.count(AllocationMetrics.Counter.SWAPS_SUCCEEDED, engine.swapsMade());
+
+        // Apply the engine's permutation to the students in those seats
+        int[] slot = engine.slots();
+        int[] moved = new int[flatSeats];
+        for (g = 0; g < flatSeats; g++) moved[g] = p.students[seatIndex[slot[g]]];
+        for (g = 0; g < flatSeats; g++) p.students[seatIndex[g]] = moved[g];
         return violations;
     }
 
@@ -279,8 +734,8 @@ public class SeatAllocator {
     }
 
     public AllocationRecord generateStudentReport(String studentId) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            return AllocationDAO.fetchAllocationForStudent(conn, studentId);
+        try {
+            return lookupSeat(studentId);
         } catch (SQLException ex) {
             ex.printStackTrace();
             return null;
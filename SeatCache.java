@@ -0,0 +1,211 @@
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of seat lookups keyed by student id.
+ *
+ * Entries live in striped, access-ordered LinkedHashMaps so concurrent logins rarely contend on
+ * the same lock and each stripe evicts its least recently used entry once full. "No seat" answers
+ * are cached too. Each entry carries the generation of its slot (for "no seat", of the whole cache)
+ * at the time it was cached; a commit bumps the slot's generation in O(1), which turns that slot's
+ * entries and every "no seat" answer stale without walking the cache, then warms the slot's new
+ * seats. Stale entries are dropped when next looked up or evicted. A lookup that raced with any
+ * commit does not cache what it read before the commit.
+ *
+ * Commits made elsewhere (another process, such as the dashboard for the lookup service) are seen
+ * through the database's per-slot versions: checkVersions invalidates every slot whose version moved
+ * past the last one this cache saw, including the versions of its own commits.
+ */
+public class SeatCache {
+    private static final int STRIPES = 16;
+    private static final AllocationRecord NO_SEAT = new AllocationRecord(null, null, null, null, 0, null);
+
+    /** Database read used on a miss. */
+    public interface Loader {
+        AllocationRecord load(String studentId) throws SQLException;
+    }
+
+    public static class Stats {
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final int size;
+        public final int maxSize;
+
+        Stats(long hits, long misses, long evictions, int size, int maxSize) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public String toString() {
+            long total = hits + misses;
+            return "hits=" + hits + " misses=" + misses + " hitRate=" + (total == 0 ? 0 : hits * 100 / total) + "%"
+                    + " evictions=" + evictions + " size=" + size + "/" + maxSize;
+        }
+    }
+
+    private final int maxSize;
+    private final Stripe[] stripes;
+    private final AtomicLong generation = new AtomicLong();                     // bumped by every commit
+    private final Map<String, Long> slotGenerations = new ConcurrentHashMap<>(); // bumped by the slot's commits
+    private final Map<String, Long> dbVersions = new HashMap<>(); // guarded by itself; last SlotVersion seen per slot
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SeatCache(int maxSize) {
+        this.maxSize = maxSize;
+        int perStripe = Math.max(1, maxSize / STRIPES);
+        stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe(perStripe);
+    }
+
+    /** Cached seat for the student, loading it on a miss. Returns null when the student has no seat. */
+    public AllocationRecord get(String studentId, Loader loader) throws SQLException {
+        Stripe stripe = stripe(studentId);
+        Cached cached;
+        synchronized (stripe) {
+            cached = stripe.get(studentId);
+            if (cached != null && !current(cached)) {
+                stripe.remove(studentId);
+                cached = null;
+            }
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached.rec == NO_SEAT ? null : cached.rec;
+        }
+        misses.increment();
+        long gen = generation.get();
+        AllocationRecord rec = loader.load(studentId);
+        synchronized (stripe) {
+            // a commit since the read may have changed this student's seat; do not cache the old answer
+            if (generation.get() == gen) stripe.put(studentId, cached(rec == null ? NO_SEAT : rec));
+        }
+        return rec;
+    }
+
+    /**
+     * Called after an exam slot's allocation commits, with the slot version the commit left
+     * (AllocationDAO.bumpSlotVersion). Makes entries for that slot and every cached "no seat" answer
+     * stale, then warms the slot's new seats. Students cached with a seat in another slot keep that
+     * entry, which is still valid. Costs O(1) plus the warmed seats.
+     */
+    public void slotCommitted(String examSlotId, long dbVersion, List<AllocationRecord> allocations) {
+        synchronized (dbVersions) {
+            dbVersions.merge(examSlotId, dbVersion, Math::max);
+            invalidate(examSlotId);
+        }
+        if (allocations == null) return;
+        // warm at most what the cache can hold; later entries would only evict earlier ones
+        int limit = Math.min(allocations.size(), maxSize);
+        for (int i = 0; i < limit; i++) {
+            AllocationRecord rec = allocations.get(i);
+            Stripe stripe = stripe(rec.getStudentId());
+            synchronized (stripe) {
+                Cached old = stripe.get(rec.getStudentId());
+                if (old == null || !current(old)) stripe.put(rec.getStudentId(), cached(rec));
+            }
+        }
+    }
+
+    /**
+     * Compare the database's slot versions (AllocationDAO.fetchSlotVersions) with the last ones seen and
+     * invalidate every slot whose version moved on, as if it had been committed here. Returns the number
+     * of slots invalidated; on the first call that is every slot.
+     */
+    public int checkVersions(Map<String, Long> versions) {
+        int changed = 0;
+        synchronized (dbVersions) {
+            for (Map.Entry<String, Long> e : versions.entrySet()) {
+                Long seen = dbVersions.get(e.getKey());
+                if (seen != null && e.getValue() <= seen) continue;
+                dbVersions.put(e.getKey(), e.getValue());
+                invalidate(e.getKey());
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /** Size counts stale entries that have not been looked up or evicted yet. */
+    public Stats stats() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size, maxSize);
+    }
+
+    private void invalidate(String examSlotId) {
+        generation.incrementAndGet();
+        slotGenerations.merge(examSlotId, 1L, Long::sum);
+    }
+
+    private Stripe stripe(String studentId) {
+        int h = studentId.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private Cached cached(AllocationRecord rec) {
+        return new Cached(rec, rec == NO_SEAT ? generation.get() : slotGeneration(rec.getExamSlotId()));
+    }
+
+    private boolean current(Cached cached) {
+        return cached.generation == (cached.rec == NO_SEAT ? generation.get() : slotGeneration(cached.rec.getExamSlotId()));
+    }
+
+    private long slotGeneration(String examSlotId) {
+        return examSlotId == null ? 0 : slotGenerations.getOrDefault(examSlotId, 0L);
+    }
+
+    // a record and the generation it was cached under
+    private static final class Cached {
+        final AllocationRecord rec;
+        final long generation;
+
+        Cached(AllocationRecord rec, long generation) {
+            this.rec = rec;
+            this.generation = generation;
+        }
+    }
+
+    // one access-ordered LRU stripe
+    private final class Stripe extends LinkedHashMap<String, Cached> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+            if (size() <= capacity) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless seat lookup over HTTP, for students checking their seat from a phone.
+ *
+ *   GET /seat/{studentId}                  one student's seat (through the shared seat cache)
+ *   GET /slot/{examSlotId}/room/{roomId}   everyone seated in a room for a slot, in seat order
+ *
+ * When the database cannot be read, both are answered from the slots' binary snapshots.
+ * Responses are JSON. Each request runs on its own virtual thread when the JVM has them
+ * (Java 21+); older JVMs fall back to a fixed pool sized by -Dseatwise.http.threads.
+ */
+public class SeatLookupServer {
+    private static final int ROOM_PAGE = 1_000;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public SeatLookupServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), Integer.getInteger("seatwise.http.backlog", 1024));
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/seat/", this::handleSeat);
+        server.createContext("/slot/", this::handleRoom);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /** Stops accepting requests, waits up to delaySeconds for in-flight ones, then releases threads. */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            // no virtual threads on this JVM; lookups are short and mostly cache hits, so a pool keeps up
+            return Executors.newFixedThreadPool(Integer.getInteger("seatwise.http.threads", 64));
+        }
+    }
+
+    private void handleSeat(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!allowed(exchange)) return;
+            String studentId = exchange.getRequestURI().getPath().substring("/seat/".length());
+            if (studentId.isEmpty() || studentId.contains("/")) {
+                send(exchange, 404, error("Use /seat/{studentId}"));
+                return;
+            }
+            AllocationRecord rec;
+            try {
+                rec = SeatAllocator.lookupSeat(studentId);
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+                send(exchange, 503, error("Database unavailable"));
+                return;
+            }
+            if (rec == null) send(exchange, 404, error("No seat allocated for " + studentId));
+            else send(exchange, 200, seatJson(rec));
+        }
+    }
+
+    private void handleRoom(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!allowed(exchange)) return;
+            // /slot/{examSlotId}/room/{roomId}
+            String[] parts = exchange.getRequestURI().getPath().split("/");
+            if (parts.length != 5 || !parts[3].equals("room") || parts[2].isEmpty() || parts[4].isEmpty()) {
+                send(exchange, 404, error("Use /slot/{examSlotId}/room/{roomId}"));
+                return;
+            }
+            String examSlotId = parts[2], roomId = parts[4];
+            List<AllocationRecord> seats = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                AllocationRecord after = null;
+                while (true) {
+                    List<AllocationRecord> page = AllocationDAO.fetchReportPage(conn, examSlotId, roomId, after, ROOM_PAGE);
+                    seats.addAll(page);
+                    if (page.size() < ROOM_PAGE) break;
+                    after = page.get(page.size() - 1);
+                }
+            } catch (SQLException ex) {
+                // database locked or down: serve the door sheet from the slot's snapshot if there is one
+                SeatSnapshot snapshot = SeatSnapshot.forSlot(examSlotId);
+                if (snapshot == null) {
+                    ex.printStackTrace();
+                    send(exchange, 503, error("Database unavailable"));
+                    return;
+                }
+                seats = snapshot.roomSheet(roomId);
+            }
+            if (seats.isEmpty()) {
+                send(exchange, 404, error("No allocations for room " + roomId + " in " + examSlotId));
+                return;
+            }
+            StringBuilder json = new StringBuilder(64 + seats.size() * 96);
+            json.append("{\"examSlotId\":").append(quote(examSlotId))
+                .append(",\"roomId\":").append(quote(roomId))
+                .append(",\"count\":").append(seats.size())
+                .append(",\"seats\":[");
+            for (int i = 0; i < seats.size(); i++) {
+                if (i > 0) json.append(',');
+                json.append(seatJson(seats.get(i)));
+            }
+            send(exchange, 200, json.append("]}").toString());
+        }
+    }
+
+    private static boolean allowed(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("GET")) return true;
+        exchange.getResponseHeaders().set("Allow", "GET");
+        send(exchange, 405, error("Only GET is supported"));
+        return false;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    static String seatJson(AllocationRecord rec) {
+        return "{\"studentId\":" + quote(rec.getStudentId())
+                + ",\"name\":" + quote(rec.getStudentName())
+                + ",\"branch\":" + quote(rec.getBranch())
+                + ",\"roomId\":" + quote(rec.getRoomId())
+                + ",\"seatNo\":" + rec.getSeatNo()
+                + ",\"examSlotId\":" + quote(rec.getExamSlotId()) + "}";
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    static String quote(String s) {
+        if (s == null) return "null";
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("seatwise.http.port", 8080);
+        SeatLookupServer lookup = new SeatLookupServer(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            lookup.stop(1);
+            DatabaseConnection.shutdown();
+        }));
+        lookup.start();
+        System.out.println("Seat lookup listening on port " + lookup.port());
+    }
+}
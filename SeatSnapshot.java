@@ -0,0 +1,389 @@
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.zip.CRC32;
+
+/**
+ * Read-only binary seat map of one exam slot, written after the slot's allocation commits so
+ * lookups and door sheets keep working while the database is locked or unavailable.
+ *
+ * Layout (big-endian): header {magic, version, count, idChars, roomCount, roomChars, createdMillis,
+ * slotChars, slot id}, then the room id table, then count records sorted by student id, each
+ * {student id as idChars UTF-16 units padded with 0, room index int, seat number int}, then a CRC32
+ * of everything before it. Ids are fixed-width UTF-16 so a lookup binary-searches the mapped file
+ * comparing chars in place, without allocating. Files are written to a temp name and renamed over
+ * the old one, so readers see either the previous snapshot or the complete new one. A snapshot this
+ * process still has mapped is unmapped first (Windows cannot replace a mapped file); reads of it
+ * after that go to the file's current snapshot.
+ */
+public class SeatSnapshot implements AutoCloseable {
+    private static final int MAGIC = 0x53575353; // "SWSS"
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".seatmap";
+
+    private final Path path;
+    private final Stamp stamp;
+    private final MappedByteBuffer buf;
+    private final StampedLock lock = new StampedLock(); // read: a lookup is using buf; write: unmapping it
+    private boolean closed; // guarded by lock
+    private final String examSlotId;
+    private final int count;
+    private final int idChars;
+    private final int recordSize;
+    private final int recordsStart;
+    private final String[] roomIds;
+    private final long createdMillis;
+
+    private SeatSnapshot(Path path, Stamp stamp, MappedByteBuffer buf) throws IOException {
+        this.path = path;
+        this.stamp = stamp;
+        this.buf = buf;
+        if (buf.capacity() < 40 || buf.getInt(0) != MAGIC) throw new IOException(path + " is not a seat snapshot");
+        int version = buf.getInt(4);
+        if (version != VERSION) throw new IOException(path + " has snapshot version " + version + ", expected " + VERSION);
+        count = buf.getInt(8);
+        idChars = buf.getInt(12);
+        int roomCount = buf.getInt(16);
+        int roomChars = buf.getInt(20);
+        createdMillis = buf.getLong(24);
+        int slotChars = buf.getInt(32);
+        int pos = 36;
+        examSlotId = readChars(buf, pos, slotChars);
+        pos += slotChars * 2;
+        roomIds = new String[roomCount];
+        for (int r = 0; r < roomCount; r++, pos += roomChars * 2) roomIds[r] = readChars(buf, pos, roomChars);
+        recordsStart = pos;
+        recordSize = idChars * 2 + 8;
+
+        long end = (long) recordsStart + (long) count * recordSize;
+        if (end + 8 != buf.capacity()) throw new IOException(path + " is truncated or has trailing data");
+        CRC32 crc = new CRC32();
+        crc.update(buf.duplicate().position(0).limit((int) end));
+        if (crc.getValue() != buf.getLong((int) end)) throw new IOException(path + " failed its checksum");
+    }
+
+    /** Maps an existing snapshot file and validates its header and checksum. */
+    public static SeatSnapshot open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            Stamp stamp = Stamp.of(file);
+            // the mapping stays valid after the channel closes, until close()
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            try {
+                return new SeatSnapshot(file, stamp, buf);
+            } catch (IOException ex) {
+                unmap(buf);
+                throw ex;
+            }
+        }
+    }
+
+    /** Unmaps the file once running lookups finish; later lookups read the file's current snapshot. */
+    @Override
+    public void close() {
+        long w = lock.writeLock();
+        try {
+            if (closed) return;
+            closed = true;
+            unmap(buf);
+        } finally {
+            lock.unlockWrite(w);
+        }
+    }
+
+    public String examSlotId() { return examSlotId; }
+    public int size() { return count; }
+    public long createdMillis() { return createdMillis; }
+
+    // record index of the student, or -1; allocation-free
+    private int find(String studentId) {
+        if (studentId.length() > idChars) return -1;
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareId(mid, studentId);
+            if (cmp < 0) lo = mid + 1;
+            else if (cmp > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    private String roomId(int record) { return roomIds[buf.getInt(recordsStart + record * recordSize + idChars * 2)]; }
+    private int seatNo(int record) { return buf.getInt(recordsStart + record * recordSize + idChars * 2 + 4); }
+
+    private String studentId(int record) {
+        return readChars(buf, recordsStart + record * recordSize, idChars);
+    }
+
+    /** Seat of the student as a record (name and branch are not stored), or null. */
+    public AllocationRecord lookup(String studentId) {
+        long r = lock.readLock();
+        try {
+            if (!closed) {
+                int i = find(studentId);
+                return i < 0 ? null : new AllocationRecord(studentId, null, null, roomId(i), seatNo(i), examSlotId);
+            }
+        } finally {
+            lock.unlockRead(r);
+        }
+        SeatSnapshot replacement = current(path);
+        return replacement == null ? null : replacement.lookup(studentId);
+    }
+
+    /** Everyone seated in the room, in seat order; the door sheet for the room. */
+    public List<AllocationRecord> roomSheet(String roomId) {
+        List<AllocationRecord> sheet = new ArrayList<>();
+        long r = lock.readLock();
+        try {
+            if (!closed) {
+                int room = Arrays.asList(roomIds).indexOf(roomId);
+                if (room < 0) return sheet;
+                for (int i = 0; i < count; i++) {
+                    if (buf.getInt(recordsStart + i * recordSize + idChars * 2) == room) {
+                        sheet.add(new AllocationRecord(studentId(i), null, null, roomId, seatNo(i), examSlotId));
+                    }
+                }
+                sheet.sort(Comparator.comparingInt(AllocationRecord::getSeatNo));
+                return sheet;
+            }
+        } finally {
+            lock.unlockRead(r);
+        }
+        SeatSnapshot replacement = current(path);
+        return replacement == null ? sheet : replacement.roomSheet(roomId);
+    }
+
+    // signed like String.compareTo: record id (0-padded) versus the key
+    private int compareId(int record, String key) {
+        int base = recordsStart + record * recordSize;
+        int len = key.length();
+        for (int k = 0; k < idChars; k++) {
+            char a = buf.getChar(base + k * 2);
+            char b = k < len ? key.charAt(k) : 0;
+            if (a != b) return a - b;
+            if (a == 0) return 0;
+        }
+        return 0;
+    }
+
+    private static String readChars(ByteBuffer buf, int pos, int chars) {
+        StringBuilder sb = new StringBuilder(chars);
+        for (int k = 0; k < chars; k++) {
+            char c = buf.getChar(pos + k * 2);
+            if (c == 0) break;
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    // ------------------- Writing -------------------
+
+    /** Directory holding one snapshot per slot (-Dseatwise.snapshot.dir, default data/snapshots). */
+    public static Path directory() {
+        return Paths.get(System.getProperty("seatwise.snapshot.dir", "data/snapshots"));
+    }
+
+    static Path fileFor(Path dir, String examSlotId) {
+        return dir.resolve(safeName(examSlotId) + SUFFIX);
+    }
+
+    /**
+     * An id as a file name: letters, digits, '.' and '-' are kept (a leading '.' too is escaped) and
+     * every other char becomes _xxxx, its UTF-16 code in hex. Distinct ids get distinct names:
+     * "EX/01" is EX_002f01 and "EX_01" is EX_005f01.
+     */
+    static String safeName(String id) {
+        StringBuilder name = new StringBuilder(id.length() + 8);
+        for (int k = 0; k < id.length(); k++) {
+            char c = id.charAt(k);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || (c == '.' && k > 0)) {
+                name.append(c);
+            } else {
+                name.append('_').append(String.format("%04x", (int) c));
+            }
+        }
+        return name.toString();
+    }
+
+    /** Writes the slot's snapshot into dir, atomically replacing any previous one. Returns the file. */
+    public static Path write(Path dir, String examSlotId, List<AllocationRecord> allocations) throws IOException {
+        Files.createDirectories(dir);
+        AllocationRecord[] sorted = allocations.toArray(new AllocationRecord[0]);
+        Arrays.sort(sorted, Comparator.comparing(AllocationRecord::getStudentId));
+
+        Map<String, Integer> roomIndex = new LinkedHashMap<>();
+        int idChars = 1, roomChars = 1;
+        for (AllocationRecord rec : sorted) {
+            idChars = Math.max(idChars, rec.getStudentId().length());
+            roomIndex.putIfAbsent(rec.getRoomId(), roomIndex.size());
+            roomChars = Math.max(roomChars, rec.getRoomId().length());
+        }
+
+        // whole file built in memory (ids are a few bytes each), checksummed, then written in one go
+        int size = 36 + examSlotId.length() * 2 + roomIndex.size() * roomChars * 2 + sorted.length * (idChars * 2 + 8) + 8;
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC).putInt(VERSION).putInt(sorted.length).putInt(idChars)
+           .putInt(roomIndex.size()).putInt(roomChars).putLong(System.currentTimeMillis())
+           .putInt(examSlotId.length());
+        putChars(out, examSlotId, examSlotId.length());
+        for (String room : roomIndex.keySet()) putChars(out, room, roomChars);
+        for (AllocationRecord rec : sorted) {
+            putChars(out, rec.getStudentId(), idChars);
+            out.putInt(roomIndex.get(rec.getRoomId())).putInt(rec.getSeatNo());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), 0, out.position());
+        out.putLong(crc.getValue());
+        out.flip();
+
+        Path target = fileFor(dir, examSlotId);
+        Path tmp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) ch.write(out);
+                ch.force(true);
+            }
+            synchronized (OPEN) { // no lookup maps the old file between the unmap and the move
+                SeatSnapshot old = OPEN.remove(target);
+                if (old != null) old.close();
+                try {
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return target;
+    }
+
+    private static void putChars(ByteBuffer out, String s, int width) {
+        for (int k = 0; k < width; k++) out.putChar(k < s.length() ? s.charAt(k) : 0);
+    }
+
+    // ------------------- Fallback lookups -------------------
+
+    // open snapshots by file; remapped when the file is replaced, by this process or another one
+    private static final Map<Path, SeatSnapshot> OPEN = new ConcurrentHashMap<>();
+
+    /** Current snapshot of the slot from the snapshot directory, or null if there is none. */
+    public static SeatSnapshot forSlot(String examSlotId) {
+        return current(fileFor(directory(), examSlotId));
+    }
+
+    /** Seat of the student from any slot's snapshot (first slot by file name), or null. */
+    public static AllocationRecord lookupAny(String studentId) {
+        Path dir = directory();
+        if (!Files.isDirectory(dir)) return null;
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path p : stream) files.add(p);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+        Collections.sort(files);
+        for (Path file : files) {
+            SeatSnapshot snap = current(file);
+            AllocationRecord rec = snap == null ? null : snap.lookup(studentId);
+            if (rec != null) return rec;
+        }
+        return null;
+    }
+
+    private static SeatSnapshot current(Path file) {
+        try {
+            if (!Files.exists(file)) return null;
+            SeatSnapshot snap = OPEN.get(file);
+            if (snap != null && snap.stamp.equals(Stamp.of(file))) return snap;
+            synchronized (OPEN) {
+                snap = OPEN.get(file);
+                Stamp now = Stamp.of(file);
+                if (snap != null && snap.stamp.equals(now)) return snap;
+                SeatSnapshot fresh = open(file);
+                OPEN.put(file, fresh);
+                if (snap != null) snap.close();
+                return fresh;
+            }
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    // identity of a file's contents: a rename over it changes the file key, and a rewrite within the
+    // clock's resolution still changes the size or, failing that, the modified time
+    private static final class Stamp {
+        final Object fileKey; // null where the file system has none
+        final long size;
+        final FileTime modified;
+
+        Stamp(Object fileKey, long size, FileTime modified) {
+            this.fileKey = fileKey;
+            this.size = size;
+            this.modified = modified;
+        }
+
+        static Stamp of(Path file) throws IOException {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            return new Stamp(attrs.fileKey(), attrs.size(), attrs.lastModifiedTime());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Stamp)) return false;
+            Stamp other = (Stamp) o;
+            return Objects.equals(fileKey, other.fileKey) && size == other.size && modified.equals(other.modified);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileKey, size, modified);
+        }
+    }
+
+    // ------------------- Unmapping -------------------
+
+    // sun.misc.Unsafe.invokeCleaner (jdk.unsupported), looked up once; null leaves unmapping to the GC
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    // callers guarantee nothing reads buf afterwards
+    private static void unmap(MappedByteBuffer buf) {
+        if (INVOKE_CLEANER == null) return;
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buf);
+        } catch (ReflectiveOperationException ex) {
+            ex.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Printable seating charts of one exam slot, two HTML files per room under &lt;dir&gt;/&lt;slot&gt;/:
+ * "&lt;room&gt;-door.html" lists the students by id for the door, "&lt;room&gt;-invigilator.html"
+ * shows the seats (as the room's row/column grid when it has one) for the invigilator.
+ *
+ * The slot is read once, in room and seat order. Each room is handed to a worker as soon as its
+ * last seat has been read, and the reader waits while every worker is busy, so at most one room
+ * per worker (plus the one being read) is in memory. Workers render straight into the files.
+ */
+public class SeatingChartExporter {
+    static final int THREADS = Integer.getInteger("seatwise.charts.threads", Runtime.getRuntime().availableProcessors());
+
+    public static class ExportResult {
+        public final int rooms;
+        public final long seats;
+        public final Path directory;
+        public final long millis;
+
+        public ExportResult(int rooms, long seats, Path directory, long millis) {
+            this.rooms = rooms;
+            this.seats = seats;
+            this.directory = directory;
+            this.millis = millis;
+        }
+    }
+
+    public static ExportResult exportSlot(String examSlotId, Path dir) throws SQLException, IOException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return exportSlot(conn, examSlotId, dir);
+        }
+    }
+
+    public static ExportResult exportSlot(Connection conn, String examSlotId, Path dir) throws SQLException, IOException {
+        long start = System.nanoTime();
+        Path out = Files.createDirectories(dir.resolve(fileName(examSlotId)));
+        Map<String, SeatAllocator.RoomInfo> rooms = new HashMap<>();
+        for (SeatAllocator.RoomInfo r : SeatAllocator.fetchAllRooms(conn)) rooms.put(r.roomId, r);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS, r -> {
+            Thread th = new Thread(r, "seating-chart");
+            th.setDaemon(true);
+            return th;
+        });
+        Dispatcher rows = new Dispatcher(pool, out, examSlotId, rooms);
+        try {
+            long seats = AllocationDAO.streamSlotAllocations(conn, examSlotId, rows);
+            rows.flush();
+            for (Future<?> chart : rows.charts) chart.get();
+            return new ExportResult(rows.charts.size(), seats, out, (System.nanoTime() - start) / 1_000_000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Seating chart export interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) throw (IOException) ex.getCause();
+            throw new IOException("Seating chart export failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Collects the rows of the room being read and hands each finished room to a worker
+    private static class Dispatcher implements AllocationDAO.RowHandler {
+        final ExecutorService pool;
+        final Semaphore free = new Semaphore(THREADS);
+        final Path out;
+        final String examSlotId;
+        final Map<String, SeatAllocator.RoomInfo> rooms;
+        final List<Future<?>> charts = new ArrayList<>();
+        List<AllocationRecord> room = new ArrayList<>();
+
+        Dispatcher(ExecutorService pool, Path out, String examSlotId, Map<String, SeatAllocator.RoomInfo> rooms) {
+            this.pool = pool;
+            this.out = out;
+            this.examSlotId = examSlotId;
+            this.rooms = rooms;
+        }
+
+        @Override
+        public void row(AllocationRecord r) throws IOException {
+            if (!room.isEmpty() && !room.get(0).getRoomId().equals(r.getRoomId())) flush();
+            room.add(r);
+        }
+
+        // blocks the reader until a worker is free, so finished rooms never pile up in memory
+        void flush() throws IOException {
+            if (room.isEmpty()) return;
+            try {
+                free.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Seating chart export interrupted", ex);
+            }
+            List<AllocationRecord> seats = room;
+            room = new ArrayList<>(seats.size());
+            String roomId = seats.get(0).getRoomId();
+            SeatAllocator.RoomInfo info = rooms.get(roomId);
+            charts.add(pool.submit(() -> {
+                try {
+                    String base = fileName(roomId);
+                    try (Writer w = Files.newBufferedWriter(out.resolve(base + "-invigilator.html"), StandardCharsets.UTF_8)) {
+                        writeInvigilatorChart(w, examSlotId, roomId, info, seats);
+                    }
+                    try (Writer w = Files.newBufferedWriter(out.resolve(base + "-door.html"), StandardCharsets.UTF_8)) {
+                        writeDoorList(w, examSlotId, roomId, seats);
+                    }
+                    return null;
+                } finally {
+                    free.release();
+                }
+            }));
+        }
+    }
+
+    /** Seats in seat order; rooms with row/column geometry are drawn as their grid, front row first. */
+    static void writeInvigilatorChart(Writer w, String examSlotId, String roomId, SeatAllocator.RoomInfo info,
+                                      List<AllocationRecord> seats) throws IOException {
+        header(w, "Room " + roomId + " - " + examSlotId + " - seating chart (" + seats.size() + " students)");
+        if (info != null && info.hasGeometry()) {
+            AllocationRecord[] bySeat = new AllocationRecord[info.rows * info.cols + 1];
+            for (AllocationRecord r : seats) {
+                if (r.getSeatNo() < bySeat.length) bySeat[r.getSeatNo()] = r;
+            }
+            w.write("<table class=\"grid\">\n");
+            for (int row = 0; row < info.rows; row++) {
+                w.write("<tr>");
+                for (int col = 0; col < info.cols; col++) {
+                    int seat = row * info.cols + col + 1;
+                    AllocationRecord r = bySeat[seat];
+                    if (r == null) {
+                        w.write("<td class=\"empty\">" + seat + "</td>");
+                    } else {
+                        w.write("<td><b>" + seat + "</b><br>" + html(r.getStudentId()) + "<br>" + html(r.getStudentName())
+                                + "<br><i>" + html(r.getBranch()) + "</i></td>");
+                    }
+                }
+                w.write("</tr>\n");
+            }
+        } else {
+            w.write("<table>\n<tr><th>Seat</th><th>Student ID</th><th>Name</th><th>Branch</th></tr>\n");
+            for (AllocationRecord r : seats) {
+                w.write("<tr><td>" + r.getSeatNo() + "</td><td>" + html(r.getStudentId()) + "</td><td>"
+                        + html(r.getStudentName()) + "</td><td>" + html(r.getBranch()) + "</td></tr>\n");
+            }
+        }
+        w.write("</table>\n</body>\n</html>\n");
+    }
+
+    /** Students by id, so each can find their seat at the door. */
+    static void writeDoorList(Writer w, String examSlotId, String roomId, List<AllocationRecord> seats) throws IOException {
+        List<AllocationRecord> byId = new ArrayList<>(seats);
+        byId.sort(Comparator.comparing(AllocationRecord::getStudentId));
+        header(w, "Room " + roomId + " - " + examSlotId + " - students " + byId.get(0).getStudentId()
+                + " to " + byId.get(byId.size() - 1).getStudentId());
+        w.write("<table>\n<tr><th>Student ID</th><th>Name</th><th>Seat</th></tr>\n");
+        for (AllocationRecord r : byId) {
+            w.write("<tr><td>" + html(r.getStudentId()) + "</td><td>" + html(r.getStudentName()) + "</td><td>"
+                    + r.getSeatNo() + "</td></tr>\n");
+        }
+        w.write("</table>\n</body>\n</html>\n");
+    }
+
+    private static void header(Writer w, String title) throws IOException {
+        w.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>" + html(title) + "</title>\n"
+                + "<style>body{font-family:sans-serif}table{border-collapse:collapse}td,th{border:1px solid #444;"
+                + "padding:4px 8px;font-size:11px;vertical-align:top}.grid td{width:7em;height:4.5em}"
+                + ".empty{color:#aaa}</style>\n</head>\n<body>\n<h2>" + html(title) + "</h2>\n");
+    }
+
+    private static String html(String s) {
+        if (s == null) return "";
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String rep = c == '<' ? "&lt;" : c == '>' ? "&gt;" : c == '&' ? "&amp;" : c == '"' ? "&quot;" : null;
+            if (rep != null && sb == null) sb = new StringBuilder(s.length() + 16).append(s, 0, i);
+            if (sb != null) {
+                if (rep != null) sb.append(rep);
+                else sb.append(c);
+            }
+        }
+        return sb == null ? s : sb.toString();
+    }
+
+    // room and slot ids come from uploaded CSVs; keep them from escaping the export directory, and
+    // escape them reversibly so two rooms never write the same file (R1.A and R1_A, LAB 2 and LAB_2)
+    private static String fileName(String id) {
+        return SeatSnapshot.safeName(id);
+    }
+}
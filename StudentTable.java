@@ -0,0 +1,76 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Students of one allocation run held column-wise: ids and names as parallel arrays, branch as
+ * an interned int code. The allocator core works on student indices and branch codes only;
+ * strings are read back when AllocationRecords are built for persistence and reporting.
+ */
+public class StudentTable {
+    private String[] ids;
+    private String[] names;
+    private int[] branch;
+    private int size;
+
+    private final Map<String, Integer> branchCodes = new HashMap<>();
+    private String[] branchNames = new String[8];
+
+    public StudentTable() {
+        this(1024);
+    }
+
+    public StudentTable(int initialCapacity) {
+        int cap = Math.max(16, initialCapacity);
+        ids = new String[cap];
+        names = new String[cap];
+        branch = new int[cap];
+    }
+
+    public void add(String id, String name, String branchName) {
+        if (size == ids.length) {
+            int cap = size * 2;
+            ids = Arrays.copyOf(ids, cap);
+            names = Arrays.copyOf(names, cap);
+            branch = Arrays.copyOf(branch, cap);
+        }
+        ids[size] = id;
+        names[size] = name;
+        branch[size] = intern(branchName);
+        size++;
+    }
+
+    /** Code for a branch name, assigning the next code on first sight. */
+    public int intern(String branchName) {
+        Integer code = branchCodes.get(branchName);
+        if (code == null) {
+            code = branchCodes.size();
+            branchCodes.put(branchName, code);
+            if (code == branchNames.length) branchNames = Arrays.copyOf(branchNames, code * 2);
+            branchNames[code] = branchName;
+        }
+        return code;
+    }
+
+    public int size() { return size; }
+    public int branchCount() { return branchCodes.size(); }
+
+    public String id(int student) { return ids[student]; }
+    public String name(int student) { return names[student]; }
+    public int branch(int student) { return branch[student]; }
+    public String branchName(int code) { return branchNames[code]; }
+
+    /** Backing branch-code column; valid for indices below size(). */
+    int[] branchColumn() { return branch; }
+
+    /** Number of students per branch code. */
+    public int[] branchCounts() {
+        int[] counts = new int[branchCount()];
+        for (int i = 0; i < size; i++) counts[branch[i]]++;
+        return counts;
+    }
+
+    public AllocationRecord toRecord(int student, String roomId, int seatNo, String examSlotId) {
+        return new AllocationRecord(ids[student], names[student], branchNames[branch[student]], roomId, seatNo, examSlotId);
+    }
+}
@@ -0,0 +1,216 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Repairs same-branch adjacency in a seat layout by swapping seats with other rooms.
+ *
+ * Seats are addressed by a global index; each room is the contiguous range
+ * [roomStart[r], roomStart[r+1]). For every branch that shows a violation, an index of
+ * "acceptor" seats is built once per room: seats of another branch whose neighbours are not
+ * of that branch, bucketed by room and by the acceptor's own branch, plus a stack of the
+ * rooms whose bucket may still hold one. A swap partner is then a pop from another room's
+ * bucket instead of a walk over every other room; like the original scan, partners never
+ * come from the violation's own room. Entries are validated when popped and re-pushed when
+ * a swap changes a neighbourhood, so the index never has to be rebuilt.
+ */
+public class SwapRepairEngine {
+    private final int[] branch;     // branch code of the student currently in each seat
+    private final int[] slot;       // original seat index of the student currently in each seat
+    private final int[] roomOf;
+    private final int[] roomStart;
+    private final int branchCount;
+    private final int roomCount;
+
+    // acceptors[target][room * branchCount + donor]: seats of the room holding branch 'donor' that
+    // could take a 'target' student (null until one is pushed)
+    private final IntStack[][] acceptors;
+    // roomsWith[target][donor]: rooms whose (target, donor) bucket may be non-empty, lowest on top;
+    // queued[target][donor * roomCount + room] marks the rooms on that stack
+    private final IntStack[][] roomsWith;
+    private final boolean[][] queued;
+    private final List<Integer> indexedBranches = new ArrayList<>();
+    private int swapsAttempted;
+    private int swapsMade;
+
+    /**
+     * @param branch      branch code per seat (0 .. branchCount-1); modified in place by swaps
+     * @param roomStart   room boundaries, length rooms+1, last entry equal to branch.length
+     * @param branchCount number of distinct branch codes
+     */
+    public SwapRepairEngine(int[] branch, int[] roomStart, int branchCount) {
+        this.branch = branch;
+        this.roomStart = roomStart;
+        this.branchCount = branchCount;
+        this.roomCount = roomStart.length - 1;
+        this.slot = new int[branch.length];
+        this.roomOf = new int[branch.length];
+        for (int g = 0; g < branch.length; g++) slot[g] = g;
+        for (int r = 0; r + 1 < roomStart.length; r++) {
+            Arrays.fill(roomOf, roomStart[r], roomStart[r + 1], r);
+        }
+        this.acceptors = new IntStack[branchCount][];
+        this.roomsWith = new IntStack[branchCount][];
+        this.queued = new boolean[branchCount][];
+    }
+
+    /**
+     * Walks every room in order and, for each seat whose left neighbour has the same branch,
+     * swaps in a student from a seat in another room that keeps both neighbourhoods clean.
+     * Returns the adjacency violations left in the layout afterwards, counted again rather than
+     * tallied during the walk: a later swap can clear a pair that had no partner when it was seen.
+     */
+    public int repair() {
+        for (int r = 0; r < roomCount; r++) {
+            for (int g = roomStart[r] + 1; g < roomStart[r + 1]; g++) {
+                if (branch[g] != branch[g - 1]) continue;
+                swapsAttempted++;
+                int h = findPartner(g);
+                if (h >= 0) {
+                    swap(g, h);
+                    swapsMade++;
+                }
+            }
+        }
+        return violations();
+    }
+
+    /** Adjacent same-branch pairs in the current layout. */
+    public int violations() {
+        int violations = 0;
+        for (int r = 0; r < roomCount; r++) {
+            for (int g = roomStart[r] + 1; g < roomStart[r + 1]; g++) {
+                if (branch[g] == branch[g - 1]) violations++;
+            }
+        }
+        return violations;
+    }
+
+    /** Adjacent same-branch pairs the last repair() looked for a partner for. */
+    public int swapsAttempted() {
+        return swapsAttempted;
+    }
+
+    /** Swaps the last repair() performed. */
+    public int swapsMade() {
+        return swapsMade;
+    }
+
+    /**
+     * Permutation produced by the repair: slots()[g] is the original seat index of the
+     * student who now sits in seat g.
+     */
+    public int[] slots() {
+        return slot;
+    }
+
+    private int findPartner(int g) {
+        int target = branch[g];
+        int room = roomOf[g];
+        int left = branchAt(neighbour(g, -1));
+        int right = branchAt(neighbour(g, 1));
+        if (acceptors[target] == null) buildIndex(target);
+
+        for (int donor = 0; donor < branchCount; donor++) {
+            if (donor == target || donor == left || donor == right) continue;
+            IntStack rooms = roomsWith[target][donor];
+            boolean ownRoom = false;
+            int found = -1;
+            while (found < 0 && !rooms.isEmpty()) {
+                int r = rooms.pop();
+                if (r == room) {
+                    ownRoom = true; // set aside, it stays indexed for violations in other rooms
+                    continue;
+                }
+                found = popAcceptor(target, r, donor);
+                if (found >= 0) rooms.push(r); // the room may hold more
+                else queued[target][donor * roomCount + r] = false;
+            }
+            if (ownRoom) rooms.push(room);
+            if (found >= 0) return found;
+        }
+        return -1;
+    }
+
+    private int popAcceptor(int target, int room, int donor) {
+        IntStack candidates = acceptors[target][room * branchCount + donor];
+        while (candidates != null && !candidates.isEmpty()) {
+            int h = candidates.pop();
+            // stale entries (seat changed branch or gained a 'target' neighbour) are dropped
+            if (branch[h] == donor && accepts(h, target)) return h;
+        }
+        return -1;
+    }
+
+    private void buildIndex(int target) {
+        acceptors[target] = new IntStack[roomCount * branchCount];
+        roomsWith[target] = new IntStack[branchCount];
+        for (int c = 0; c < branchCount; c++) roomsWith[target][c] = new IntStack();
+        queued[target] = new boolean[branchCount * roomCount];
+        // push in reverse so the lowest room and seat index are popped first
+        for (int s = branch.length - 1; s >= 0; s--) {
+            if (accepts(s, target)) push(target, s);
+        }
+        indexedBranches.add(target);
+    }
+
+    private void push(int target, int s) {
+        int room = roomOf[s], donor = branch[s];
+        int bucket = room * branchCount + donor;
+        if (acceptors[target][bucket] == null) acceptors[target][bucket] = new IntStack();
+        acceptors[target][bucket].push(s);
+        if (!queued[target][donor * roomCount + room]) {
+            queued[target][donor * roomCount + room] = true;
+            roomsWith[target][donor].push(room);
+        }
+    }
+
+    private void swap(int g, int h) {
+        int b = branch[g]; branch[g] = branch[h]; branch[h] = b;
+        int s = slot[g]; slot[g] = slot[h]; slot[h] = s;
+
+        // only the two seats and their neighbours can have changed acceptor status
+        for (int target : indexedBranches) {
+            reindex(neighbour(g, -1), target);
+            reindex(g, target);
+            reindex(neighbour(g, 1), target);
+            reindex(neighbour(h, -1), target);
+            reindex(h, target);
+            reindex(neighbour(h, 1), target);
+        }
+    }
+
+    private void reindex(int s, int target) {
+        if (s >= 0 && accepts(s, target)) push(target, s);
+    }
+
+    private boolean accepts(int s, int target) {
+        return branch[s] != target
+                && branchAt(neighbour(s, -1)) != target
+                && branchAt(neighbour(s, 1)) != target;
+    }
+
+    private int neighbour(int g, int dir) {
+        int n = g + dir;
+        if (n < 0 || n >= branch.length || roomOf[n] != roomOf[g]) return -1;
+        return n;
+    }
+
+    private int branchAt(int g) {
+        return g < 0 ? -1 : branch[g];
+    }
+
+    private static final class IntStack {
+        private int[] items = new int[8];
+        private int size;
+
+        void push(int v) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = v;
+        }
+
+        int pop() { return items[--size]; }
+
+        boolean isEmpty() { return size == 0; }
+    }
+}
@@ -0,0 +1,309 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Capacity planning without the database: "what if rooms R12-R20 are closed?", "what if CSE grows 15%?".
+ *
+ * A slot's students and all rooms are read once into a {@link Snapshot} that is never modified.
+ * Each {@link Scenario} derives its own room list (and, when enrollment changes, its own student
+ * table) from the snapshot and runs the allocator's seating step on it, the same rules as a real
+ * allocation (backup rooms only when the normal rooms are short, then the configured strategy).
+ * Scenarios run in parallel on -Dseatwise.whatif.threads workers (default: all cores); nothing is written.
+ */
+public class WhatIfPlanner {
+    static final int THREADS = Integer.getInteger("seatwise.whatif.threads", Runtime.getRuntime().availableProcessors());
+
+    /** One slot's students and every room, as they were when loaded. */
+    public static final class Snapshot {
+        public final String examSlotId;
+        public final List<String> warnings; // from loading the slot's students
+        final StudentTable students;
+        final List<SeatAllocator.RoomInfo> rooms;
+
+        Snapshot(String examSlotId, StudentTable students, List<SeatAllocator.RoomInfo> rooms, List<String> warnings) {
+            this.examSlotId = examSlotId;
+            this.students = students;
+            this.rooms = Collections.unmodifiableList(rooms);
+            this.warnings = Collections.unmodifiableList(warnings);
+        }
+
+        public int studentCount() { return students.size(); }
+        public int roomCount() { return rooms.size(); }
+
+        public List<String> branches() {
+            List<String> names = new ArrayList<>();
+            for (int b = 0; b < students.branchCount(); b++) names.add(students.branchName(b));
+            return names;
+        }
+    }
+
+    /**
+     * Changes to the snapshot for one scenario. Written one per line as
+     * "close R12; close R12-R20; grow CSE 15%; grow ME -10%; add HALL1 300; add GYM 500 backup";
+     * an empty line or "baseline" is the snapshot unchanged.
+     */
+    public static class Scenario {
+        public final String name;
+        public final Set<String> closedRooms = new LinkedHashSet<>();
+        public final List<String[]> closedRanges = new ArrayList<>(); // {first, last}, same prefix, numbered
+        public final Map<String, Double> branchGrowthPercent = new LinkedHashMap<>();
+        final List<SeatAllocator.RoomInfo> addedRooms = new ArrayList<>();
+
+        public Scenario(String name) {
+            this.name = name;
+        }
+
+        public Scenario closeRoom(String roomId) { closedRooms.add(roomId); return this; }
+        public Scenario closeRooms(String first, String last) { closedRanges.add(new String[]{first, last}); return this; }
+        public Scenario growBranch(String branch, double percent) { branchGrowthPercent.merge(branch, percent, Double::sum); return this; }
+        public Scenario addRoom(String roomId, int capacity, boolean backup) {
+            addedRooms.add(new SeatAllocator.RoomInfo(roomId, capacity, backup));
+            return this;
+        }
+
+        /** A scenario line as described above; the line is its name. */
+        public static Scenario parse(String line) {
+            String text = line.trim();
+            Scenario s = new Scenario(text.isEmpty() ? "baseline" : text);
+            for (String change : text.split(";")) {
+                String[] w = change.trim().split("\\s+");
+                if (w[0].isEmpty() || w[0].equalsIgnoreCase("baseline")) continue;
+                try {
+                    if (w[0].equalsIgnoreCase("close") && w.length == 2) {
+                        String[] range = rangeEnds(w[1]);
+                        if (range == null) s.closeRoom(w[1]);
+                        else s.closeRooms(range[0], range[1]);
+                    } else if (w[0].equalsIgnoreCase("grow") && w.length == 3) {
+                        s.growBranch(w[1], Double.parseDouble(w[2].replace("%", "")));
+                    } else if (w[0].equalsIgnoreCase("add") && (w.length == 3 || w.length == 4 && w[3].equalsIgnoreCase("backup"))) {
+                        s.addRoom(w[1], Integer.parseInt(w[2]), w.length == 4);
+                    } else {
+                        throw new IllegalArgumentException("Unknown change \"" + change.trim() + "\"");
+                    }
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Bad number in \"" + change.trim() + "\"");
+                }
+            }
+            return s;
+        }
+    }
+
+    /** What a scenario would come to. */
+    public static class Result {
+        public final String scenario;
+        public final int students;
+        public final int seats;              // capacity of the open rooms, backup rooms included
+        public final int shortfall;          // students without a seat even with every backup room
+        public final int roomsUsed;          // every open room when there is a shortfall
+        public final int backupRoomsUsed;    // every open backup room when there is a shortfall
+        public final int violations;         // same-branch neighbour pairs left
+        public final long computeNanos;
+        public final List<String> warnings;
+
+        Result(String scenario, int students, int seats, int shortfall, int roomsUsed, int backupRoomsUsed,
+               int violations, long computeNanos, List<String> warnings) {
+            this.scenario = scenario;
+            this.students = students;
+            this.seats = seats;
+            this.shortfall = shortfall;
+            this.roomsUsed = roomsUsed;
+            this.backupRoomsUsed = backupRoomsUsed;
+            this.violations = violations;
+            this.computeNanos = computeNanos;
+            this.warnings = warnings;
+        }
+    }
+
+    private final SeatAllocator allocator;
+
+    /** Scenarios are seated with the allocator's strategy and settings. */
+    public WhatIfPlanner(SeatAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    /** Read the slot's students (everyone, while no enrollment is loaded) and the rooms open for it. */
+    public Snapshot load(String examSlotId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            List<String> warnings = new ArrayList<>();
+            StudentTable students = allocator.fetchSlotStudents(conn, examSlotId, warnings);
+            return new Snapshot(examSlotId, students, SeatAllocator.fetchAllRooms(conn, examSlotId), warnings);
+        }
+    }
+
+    /** Evaluate every scenario against the snapshot in parallel; results in scenario order. */
+    public List<Result> run(Snapshot snapshot, List<Scenario> scenarios) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(THREADS, scenarios.size())), r -> {
+            Thread th = new Thread(r, "what-if");
+            th.setDaemon(true);
+            return th;
+        });
+        try {
+            List<Future<Result>> futures = new ArrayList<>(scenarios.size());
+            for (Scenario s : scenarios) futures.add(pool.submit(() -> evaluate(snapshot, s)));
+            List<Result> results = new ArrayList<>(scenarios.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException ex) {
+                    ex.getCause().printStackTrace();
+                    results.add(new Result(scenarios.get(i).name, 0, 0, 0, 0, 0, 0, 0,
+                            Collections.singletonList("Scenario failed: " + ex.getCause())));
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** One scenario on the calling thread. */
+    public Result evaluate(Snapshot snapshot, Scenario scenario) {
+        long start = System.nanoTime();
+        List<String> notes = new ArrayList<>();
+        StudentTable students = scenario.branchGrowthPercent.isEmpty()
+                ? snapshot.students : projected(snapshot.students, scenario.branchGrowthPercent, notes);
+        List<SeatAllocator.RoomInfo> rooms = openRooms(snapshot.rooms, scenario, notes);
+        int seats = 0;
+        Set<String> backupIds = new HashSet<>();
+        for (SeatAllocator.RoomInfo r : rooms) {
+            seats += r.capacity;
+            if (r.isBackup) backupIds.add(r.roomId);
+        }
+
+        SeatAllocator.SlotPlan plan = new SeatAllocator.SlotPlan(snapshot.examSlotId);
+        SeatAllocator.Placement placement = students.size() == 0 ? null : allocator.seat(plan, students, rooms);
+        int roomsUsed = 0, backupUsed = 0;
+        if (placement != null) {
+            roomsUsed = placement.roomIds.length;
+            for (String roomId : placement.roomIds) if (backupIds.contains(roomId)) backupUsed++;
+        } else if (plan.capacityShortfall > 0) {
+            // nothing is seated on a shortfall, but every open room, backups included, would be full
+            roomsUsed = rooms.size();
+            backupUsed = backupIds.size();
+        }
+        notes.addAll(plan.warnings);
+        return new Result(scenario.name, students.size(), seats, plan.capacityShortfall, roomsUsed, backupUsed,
+                placement == null ? 0 : placement.violations, System.nanoTime() - start, notes);
+    }
+
+    /** One scenario per normal room, each closing just that room. */
+    public static List<Scenario> roomClosureSweep(Snapshot snapshot) {
+        List<Scenario> out = new ArrayList<>();
+        for (SeatAllocator.RoomInfo r : snapshot.rooms) {
+            if (!r.isBackup) out.add(new Scenario("close " + r.roomId).closeRoom(r.roomId));
+        }
+        return out;
+    }
+
+    /** One scenario per branch and growth step: step%, 2*step%, ... up to maxPercent. */
+    public static List<Scenario> growthSweep(Snapshot snapshot, int step, int maxPercent) {
+        List<Scenario> out = new ArrayList<>();
+        for (String branch : snapshot.branches()) {
+            for (int p = step; p <= maxPercent; p += step) {
+                out.add(new Scenario("grow " + branch + " " + p + "%").growBranch(branch, p));
+            }
+        }
+        return out;
+    }
+
+    // the snapshot's students with each branch grown (projected students appended) or shrunk (its last students dropped)
+    private static StudentTable projected(StudentTable base, Map<String, Double> growth, List<String> notes) {
+        int[] counts = base.branchCounts();
+        int[] keep = counts.clone();
+        Map<String, Integer> extra = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> g : growth.entrySet()) {
+            int code = branchCode(base, g.getKey());
+            if (code < 0) {
+                notes.add("No students in branch " + g.getKey() + "; growth ignored.");
+                continue;
+            }
+            int delta = (int) Math.round(counts[code] * g.getValue() / 100.0);
+            if (delta >= 0) extra.put(g.getKey(), delta);
+            else keep[code] = Math.max(0, counts[code] + delta);
+        }
+        int total = 0;
+        for (int k : keep) total += k;
+        for (int e : extra.values()) total += e;
+
+        StudentTable table = new StudentTable(total);
+        int[] kept = new int[counts.length];
+        for (int i = 0; i < base.size(); i++) {
+            int b = base.branch(i);
+            if (kept[b]++ < keep[b]) table.add(base.id(i), base.name(i), base.branchName(b));
+        }
+        for (Map.Entry<String, Integer> e : extra.entrySet()) {
+            for (int i = 1; i <= e.getValue(); i++) table.add("WHATIF-" + e.getKey() + "-" + i, "(projected)", e.getKey());
+        }
+        return table;
+    }
+
+    private static int branchCode(StudentTable table, String branch) {
+        for (int b = 0; b < table.branchCount(); b++) {
+            if (table.branchName(b).equals(branch)) return b;
+        }
+        return -1;
+    }
+
+    private static List<SeatAllocator.RoomInfo> openRooms(List<SeatAllocator.RoomInfo> all, Scenario scenario, List<String> notes) {
+        List<SeatAllocator.RoomInfo> open = new ArrayList<>(all.size() + scenario.addedRooms.size());
+        Set<String> known = new HashSet<>();
+        for (SeatAllocator.RoomInfo r : all) {
+            known.add(r.roomId);
+            if (!scenario.closedRooms.contains(r.roomId) && !inClosedRange(r.roomId, scenario.closedRanges)) open.add(r);
+        }
+        for (String id : scenario.closedRooms) {
+            if (!known.contains(id)) notes.add("No room " + id + " to close.");
+        }
+        open.addAll(scenario.addedRooms);
+        return open;
+    }
+
+    private static boolean inClosedRange(String roomId, List<String[]> ranges) {
+        for (String[] range : ranges) {
+            String prefix = prefix(range[0]);
+            if (prefix(roomId).equals(prefix) && roomId.length() > prefix.length()) {
+                String n = roomId.substring(prefix.length());
+                if (compareNumbers(n, range[0].substring(prefix.length())) >= 0
+                        && compareNumbers(n, range[1].substring(prefix.length())) <= 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // numeric order of two digit strings of any length: leading zeros dropped, then shorter is smaller, then lexical
+    private static int compareNumbers(String a, String b) {
+        a = stripZeros(a);
+        b = stripZeros(b);
+        return a.length() != b.length() ? Integer.compare(a.length(), b.length()) : a.compareTo(b);
+    }
+
+    private static String stripZeros(String digits) {
+        int i = 0;
+        while (i < digits.length() - 1 && digits.charAt(i) == '0') i++;
+        return digits.substring(i);
+    }
+
+    // "R12-R20" -> {R12, R20} when both ends are the same prefix plus a number; null for a single room id
+    private static String[] rangeEnds(String text) {
+        int dash = text.indexOf('-');
+        if (dash <= 0 || dash != text.lastIndexOf('-')) return null;
+        String first = text.substring(0, dash), last = text.substring(dash + 1);
+        String prefix = prefix(first);
+        if (prefix.length() == first.length() || !prefix.equals(prefix(last)) || prefix.length() == last.length()) return null;
+        return new String[]{first, last};
+    }
+
+    // the id without its trailing digits
+    private static String prefix(String id) {
+        int end = id.length();
+        while (end > 0 && id.charAt(end - 1) >= '0' && id.charAt(end - 1) <= '9') end--;
+        return id.substring(0, end);
+    }
+}
@@ -0,0 +1,183 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * What-if capacity planner. Scenarios are typed one per line (see WhatIfPlanner.Scenario) or added
+ * as sweeps; Run evaluates them all against the slot's snapshot, which is read from the database
+ * once and reused until the slot changes or Reload is pressed. Click a column header to sort.
+ */
+public class WhatIfPlannerFrame extends JFrame {
+    private final JTextField slotField = new JTextField("EX01", 8);
+    private final JTextArea scenarioArea = new JTextArea("baseline\n", 8, 60);
+    private final JButton closuresButton = new JButton("+ Room Closures");
+    private final JButton growthButton = new JButton("+ Growth 5..50%");
+    private final JButton runButton = new JButton("Run");
+    private final JButton reloadButton = new JButton("Reload Data");
+    private final JLabel statusLabel = new JLabel("Enter scenarios and press Run.");
+    private final ResultModel model = new ResultModel();
+    private final WhatIfPlanner planner = new WhatIfPlanner(plannerAllocator());
+    private WhatIfPlanner.Snapshot snapshot; // EDT only
+
+    public WhatIfPlannerFrame() {
+        setTitle("What-If Planner");
+        setSize(1000, 600);
+        setLayout(new BorderLayout());
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(new JLabel("Exam slot:"));
+        controls.add(slotField);
+        controls.add(closuresButton);
+        controls.add(growthButton);
+        controls.add(runButton);
+        controls.add(reloadButton);
+
+        JPanel top = new JPanel(new BorderLayout());
+        top.add(controls, BorderLayout.NORTH);
+        top.add(new JScrollPane(scenarioArea), BorderLayout.CENTER);
+        add(top, BorderLayout.NORTH);
+
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+
+        runButton.addActionListener(ignored -> run(false));
+        reloadButton.addActionListener(ignored -> run(true));
+        closuresButton.addActionListener(ignored -> withSnapshot(s -> append(WhatIfPlanner.roomClosureSweep(s))));
+        growthButton.addActionListener(ignored -> withSnapshot(s -> append(WhatIfPlanner.growthSweep(s, 5, 50))));
+
+        setLocationRelativeTo(null);
+        setVisible(true);
+    }
+
+    // the default allocator's settings, but always greedy: annealing would spend its whole budget on every scenario
+    private static SeatAllocator plannerAllocator() {
+        SeatAllocator allocator = new SeatAllocator();
+        allocator.setStrategy(new GreedyStrategy());
+        return allocator;
+    }
+
+    private void append(List<WhatIfPlanner.Scenario> scenarios) {
+        StringBuilder text = new StringBuilder();
+        for (WhatIfPlanner.Scenario s : scenarios) text.append(s.name).append('\n');
+        if (!scenarioArea.getText().isEmpty() && !scenarioArea.getText().endsWith("\n")) scenarioArea.append("\n");
+        scenarioArea.append(text.toString());
+    }
+
+    private void run(boolean reload) {
+        List<WhatIfPlanner.Scenario> scenarios = new ArrayList<>();
+        try {
+            for (String line : scenarioArea.getText().split("\n")) {
+                if (!line.trim().isEmpty()) scenarios.add(WhatIfPlanner.Scenario.parse(line));
+            }
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage());
+            return;
+        }
+        if (scenarios.isEmpty()) return;
+        if (reload) snapshot = null;
+        withSnapshot(s -> {
+            setBusy(true, "Running " + scenarios.size() + " scenarios on " + s.studentCount() + " students...");
+            new SwingWorker<List<WhatIfPlanner.Result>, Void>() {
+                private long millis;
+
+                protected List<WhatIfPlanner.Result> doInBackground() throws Exception {
+                    long start = System.nanoTime();
+                    List<WhatIfPlanner.Result> results = planner.run(s, scenarios);
+                    millis = (System.nanoTime() - start) / 1_000_000;
+                    return results;
+                }
+                protected void done() {
+                    setBusy(false, null);
+                    try {
+                        model.setRows(get());
+                        statusLabel.setText(scenarios.size() + " scenarios for " + s.examSlotId + " (" + s.studentCount()
+                                + " students, " + s.roomCount() + " rooms) in " + millis + " ms.");
+                    } catch (Exception ex) {
+                        ex.printStackTrace();
+                        statusLabel.setText("Planning failed: " + ex.getMessage());
+                    }
+                }
+            }.execute();
+        });
+    }
+
+    // runs the action on the EDT with the slot's snapshot, loading it first when the slot changed
+    private void withSnapshot(Consumer<WhatIfPlanner.Snapshot> action) {
+        String slot = slotField.getText().trim();
+        if (slot.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Enter the exam slot to plan for.");
+            return;
+        }
+        if (snapshot != null && snapshot.examSlotId.equals(slot)) {
+            action.accept(snapshot);
+            return;
+        }
+        setBusy(true, "Loading students and rooms for " + slot + "...");
+        new SwingWorker<WhatIfPlanner.Snapshot, Void>() {
+            protected WhatIfPlanner.Snapshot doInBackground() throws Exception {
+                return planner.load(slot);
+            }
+            protected void done() {
+                setBusy(false, null);
+                try {
+                    snapshot = get();
+                    statusLabel.setText("Loaded " + snapshot.studentCount() + " students and " + snapshot.roomCount() + " rooms.");
+                    action.accept(snapshot);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    statusLabel.setText("Could not load " + slot + ": " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void setBusy(boolean busy, String status) {
+        runButton.setEnabled(!busy);
+        reloadButton.setEnabled(!busy);
+        closuresButton.setEnabled(!busy);
+        growthButton.setEnabled(!busy);
+        if (status != null) statusLabel.setText(status);
+    }
+
+    private static class ResultModel extends AbstractTableModel {
+        private final String[] columns = {"Scenario", "Students", "Seats", "Shortfall", "Rooms Used",
+                "Backup Rooms Used", "Violations", "Compute ms", "Warnings"};
+        private List<WhatIfPlanner.Result> rows = new ArrayList<>();
+
+        void setRows(List<WhatIfPlanner.Result> results) {
+            rows = results;
+            fireTableDataChanged();
+        }
+
+        public int getRowCount() { return rows.size(); }
+        public int getColumnCount() { return columns.length; }
+        public String getColumnName(int col) { return columns[col]; }
+
+        // typed so the row sorter compares numbers as numbers
+        public Class<?> getColumnClass(int col) {
+            if (col == 0 || col == 8) return String.class;
+            return col == 7 ? Double.class : Integer.class;
+        }
+
+        public Object getValueAt(int row, int col) {
+            WhatIfPlanner.Result r = rows.get(row);
+            switch (col) {
+                case 0: return r.scenario;
+                case 1: return r.students;
+                case 2: return r.seats;
+                case 3: return r.shortfall;
+                case 4: return r.roomsUsed;
+                case 5: return r.backupRoomsUsed;
+                case 6: return r.violations;
+                case 7: return Math.round(r.computeNanos / 10_000.0) / 100.0;
+                default: return String.join(" ", r.warnings);
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AllocationSchedulerTest {
+
+    /** Plans and writes nothing; planning a held slot blocks until it is released. */
+    static class ScriptedAllocator extends SeatAllocator {
+        final Map<String, CountDownLatch> held = new ConcurrentHashMap<>();
+        final BlockingQueue<String> planning = new LinkedBlockingQueue<>();
+        final Map<String, AtomicInteger> plans = new ConcurrentHashMap<>();
+        final List<String> written = new ArrayList<>(); // guarded by itself
+        final Set<String> writerThreads = ConcurrentHashMap.newKeySet();
+        final AtomicInteger writing = new AtomicInteger();
+        final AtomicInteger maxWriting = new AtomicInteger();
+        volatile String failing;
+
+        CountDownLatch hold(String slot) {
+            CountDownLatch latch = new CountDownLatch(1);
+            held.put(slot, latch);
+            return latch;
+        }
+
+        int plans(String slot) {
+            AtomicInteger n = plans.get(slot);
+            return n == null ? 0 : n.get();
+        }
+
+        @Override
+        SlotPlan planSlot(String examSlotId) {
+            plans.computeIfAbsent(examSlotId, k -> new AtomicInteger()).incrementAndGet();
+            planning.add(examSlotId);
+            CountDownLatch latch = held.get(examSlotId);
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (examSlotId.equals(failing)) throw new OutOfMemoryError("planning " + examSlotId);
+            SlotPlan plan = new SlotPlan(examSlotId);
+            plan.success = true;
+            return plan;
+        }
+
+        @Override
+        AllocationResult persistSlot(SlotPlan plan) {
+            writerThreads.add(Thread.currentThread().getName());
+            maxWriting.accumulateAndGet(writing.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            writing.decrementAndGet();
+            synchronized (written) {
+                written.add(plan.examSlotId);
+            }
+            return new AllocationResult(true, new ArrayList<>(), new ArrayList<>());
+        }
+    }
+
+    @Test
+    void requestsForAWaitingSlotShareOneJob() throws Exception {
+        ScriptedAllocator allocator = new ScriptedAllocator();
+        CountDownLatch releaseA = allocator.hold("A");
+        AllocationScheduler scheduler = new AllocationScheduler(allocator, 1);
+
+        AllocationScheduler.Job a = scheduler.submit("A", null);
+        assertEquals("A", allocator.planning.poll(5, TimeUnit.SECONDS));
+        AllocationScheduler.Job b = scheduler.submit("B", null);
+        assertSame(b, scheduler.submit("B", null));
+        assertSame(b, scheduler.submit("B", null));
+        // A is already computing on data that may be stale: one follow-up job, shared by later requests
+        AllocationScheduler.Job a2 = scheduler.submit("A", null);
+        assertNotSame(a, a2);
+        assertSame(a2, scheduler.submit("A", null));
+
+        assertEquals(AllocationScheduler.State.QUEUED, b.state());
+        assertEquals(3, b.requests());
+        assertEquals(2, a2.requests());
+        releaseA.countDown();
+        allocator.held.remove("A");
+        for (AllocationScheduler.Job job : List.of(a, b, a2)) assertTrue(job.result().get(5, TimeUnit.SECONDS).success);
+
+        assertEquals(2, allocator.plans("A"));
+        assertEquals(1, allocator.plans("B"));
+        AllocationScheduler.Stats stats = scheduler.stats();
+        assertEquals(6, stats.submitted);
+        assertEquals(3, stats.coalesced);
+        assertEquals(3, stats.completed);
+    }
+
+    @Test
+    void cancellingAQueuedJobDropsItWithoutPlanning() throws Exception {
+        ScriptedAllocator allocator = new ScriptedAllocator();
+        CountDownLatch releaseA = allocator.hold("A");
+        AllocationScheduler scheduler = new AllocationScheduler(allocator, 1);
+
+        AllocationScheduler.Job a = scheduler.submit("A", null);
+        assertEquals("A", allocator.planning.poll(5, TimeUnit.SECONDS));
+        List<AllocationScheduler.State> seen = new ArrayList<>();
+        AllocationScheduler.Job b = scheduler.submit("B", job -> {
+            synchronized (seen) {
+                seen.add(job.state());
+            }
+        });
+
+        assertTrue(b.cancel());
+        assertEquals(AllocationScheduler.State.CANCELLED, b.state());
+        assertFalse(b.result().get(5, TimeUnit.SECONDS).success);
+        assertFalse(b.cancel());
+        releaseA.countDown();
+        assertTrue(a.result().get(5, TimeUnit.SECONDS).success);
+
+        assertEquals(0, allocator.plans("B"));
+        synchronized (seen) {
+            assertEquals(List.of(AllocationScheduler.State.QUEUED, AllocationScheduler.State.CANCELLED), seen);
+        }
+        assertEquals(1, scheduler.stats().cancelled);
+    }
+
+    @Test
+    void cancellingWhileComputingSkipsTheWrite() throws Exception {
+        ScriptedAllocator allocator = new ScriptedAllocator();
+        CountDownLatch releaseA = allocator.hold("A");
+        AllocationScheduler scheduler = new AllocationScheduler(allocator, 2);
+
+        AllocationScheduler.Job a = scheduler.submit("A", null);
+        assertEquals("A", allocator.planning.poll(5, TimeUnit.SECONDS));
+        assertEquals(AllocationScheduler.State.COMPUTING, a.state());
+        assertTrue(a.cancel());
+        releaseA.countDown();
+
+        assertFalse(a.result().get(5, TimeUnit.SECONDS).success);
+        assertEquals(AllocationScheduler.State.CANCELLED, a.state());
+        assertFalse(a.cancel());
+        synchronized (allocator.written) {
+            assertEquals(List.of(), allocator.written);
+        }
+        // the slot is free again
+        allocator.held.remove("A");
+        assertTrue(scheduler.submit("A", null).result().get(5, TimeUnit.SECONDS).success);
+    }
+
+    @Test
+    void everyPlanIsWrittenByTheOneWriter() throws Exception {
+        ScriptedAllocator allocator = new ScriptedAllocator();
+        AllocationScheduler scheduler = new AllocationScheduler(allocator, 4);
+        List<String> slots = new ArrayList<>();
+        for (int i = 0; i < 24; i++) slots.add("EX" + i);
+
+        List<AllocationScheduler.Job> jobs = scheduler.submitAll(slots, null);
+        for (AllocationScheduler.Job job : jobs) {
+            assertTrue(job.result().get(5, TimeUnit.SECONDS).success);
+            assertEquals(AllocationScheduler.State.DONE, job.state());
+        }
+
+        assertEquals(1, allocator.maxWriting.get());
+        assertEquals(Set.of("allocation-job-writer"), allocator.writerThreads);
+        synchronized (allocator.written) {
+            assertEquals(24, allocator.written.size());
+        }
+    }
+
+    @Test
+    void anErrorWhilePlanningEndsTheJob() throws Exception {
+        ScriptedAllocator allocator = new ScriptedAllocator();
+        allocator.failing = "A";
+        AllocationScheduler scheduler = new AllocationScheduler(allocator, 1);
+
+        AllocationScheduler.Job a = scheduler.submit("A", null);
+        SeatAllocator.AllocationResult result = a.result().get(5, TimeUnit.SECONDS);
+        assertFalse(result.success);
+        assertTrue(result.warnings.get(0).contains("OutOfMemoryError"), result.warnings.toString());
+        assertEquals(AllocationScheduler.State.DONE, a.state());
+
+        allocator.failing = null;
+        assertTrue(scheduler.submit("A", null).result().get(5, TimeUnit.SECONDS).success);
+    }
+}
@@ -0,0 +1,103 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BranchInterleaverTest {
+
+    @Test
+    void reachesTheBestGapOfAnyOrdering() {
+        // every branch-size vector with up to 4 branches and 9 students
+        int checked = 0;
+        for (int a = 0; a <= 9; a++) {
+            for (int b = 0; a + b <= 9; b++) {
+                for (int c = 0; a + b + c <= 9; c++) {
+                    for (int d = 0; a + b + c + d <= 9; d++) {
+                        int[] counts = {a, b, c, d};
+                        int[] branch = students(counts);
+                        if (branch.length == 0) continue;
+                        int best = bestGap(counts, new int[branch.length], 0);
+                        String sizes = Arrays.toString(counts);
+
+                        assertEquals(best, BranchInterleaver.maxGap(counts), sizes);
+                        assertTrue(BranchInterleaver.feasible(counts, best), sizes);
+                        assertFalse(best < Integer.MAX_VALUE && BranchInterleaver.feasible(counts, best + 1), sizes);
+
+                        int[] order = BranchInterleaver.interleave(branch, branch.length, counts.length);
+                        int[] layout = new int[order.length];
+                        for (int k = 0; k < order.length; k++) layout[k] = branch[order[k]];
+                        assertEquals(best, minGap(layout), sizes + " -> " + Arrays.toString(layout));
+                        checked++;
+                    }
+                }
+            }
+        }
+        assertEquals(714, checked);
+    }
+
+    @Test
+    void returnsAPermutationKeepingEachBranchInInputOrder() {
+        int[] branch = {2, 0, 0, 1, 2, 0, 0, 1, 0, 3, 0};
+        int[] order = BranchInterleaver.interleave(branch, branch.length, 4);
+
+        boolean[] seen = new boolean[branch.length];
+        int[] last = {-1, -1, -1, -1};
+        for (int i : order) {
+            assertFalse(seen[i], "student " + i + " placed twice");
+            seen[i] = true;
+            assertTrue(i > last[branch[i]], "branch " + branch[i] + " out of input order");
+            last[branch[i]] = i;
+        }
+    }
+
+    @Test
+    void oneOversizedBranchLeavesOnlyItsUnavoidablePairs() {
+        int[] counts = {7, 2};
+        int[] branch = students(counts);
+        int[] order = BranchInterleaver.interleave(branch, branch.length, 2);
+        int adjacent = 0;
+        for (int k = 1; k < order.length; k++) {
+            if (branch[order[k]] == branch[order[k - 1]]) adjacent++;
+        }
+        // two students of the small branch split the big one into at most three runs
+        assertEquals(7 - 3, adjacent);
+        assertEquals(0, BranchInterleaver.maxGap(counts));
+    }
+
+    // branch codes of the students, each branch's students consecutive
+    private static int[] students(int[] counts) {
+        int[] branch = new int[Arrays.stream(counts).sum()];
+        int i = 0;
+        for (int b = 0; b < counts.length; b++) {
+            for (int k = 0; k < counts[b]; k++) branch[i++] = b;
+        }
+        return branch;
+    }
+
+    // best min gap over every distinct layout of the remaining counts after prefix[0..pos)
+    private static int bestGap(int[] counts, int[] prefix, int pos) {
+        if (pos == prefix.length) return minGap(prefix);
+        int best = -1;
+        for (int b = 0; b < counts.length; b++) {
+            if (counts[b] == 0) continue;
+            counts[b]--;
+            prefix[pos] = b;
+            best = Math.max(best, bestGap(counts, prefix, pos + 1));
+            counts[b]++;
+        }
+        return best;
+    }
+
+    // fewest other students between two of one branch (Integer.MAX_VALUE when no branch repeats)
+    private static int minGap(int[] layout) {
+        int gap = Integer.MAX_VALUE;
+        int[] last = new int[4];
+        Arrays.fill(last, -1);
+        for (int k = 0; k < layout.length; k++) {
+            if (last[layout[k]] >= 0) gap = Math.min(gap, k - last[layout[k]] - 1);
+            last[layout[k]] = k;
+        }
+        return gap;
+    }
+}
@@ -0,0 +1,123 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvImporterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsQuotedAndMultilineFields() throws IOException {
+        CsvImporter.CsvReader reader = new CsvImporter.CsvReader(new StringReader(
+                "a,\"b, with comma\",\"say \"\"hi\"\"\"\r\n" +
+                "\"two\nlines\",x,\r\n"));
+        assertArrayEquals(new String[]{"a", "b, with comma", "say \"hi\""}, reader.next());
+        assertArrayEquals(new String[]{"two\nlines", "x", ""}, reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void recordLinesCountEveryLineEnding() throws IOException {
+        // \n, \r\n and a lone \r each end one line, also inside quotes
+        CsvImporter.CsvReader reader = new CsvImporter.CsvReader(new StringReader(
+                "h1,h2\n\"a\r\nb\",1\rc,2\r\n\"d\re\",3\nf,4"));
+        long[] lines = new long[5];
+        for (int i = 0; i < lines.length; i++) {
+            assertNotNull(reader.next());
+            lines[i] = reader.recordLine();
+        }
+        assertArrayEquals(new long[]{1, 2, 4, 5, 7}, lines);
+    }
+
+    @Test
+    void upsertUpdatesOnlyTheSuppliedColumns() {
+        assertEquals("INSERT INTO Room(room_id, capacity) VALUES (?, ?) ON CONFLICT(room_id) DO UPDATE SET capacity = excluded.capacity",
+                CsvImporter.upsertSql(CsvImporter.Kind.ROOMS, Arrays.asList("room_id", "capacity")));
+        assertEquals("INSERT INTO Enrollment(exam_slot_id, student_id) VALUES (?, ?) ON CONFLICT(exam_slot_id, student_id) DO NOTHING",
+                CsvImporter.upsertSql(CsvImporter.Kind.ENROLLMENTS, Arrays.asList("exam_slot_id", "student_id")));
+    }
+
+    @Test
+    void reimportKeepsColumnsTheFileLeavesOut() throws Exception {
+        try (Connection conn = open()) {
+            importCsv(conn, CsvImporter.Kind.ROOMS, "rooms.csv",
+                    "room_id,capacity,is_backup,seat_rows,seat_cols\nR1,30,1,5,6\nR2,40,0,,\n");
+            importCsv(conn, CsvImporter.Kind.ROOMS, "rooms2.csv", "room_id,capacity\nR1,25\nR3,10\n");
+
+            assertEquals(Arrays.asList("R1 25 1 5 6", "R2 40 0 null null", "R3 10 0 null null"),
+                    rows(conn, "SELECT room_id, capacity, is_backup, seat_rows, seat_cols FROM Room ORDER BY room_id"));
+        }
+    }
+
+    @Test
+    void rejectedRowsAreReportedWithTheirFileLine() throws Exception {
+        try (Connection conn = open()) {
+            CsvImporter.ImportResult result = importCsv(conn, CsvImporter.Kind.STUDENTS, "students.csv",
+                    "student_id,name,branch\n" +
+                    "S1,\"Ann\nLee\",CSE\n" +   // lines 2-3
+                    "S2,,ECE\n" +               // line 4: no name
+                    "\n" +
+                    "S3,Bo,ME\n" +
+                    "S4,Cy,\n");                // line 7: no branch
+
+            assertEquals(4, result.rowsRead);
+            assertEquals(2, result.rowsImported);
+            assertEquals(2, result.rowsRejected);
+            List<String> errors = Files.readAllLines(result.errorFile);
+            assertEquals("line,reason,record", errors.get(0));
+            assertTrue(errors.get(1).startsWith("4,missing name,"), errors.get(1));
+            assertTrue(errors.get(2).startsWith("7,missing branch,"), errors.get(2));
+            assertEquals(Arrays.asList("S1 Ann\nLee CSE", "S3 Bo ME"),
+                    rows(conn, "SELECT student_id, name, branch FROM Student ORDER BY student_id"));
+        }
+    }
+
+    @Test
+    void acceptsAByteOrderMarkBeforeTheHeader() throws Exception {
+        try (Connection conn = open()) {
+            CsvImporter.ImportResult result = importCsv(conn, CsvImporter.Kind.STUDENTS, "bom.csv",
+                    "﻿student_id,name,branch\nS1,Ann,CSE\n");
+            assertEquals(1, result.rowsImported);
+        }
+    }
+
+    private Connection open() throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("import.db"));
+        DatabaseSchema.bootstrap(conn);
+        return conn;
+    }
+
+    private CsvImporter.ImportResult importCsv(Connection conn, CsvImporter.Kind kind, String name, String text)
+            throws IOException, SQLException {
+        Path csv = Files.write(dir.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+        return CsvImporter.importFile(conn, kind, csv, null);
+    }
+
+    private static List<String> rows(Connection conn, String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= columns; i++) row.append(i > 1 ? " " : "").append(rs.getString(i));
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+}
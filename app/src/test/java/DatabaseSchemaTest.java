@@ -0,0 +1,96 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseSchemaTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void upgradesAHandMadeDatabase() throws Exception {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("legacy.db"));
+             Statement st = conn.createStatement()) {
+            // the shape the original setup script created: no keys, no geometry, an id column on Allocation
+            st.execute("CREATE TABLE Student(student_id TEXT, name TEXT, branch TEXT)");
+            st.execute("CREATE TABLE Room(room_id TEXT, capacity INTEGER, is_backup INTEGER DEFAULT 0)");
+            st.execute("CREATE TABLE ExamSlot(exam_slot_id TEXT, exam_date TEXT, start_time TEXT, end_time TEXT)");
+            st.execute("CREATE TABLE Allocation(id INTEGER PRIMARY KEY AUTOINCREMENT, student_id TEXT, room_id TEXT, " +
+                    "seat_no INTEGER, exam_slot_id TEXT)");
+            st.execute("INSERT INTO Student VALUES ('S1', 'Ann', 'CSE'), ('S2', 'Bo', 'ECE')");
+            st.execute("INSERT INTO Room VALUES ('R1', 30, 0)");
+            st.execute("INSERT INTO Allocation(student_id, room_id, seat_no, exam_slot_id) VALUES " +
+                    "('S1', 'R1', 1, 'EX01'), ('S2', 'R1', 2, 'EX01'), ('GONE', 'R1', 3, 'EX01'), ('S1', 'R7', 1, 'EX02')");
+
+            DatabaseSchema.bootstrap(conn);
+
+            assertEquals(List.of(String.valueOf(DatabaseSchema.VERSION)), query(st, "PRAGMA user_version"));
+            assertEquals(List.of("S1 R1 1 EX01", "S2 R1 2 EX01"),
+                    query(st, "SELECT student_id || ' ' || room_id || ' ' || seat_no || ' ' || exam_slot_id " +
+                            "FROM Allocation ORDER BY student_id"));
+            assertEquals(List.of("Schema upgrade dropped 2 allocation rows that referred to missing students or rooms."),
+                    query(st, "SELECT warning_text FROM AdminWarning"));
+            assertEquals(List.of(), query(st, "SELECT name FROM sqlite_master WHERE name = 'Allocation_legacy'"));
+            assertEquals(List.of("ux_allocation_room", "ux_allocation_seat", "ux_allocation_student"),
+                    query(st, "SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = 'Allocation' ORDER BY name"));
+            assertTrue(query(st, "SELECT name FROM pragma_table_info('Room')").containsAll(List.of("seat_rows", "seat_cols")));
+            assertThrows(SQLException.class,
+                    () -> st.execute("INSERT INTO Allocation VALUES ('S2', 'R1', 1, 'EX01')"), "seat given twice");
+
+            DatabaseSchema.bootstrap(conn); // current schema: nothing to do
+            assertEquals(2, query(st, "SELECT student_id FROM Allocation").size());
+        }
+    }
+
+    @Test
+    void failedUpgradeLeavesTheDatabaseAsItWas() throws Exception {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("clash.db"));
+             Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE Student(student_id TEXT, name TEXT, branch TEXT)");
+            st.execute("CREATE TABLE Room(room_id TEXT, capacity INTEGER, is_backup INTEGER DEFAULT 0)");
+            st.execute("CREATE TABLE Allocation(student_id TEXT, room_id TEXT, seat_no INTEGER, exam_slot_id TEXT)");
+            st.execute("INSERT INTO Student VALUES ('S1', 'Ann', 'CSE'), ('S2', 'Bo', 'ECE')");
+            st.execute("INSERT INTO Room VALUES ('R1', 30, 0)");
+            st.execute("INSERT INTO Allocation VALUES ('S1', 'R1', 1, 'EX01'), ('S2', 'R1', 1, 'EX01')");
+
+            SQLException ex = assertThrows(SQLException.class, () -> DatabaseSchema.bootstrap(conn));
+            assertTrue(ex.getMessage().contains("a seat given twice"), ex.getMessage());
+            assertEquals(List.of("0"), query(st, "PRAGMA user_version"));
+            assertEquals(List.of("Allocation", "Room", "Student"),
+                    query(st, "SELECT name FROM sqlite_master WHERE type = 'table' ORDER BY name"));
+            assertEquals(2, query(st, "SELECT student_id FROM Allocation").size());
+        }
+    }
+
+    @Test
+    void everyPlannedQueryUsesAnIndex() throws Exception {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("plans.db"));
+             Statement st = conn.createStatement()) {
+            DatabaseSchema.bootstrap(conn);
+            assertEquals(List.of(), DatabaseSchema.checkQueryPlans(conn));
+
+            // without the seat index the per-slot reads scan or sort, and the check says which
+            st.execute("DROP INDEX ux_allocation_seat");
+            List<String> problems = DatabaseSchema.checkQueryPlans(conn);
+            assertFalse(problems.isEmpty());
+            assertTrue(problems.stream().anyMatch(p -> p.startsWith("fetchReportPage(slot, first):")), problems.toString());
+        }
+    }
+
+    private static List<String> query(Statement st, String sql) throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) values.add(rs.getString(1));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,117 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalReallocatorTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void movesOnlyStudentsWhoMust() throws Exception {
+        try (Connection conn = slotWithSeats()) {
+            IncrementalReallocator.ChangeSet changes = new IncrementalReallocator.ChangeSet()
+                    .withdrawStudent("S2").closeRoom("R2").addStudent("S6");
+            SeatAllocator.AllocationResult result = new IncrementalReallocator(4).apply(conn, "EX01", changes);
+
+            assertTrue(result.success, result.warnings.toString());
+            Set<String> changed = new TreeSet<>();
+            for (AllocationRecord rec : result.allocations) changed.add(rec.getStudentId());
+            assertEquals(Set.of("S4", "S5", "S6"), changed);
+
+            // S1 and S3 keep their seats and their rows are never rewritten
+            assertEquals(List.of("S2", "S4", "S5", "S6"), query(conn, "SELECT DISTINCT student_id FROM AllocationWrite ORDER BY 1"));
+            assertEquals(List.of("S1 R1 1", "S3 R1 3"),
+                    query(conn, "SELECT student_id || ' ' || room_id || ' ' || seat_no FROM Allocation " +
+                            "WHERE student_id IN ('S1', 'S3') ORDER BY 1"));
+            assertEquals(List.of(), query(conn, "SELECT student_id FROM Allocation WHERE student_id = 'S2' OR room_id = 'R2'"));
+            assertEquals(List.of("5"), query(conn, "SELECT COUNT(*) FROM Allocation WHERE exam_slot_id = 'EX01'"));
+            assertEquals(List.of("R2"), query(conn, "SELECT room_id FROM RoomClosure WHERE exam_slot_id = 'EX01'"));
+            // the first student to move takes the first clean free seat in room order
+            assertEquals(List.of("R1 2"), query(conn, "SELECT room_id || ' ' || seat_no FROM Allocation WHERE student_id = 'S4'"));
+        }
+    }
+
+    @Test
+    void shortfallRollsBackEverything() throws Exception {
+        try (Connection conn = slotWithSeats()) {
+            try (Statement st = conn.createStatement()) {
+                for (int i = 7; i <= 12; i++) st.execute("INSERT INTO Student VALUES ('S" + i + "', 'n', 'ME')");
+            }
+            conn.commit();
+            List<String> before = query(conn, "SELECT student_id || room_id || seat_no FROM Allocation ORDER BY 1");
+
+            // 2 students from R2 plus 6 new ones, with 1 + 2 free seats left
+            IncrementalReallocator.ChangeSet changes = new IncrementalReallocator.ChangeSet().closeRoom("R2");
+            for (int i = 7; i <= 12; i++) changes.addStudent("S" + i);
+            SeatAllocator.AllocationResult result = new IncrementalReallocator(4).apply(conn, "EX01", changes);
+
+            assertFalse(result.success);
+            assertTrue(result.warnings.stream().anyMatch(w -> w.startsWith("Not enough free seats")), result.warnings.toString());
+            assertEquals(before, query(conn, "SELECT student_id || room_id || seat_no FROM Allocation ORDER BY 1"));
+            assertEquals(List.of(), query(conn, "SELECT room_id FROM RoomClosure"));
+            assertEquals(List.of(), query(conn, "SELECT student_id FROM AllocationWrite"));
+        }
+    }
+
+    @Test
+    void skipsUnknownAndAlreadySeatedStudents() throws Exception {
+        try (Connection conn = slotWithSeats()) {
+            IncrementalReallocator.ChangeSet changes = new IncrementalReallocator.ChangeSet()
+                    .addStudent("S1").addStudent("NOPE").closeRoom("R9");
+            SeatAllocator.AllocationResult result = new IncrementalReallocator(4).apply(conn, "EX01", changes);
+
+            assertTrue(result.success);
+            assertTrue(result.allocations.isEmpty());
+            assertEquals(List.of(), query(conn, "SELECT student_id FROM AllocationWrite"));
+            String warnings = String.join("\n", result.warnings);
+            assertTrue(warnings.contains("Student S1 already has a seat in EX01"), warnings);
+            assertTrue(warnings.contains("1 added student(s) not found"), warnings);
+            assertTrue(warnings.contains("Room R9 not found"), warnings);
+        }
+    }
+
+    // R1 (4 seats): S1 CSE, S2 ECE, S3 CSE, free; R2 (2 seats): S4 ECE, S5 CSE; backup B1 (2 seats): free.
+    // Every later write to Allocation is logged in AllocationWrite by a temp trigger.
+    private Connection slotWithSeats() throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("slot.db"));
+        DatabaseSchema.bootstrap(conn);
+        try (Statement st = conn.createStatement()) {
+            st.execute("INSERT INTO Room(room_id, capacity, is_backup) VALUES ('R1', 4, 0), ('R2', 2, 0), ('B1', 2, 1)");
+            st.execute("INSERT INTO ExamSlot(exam_slot_id, exam_date) VALUES ('EX01', '2026-11-02')");
+            st.execute("INSERT INTO Student VALUES ('S1', 'Ann', 'CSE'), ('S2', 'Bo', 'ECE'), ('S3', 'Cy', 'CSE'), " +
+                    "('S4', 'Di', 'ECE'), ('S5', 'Ed', 'CSE'), ('S6', 'Fe', 'ME')");
+            st.execute("INSERT INTO Allocation(student_id, room_id, seat_no, exam_slot_id) VALUES " +
+                    "('S1', 'R1', 1, 'EX01'), ('S2', 'R1', 2, 'EX01'), ('S3', 'R1', 3, 'EX01'), " +
+                    "('S4', 'R2', 1, 'EX01'), ('S5', 'R2', 2, 'EX01')");
+            st.execute("CREATE TEMP TABLE AllocationWrite(student_id TEXT)");
+            st.execute("CREATE TEMP TRIGGER log_insert AFTER INSERT ON Allocation " +
+                    "BEGIN INSERT INTO AllocationWrite VALUES (new.student_id); END");
+            st.execute("CREATE TEMP TRIGGER log_update AFTER UPDATE ON Allocation " +
+                    "BEGIN INSERT INTO AllocationWrite VALUES (new.student_id); END");
+            st.execute("CREATE TEMP TRIGGER log_delete AFTER DELETE ON Allocation " +
+                    "BEGIN INSERT INTO AllocationWrite VALUES (old.student_id); END");
+        }
+        conn.setAutoCommit(false);
+        return conn;
+    }
+
+    private static List<String> query(Connection conn, String sql) throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) values.add(rs.getString(1));
+        }
+        return values;
+    }
+}
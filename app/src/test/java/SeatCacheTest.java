@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatCacheTest {
+
+    @Test
+    void commitInvalidatesOnlyItsSlotAndNoSeatAnswers() throws Exception {
+        SeatCache cache = new SeatCache(1_000);
+        Map<String, AllocationRecord> db = new HashMap<>();
+        db.put("S1", new AllocationRecord("S1", "Ann", "CSE", "R1", 1, "EX01"));
+        db.put("S2", new AllocationRecord("S2", "Bo", "ECE", "R9", 4, "EX02"));
+        List<String> loads = new ArrayList<>();
+        SeatCache.Loader loader = id -> {
+            loads.add(id);
+            return db.get(id);
+        };
+
+        cache.get("S1", loader);
+        cache.get("S2", loader);
+        assertNull(cache.get("S3", loader));
+        assertEquals(3, loads.size());
+
+        AllocationRecord moved = new AllocationRecord("S1", "Ann", "CSE", "R2", 7, "EX01");
+        db.put("S1", moved);
+        cache.slotCommitted("EX01", 1, Collections.emptyList());
+        loads.clear();
+
+        assertSame(moved, cache.get("S1", loader));  // EX01 entry went stale
+        assertEquals("R9", cache.get("S2", loader).getRoomId()); // EX02 entry still valid
+        assertNull(cache.get("S3", loader));          // "no seat" is reloaded after any commit
+        assertEquals(List.of("S1", "S3"), loads);
+    }
+
+    @Test
+    void commitWarmsTheSlotsNewSeats() throws Exception {
+        SeatCache cache = new SeatCache(1_000);
+        AllocationRecord seat = new AllocationRecord("S1", "Ann", "CSE", "R1", 3, "EX01");
+        cache.slotCommitted("EX01", 1, List.of(seat));
+
+        assertSame(seat, cache.get("S1", id -> fail("warmed seat was loaded again")));
+        assertEquals(1, cache.stats().hits);
+    }
+
+    @Test
+    void loadThatRacedWithACommitIsNotCached() throws Exception {
+        SeatCache cache = new SeatCache(1_000);
+        AllocationRecord before = new AllocationRecord("S1", "Ann", "CSE", "R1", 1, "EX01");
+        AllocationRecord after = new AllocationRecord("S1", "Ann", "CSE", "R2", 2, "EX01");
+
+        // the commit lands (without warming S1) while the loader is still reading the old seat
+        AllocationRecord read = cache.get("S1", id -> {
+            cache.slotCommitted("EX02", 1, null);
+            return before;
+        });
+        assertSame(before, read);
+        assertSame(after, cache.get("S1", id -> after));
+        assertSame(after, cache.get("S1", id -> fail("settled load was not cached")));
+    }
+
+    @Test
+    void checkVersionsInvalidatesSlotsThatMovedOn() throws Exception {
+        SeatCache cache = new SeatCache(1_000);
+        assertEquals(2, cache.checkVersions(Map.of("EX01", 3L, "EX02", 1L)));
+        assertEquals(0, cache.checkVersions(Map.of("EX01", 3L, "EX02", 1L)));
+
+        AllocationRecord seat = new AllocationRecord("S1", "Ann", "CSE", "R1", 1, "EX01");
+        cache.get("S1", id -> seat);
+        // this cache's own commit is not seen again as a foreign change
+        cache.slotCommitted("EX01", 4, null);
+        cache.get("S1", id -> seat);
+        assertEquals(0, cache.checkVersions(Map.of("EX01", 4L, "EX02", 1L)));
+        assertSame(seat, cache.get("S1", id -> fail("entry was invalidated by its own commit")));
+
+        assertEquals(1, cache.checkVersions(Map.of("EX01", 5L, "EX02", 1L)));
+        AllocationRecord moved = new AllocationRecord("S1", "Ann", "CSE", "R3", 9, "EX01");
+        assertSame(moved, cache.get("S1", id -> moved));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedOnceFull() throws Exception {
+        SeatCache cache = new SeatCache(16); // one entry per stripe
+        for (int i = 0; i < 200; i++) {
+            String id = "S" + i;
+            cache.get(id, ignored -> new AllocationRecord(id, "n", "CSE", "R1", 1, "EX01"));
+        }
+        SeatCache.Stats stats = cache.stats();
+        assertTrue(stats.size <= 16, stats.toString());
+        assertEquals(200 - stats.size, stats.evictions);
+    }
+}
@@ -0,0 +1,110 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatSnapshotTest {
+    @TempDir
+    Path dir;
+    private String savedDir;
+
+    @BeforeEach
+    void useTempDirectory() {
+        savedDir = System.getProperty("seatwise.snapshot.dir");
+        System.setProperty("seatwise.snapshot.dir", dir.toString());
+    }
+
+    @AfterEach
+    void restoreDirectory() {
+        if (savedDir == null) System.clearProperty("seatwise.snapshot.dir");
+        else System.setProperty("seatwise.snapshot.dir", savedDir);
+    }
+
+    @Test
+    void roundTripsEverySeat() throws IOException {
+        List<AllocationRecord> seats = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            // ids of different lengths so the fixed-width padding is exercised
+            seats.add(new AllocationRecord("S" + (i * 37 % 1000), "n", "CSE", i % 2 == 0 ? "R1" : "LAB-204", i / 2 + 1, "EX01"));
+        }
+        Path file = SeatSnapshot.write(dir, "EX01", seats);
+
+        try (SeatSnapshot snap = SeatSnapshot.open(file)) {
+            assertEquals("EX01", snap.examSlotId());
+            assertEquals(300, snap.size());
+            for (AllocationRecord rec : seats) {
+                AllocationRecord found = snap.lookup(rec.getStudentId());
+                assertNotNull(found, rec.getStudentId());
+                assertEquals(rec.getRoomId(), found.getRoomId());
+                assertEquals(rec.getSeatNo(), found.getSeatNo());
+                assertEquals("EX01", found.getExamSlotId());
+            }
+            assertNull(snap.lookup("S1"));      // prefix of stored ids
+            assertNull(snap.lookup("S9990"));   // longer than any stored id
+            List<AllocationRecord> sheet = snap.roomSheet("LAB-204");
+            assertEquals(150, sheet.size());
+            for (int k = 0; k < sheet.size(); k++) assertEquals(k + 1, sheet.get(k).getSeatNo());
+            assertTrue(snap.roomSheet("R9").isEmpty());
+        }
+    }
+
+    @Test
+    void rejectsCorruptedAndTruncatedFiles() throws IOException {
+        Path file = SeatSnapshot.write(dir, "EX01", List.of(
+                new AllocationRecord("S1", "n", "CSE", "R1", 1, "EX01"),
+                new AllocationRecord("S2", "n", "ECE", "R1", 2, "EX01")));
+        byte[] bytes = Files.readAllBytes(file);
+
+        byte[] flipped = bytes.clone();
+        flipped[bytes.length - 12] ^= 1; // last record's seat number
+        Path corrupt = Files.write(dir.resolve("corrupt.seatmap"), flipped);
+        IOException ex = assertThrows(IOException.class, () -> SeatSnapshot.open(corrupt));
+        assertTrue(ex.getMessage().contains("checksum"), ex.getMessage());
+
+        byte[] cut = Arrays.copyOf(bytes, bytes.length - 3);
+        Path truncated = Files.write(dir.resolve("truncated.seatmap"), cut);
+        ex = assertThrows(IOException.class, () -> SeatSnapshot.open(truncated));
+        assertTrue(ex.getMessage().contains("truncated"), ex.getMessage());
+
+        Path empty = Files.write(dir.resolve("empty.seatmap"), new byte[0]);
+        assertThrows(IOException.class, () -> SeatSnapshot.open(empty));
+    }
+
+    @Test
+    void lookupsFollowAReplacedSnapshot() throws IOException {
+        SeatSnapshot.write(dir, "EX01", List.of(new AllocationRecord("S1", "n", "CSE", "R1", 1, "EX01")));
+        SeatSnapshot first = SeatSnapshot.forSlot("EX01");
+        assertEquals("R1", first.lookup("S1").getRoomId());
+        assertSame(first, SeatSnapshot.forSlot("EX01"));
+
+        SeatSnapshot.write(dir, "EX01", List.of(new AllocationRecord("S1", "n", "CSE", "R2", 5, "EX01")));
+        // the old mapping was released by the rewrite; reads through it go to the new file
+        assertEquals("R2", first.lookup("S1").getRoomId());
+        assertEquals(5, first.roomSheet("R2").get(0).getSeatNo());
+        SeatSnapshot second = SeatSnapshot.forSlot("EX01");
+        assertNotSame(first, second);
+        assertEquals(5, second.lookup("S1").getSeatNo());
+        assertEquals("R2", SeatSnapshot.lookupAny("S1").getRoomId());
+        assertNull(SeatSnapshot.forSlot("EX02"));
+    }
+
+    @Test
+    void fileNamesEscapeEverythingButPlainIdChars() {
+        assertEquals("EX01.seatmap", SeatSnapshot.fileFor(dir, "EX01").getFileName().toString());
+        assertEquals("EX_002f01", SeatSnapshot.safeName("EX/01"));
+        assertEquals("EX_005f01", SeatSnapshot.safeName("EX_01"));
+        assertEquals("_002e.", SeatSnapshot.safeName(".."));
+        assertEquals("_002ehidden.v2", SeatSnapshot.safeName(".hidden.v2"));
+        assertEquals("A_0020B_00e9", SeatSnapshot.safeName("A Bé"));
+        assertEquals(dir, SeatSnapshot.fileFor(dir, "../../etc").getParent());
+    }
+}
@@ -0,0 +1,127 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SwapRepairEngineTest {
+    private static final int ROOM_SIZE = 40;
+
+    @Test
+    void leavesNoMorePairsThanTheOriginalScan() {
+        for (long seed = 1; seed <= 20; seed++) {
+            int[] layout = randomLayout(seed, 4_000, 6, seed % 2 == 0 ? 1.8 : 0.0);
+            int[] roomStart = rooms(layout.length);
+
+            int[] scanned = layout.clone();
+            originalScan(scanned, roomStart);
+            int before = violations(scanned, roomStart);
+
+            int[] repaired = layout.clone();
+            int residual = new SwapRepairEngine(repaired, roomStart, 6).repair();
+
+            assertEquals(violations(repaired, roomStart), residual, "seed " + seed + ": returned count is not the layout's");
+            assertTrue(residual <= before, "seed " + seed + ": " + residual + " pairs left, original scan left " + before);
+        }
+    }
+
+    @Test
+    void swappedSeatsHaveCleanNeighbours() {
+        for (long seed = 1; seed <= 20; seed++) {
+            int[] layout = randomLayout(seed, 4_000, 6, 1.2);
+            int[] roomStart = rooms(layout.length);
+            int[] repaired = layout.clone();
+            SwapRepairEngine engine = new SwapRepairEngine(repaired, roomStart, 6);
+            engine.repair();
+            assertTrue(engine.swapsMade() > 0);
+
+            int[] slots = engine.slots();
+            for (int r = 0; r + 1 < roomStart.length; r++) {
+                for (int g = roomStart[r]; g < roomStart[r + 1]; g++) {
+                    if (slots[g] == g) continue;
+                    if (g > roomStart[r]) {
+                        assertNotEquals(repaired[g - 1], repaired[g], "seed " + seed + ": moved seat " + g + " matches its left neighbour");
+                    }
+                    if (g + 1 < roomStart[r + 1]) {
+                        assertNotEquals(repaired[g + 1], repaired[g], "seed " + seed + ": moved seat " + g + " matches its right neighbour");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void neverSwapsWithinOneRoom() {
+        int[] layout = {0, 0, 1, 2, 1, 2, 1, 2};
+        SwapRepairEngine engine = new SwapRepairEngine(layout, new int[]{0, layout.length}, 3);
+        assertEquals(1, engine.repair());
+        assertEquals(0, engine.swapsMade());
+    }
+
+    @Test
+    void countsPairsClearedByALaterSwap() {
+        // room 0's pair of 0s has no partner when it is walked (a 2 next to no 0 would be needed);
+        // room 1's pair of 1s then takes seat 0's 0, which also breaks room 0's pair
+        int[] layout = {0, 0, 1, 1, 1, 2, 0};
+        int[] roomStart = {0, 3, 7};
+        SwapRepairEngine engine = new SwapRepairEngine(layout, roomStart, 3);
+        assertEquals(0, engine.repair());
+        assertEquals(2, engine.swapsAttempted());
+        assertEquals(1, engine.swapsMade());
+        assertArrayEquals(new int[]{1, 0, 1, 1, 0, 2, 0}, layout);
+    }
+
+    // the seat scan this engine replaced: for each pair, the first seat in another room whose branch
+    // differs from both seats of the pair, with no look at that seat's neighbours
+    private static void originalScan(int[] branch, int[] roomStart) {
+        for (int r = 0; r + 1 < roomStart.length; r++) {
+            for (int i = roomStart[r] + 1; i < roomStart[r + 1]; i++) {
+                if (branch[i] != branch[i - 1]) continue;
+                search:
+                for (int o = 0; o + 1 < roomStart.length; o++) {
+                    if (o == r) continue;
+                    for (int j = roomStart[o]; j < roomStart[o + 1]; j++) {
+                        if (branch[j] != branch[i] && branch[j] != branch[i - 1]) {
+                            int t = branch[j]; branch[j] = branch[i]; branch[i] = t;
+                            break search;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static int violations(int[] branch, int[] roomStart) {
+        int pairs = 0;
+        for (int r = 0; r + 1 < roomStart.length; r++) {
+            for (int g = roomStart[r] + 1; g < roomStart[r + 1]; g++) {
+                if (branch[g] == branch[g - 1]) pairs++;
+            }
+        }
+        return pairs;
+    }
+
+    private static int[] rooms(int seats) {
+        int count = (seats + ROOM_SIZE - 1) / ROOM_SIZE;
+        int[] start = new int[count + 1];
+        for (int r = 0; r < count; r++) start[r] = r * ROOM_SIZE;
+        start[count] = seats;
+        return start;
+    }
+
+    // shuffled seats with Zipf-like branch sizes: weight 1 / (rank + 1)^skew
+    private static int[] randomLayout(long seed, int seats, int branches, double skew) {
+        Random rnd = new Random(seed);
+        double[] cumulative = new double[branches];
+        double total = 0;
+        for (int b = 0; b < branches; b++) cumulative[b] = total += 1 / Math.pow(b + 1, skew);
+        int[] layout = new int[seats];
+        for (int g = 0; g < seats; g++) {
+            double x = rnd.nextDouble() * total;
+            int b = 0;
+            while (cumulative[b] < x) b++;
+            layout[g] = b;
+        }
+        return layout;
+    }
+}
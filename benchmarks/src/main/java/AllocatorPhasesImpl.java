@@ -0,0 +1,158 @@
+import seatwise.bench.AllocatorPhases;
+import seatwise.bench.Workload;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Unnamed-package side of {@link AllocatorPhases}: drives the package-private phases of
+ * SeatAllocator directly, the same way computePlan chains them.
+ */
+public class AllocatorPhasesImpl implements AllocatorPhases {
+    private static final String SLOT = "BENCH";
+
+    private final SeatAllocator allocator = new SeatAllocator();
+    private StudentTable students;
+    private List<SeatAllocator.RoomInfo> rooms;
+    private int[] order;
+    private SeatAllocator.Placement placed;
+    private SeatAllocator.Placement repairInput;
+
+    @Override
+    public void load(Workload w) {
+        students = new StudentTable(w.studentIds.length);
+        for (int i = 0; i < w.studentIds.length; i++) {
+            students.add(w.studentIds[i], w.names[i], w.branches[i]);
+        }
+        rooms = new ArrayList<>(w.roomIds.length);
+        for (int r = 0; r < w.roomIds.length; r++) {
+            rooms.add(new SeatAllocator.RoomInfo(w.roomIds[r], w.roomCapacity[r], false, w.roomRows[r], w.roomCols[r]));
+        }
+        reorganize();
+        place();
+    }
+
+    @Override
+    public int reorganize() {
+        order = allocator.reorganizeByBranch(students);
+        return order.length;
+    }
+
+    @Override
+    public int place() {
+        placed = allocator.placeStudents(students, order, rooms);
+        return placed.students.length;
+    }
+
+    @Override
+    public void resetRepairInput() {
+        repairInput = placed.copy();
+    }
+
+    @Override
+    public int repair() {
+        return allocator.reduceAdjacentSameBranch(students, repairInput);
+    }
+
+    @Override
+    public int allocateWith(String strategy, long budgetMillis, int threads, IntConsumer progress) {
+        AllocationStrategy s;
+        if (strategy.equals("annealing")) {
+            AnnealingStrategy annealing = new AnnealingStrategy(budgetMillis, threads);
+            annealing.setProgressListener(progress);
+            s = annealing;
+        } else {
+            s = AllocationStrategy.named(strategy);
+        }
+        return s.allocate(allocator, students, rooms, AllocationMetrics.none()).violations;
+    }
+
+    @Override
+    public void openDatabase(Path dbFile, Workload w) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            // the schema comes from DatabaseSchema with the first connection; rows that reference
+            // Student and Room go first, foreign keys are on
+            try (Statement st = conn.createStatement()) {
+                st.execute("DELETE FROM Allocation");
+                st.execute("DELETE FROM Enrollment");
+                st.execute("DELETE FROM RoomClosure");
+                st.execute("DELETE FROM Student");
+                st.execute("DELETE FROM Room");
+            }
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement("INSERT INTO Student(student_id, name, branch) VALUES (?, ?, ?)")) {
+                for (int i = 0; i < w.studentIds.length; i++) {
+                    ps.setString(1, w.studentIds[i]);
+                    ps.setString(2, w.names[i]);
+                    ps.setString(3, w.branches[i]);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO Room(room_id, capacity, is_backup, seat_rows, seat_cols) VALUES (?, ?, 0, ?, ?)")) {
+                for (int r = 0; r < w.roomIds.length; r++) {
+                    ps.setString(1, w.roomIds[r]);
+                    ps.setInt(2, w.roomCapacity[r]);
+                    ps.setInt(3, w.roomRows[r]);
+                    ps.setInt(4, w.roomCols[r]);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+
+    @Override
+    public int persist() throws SQLException {
+        List<AllocationRecord> all = placed.toRecords(students, SLOT);
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            AllocationDAO.clearAllocationsForExam(conn, SLOT);
+            AllocationDAO.saveAllocationBatch(conn, all);
+            conn.commit();
+        }
+        return all.size();
+    }
+
+    @Override
+    public int allocateEndToEnd(String examSlotId) {
+        SeatAllocator.AllocationResult res = allocator.allocateSeatsForExam(examSlotId);
+        if (!res.success) throw new IllegalStateException("Allocation failed: " + res.warnings);
+        return res.allocations.size();
+    }
+
+    @Override
+    public long importCsv(String kind, Path csv) throws Exception {
+        return CsvImporter.importFile(CsvImporter.Kind.valueOf(kind), csv, null).rowsImported;
+    }
+
+    @Override
+    public int allocateSlots(List<String> examSlotIds) {
+        SeatAllocator.BatchResult batch = allocator.allocateSeatsForExams(examSlotIds);
+        int seats = 0;
+        for (Map.Entry<String, SeatAllocator.AllocationResult> e : batch.results.entrySet()) {
+            if (!e.getValue().success) throw new IllegalStateException("Allocation of " + e.getKey() + " failed: " + e.getValue().warnings);
+            seats += e.getValue().allocations.size();
+        }
+        return seats;
+    }
+
+    @Override
+    public boolean studentReport(String studentId) {
+        return allocator.generateStudentReport(studentId) != null;
+    }
+
+    @Override
+    public void clearSeatCache() {
+        SeatAllocator.seatCache().clear();
+    }
+}
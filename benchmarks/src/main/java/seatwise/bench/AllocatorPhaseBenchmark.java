@@ -0,0 +1,59 @@
+package seatwise.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory allocator phases: reorganize (reorganizeByBranch), place (room filling,
+ * grid seating included) and repair (reduceAdjacentSameBranch).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AllocatorPhaseBenchmark {
+
+    @Param({"10000", "50000"})
+    public int studentCount;
+
+    @Param({"6", "20"})
+    public int branchCount;
+
+    /** Zipf exponent of branch sizes; 0 gives equal branches. */
+    @Param({"0.0", "1.2"})
+    public double branchSkew;
+
+    @Param({"uniform40", "mixed", "auditorium"})
+    public String roomProfile;
+
+    private AllocatorPhases phases;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        phases = AllocatorPhases.create();
+        phases.load(Workload.generate(studentCount, branchCount, branchSkew, roomProfile, 42L));
+    }
+
+    @Setup(Level.Invocation)
+    public void resetRepair() {
+        phases.resetRepairInput();
+    }
+
+    @Benchmark
+    public int reorganize() {
+        return phases.reorganize();
+    }
+
+    @Benchmark
+    public int place() {
+        return phases.place();
+    }
+
+    @Benchmark
+    public int repair() {
+        return phases.repair();
+    }
+}
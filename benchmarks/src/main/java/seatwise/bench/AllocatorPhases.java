@@ -0,0 +1,64 @@
+package seatwise.bench;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Bridge from the JMH benchmarks to the allocator. JMH refuses benchmark classes in the unnamed
+ * package, and named packages cannot see the application's unnamed-package classes, so the
+ * implementation lives in the unnamed package of this module and is loaded reflectively once.
+ */
+public interface AllocatorPhases {
+
+    /** Convert the workload into the allocator's own student and room model. */
+    void load(Workload workload);
+
+    /** Run reorganizeByBranch over the loaded students. Returns the ordered student count. */
+    int reorganize();
+
+    /** Seat the last reorganized order into the rooms. Returns the number of seats filled. */
+    int place();
+
+    /** Restore the placed allocation so repair() starts from the same input every invocation. */
+    void resetRepairInput();
+
+    /** Run reduceAdjacentSameBranch on the placed flat-room seats. Returns residual violations. */
+    int repair();
+
+    /**
+     * Seat the loaded students with the named strategy ("greedy" or "annealing"; annealing runs for
+     * budgetMillis on the given threads). progress receives the residual violation count each time
+     * the search improves on the best seating so far. Returns the final violation count.
+     */
+    int allocateWith(String strategy, long budgetMillis, int threads, IntConsumer progress);
+
+    /** Create the schema in the SQLite file and load the workload's students and rooms. */
+    void openDatabase(Path dbFile, Workload workload) throws Exception;
+
+    /** Clear the benchmark slot and batch-insert the placed allocation in one committed transaction. */
+    int persist() throws Exception;
+
+    /** Full allocateSeatsForExam against the database. Returns the number of seats allocated. */
+    int allocateEndToEnd(String examSlotId);
+
+    /** CsvImporter run of one file; kind is a CsvImporter.Kind name such as "STUDENTS". Returns rows imported. */
+    long importCsv(String kind, Path csv) throws Exception;
+
+    /** allocateSeatsForExams over the slots. Returns the seats allocated; throws if any slot failed. */
+    int allocateSlots(List<String> examSlotIds);
+
+    /** generateStudentReport, as the student dashboard calls it at login. Returns whether a seat was found. */
+    boolean studentReport(String studentId);
+
+    /** Empty the shared seat cache, as in a freshly started application. */
+    void clearSeatCache();
+
+    static AllocatorPhases create() {
+        try {
+            return (AllocatorPhases) Class.forName("AllocatorPhasesImpl").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("AllocatorPhasesImpl missing from the benchmark classpath", ex);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package seatwise.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Deterministic exam-session dataset as the four CSV files the dashboard uploads: students.csv,
+ * rooms.csv, slots.csv and enrollments.csv. The same options and seed always give the same files.
+ *
+ * Students and their branch skew come from {@link Workload}. Each student sits --exams distinct
+ * slots out of --slots, two slots a day. Rooms mix flat rooms of 30/40/60/120 seats with 6x8 and
+ * 15x20 grid rooms and are added until the normal rooms seat the largest slot; --backup-share of
+ * the rooms are then backup rooms on top. With --db the files are imported into a new SQLite file.
+ *
+ *   java -cp benchmarks/target/benchmarks.jar seatwise.bench.DatasetGenerator --students 100000 --out dataset --db dataset/seatwise.db
+ */
+public final class DatasetGenerator {
+
+    // capacity, rows, cols, weight
+    private static final int[][] ROOM_MIX = {
+            {30, 0, 0, 2}, {40, 0, 0, 4}, {60, 0, 0, 3}, {120, 0, 0, 1}, {48, 6, 8, 3}, {300, 15, 20, 1}
+    };
+
+    /** The files written and what they hold. */
+    public static final class Dataset {
+        public final Path students;
+        public final Path rooms;
+        public final Path slots;
+        public final Path enrollments;
+        public final List<String> slotIds;
+        public final int studentCount;
+        public final int roomCount;
+        public final int backupRoomCount;
+        public final long enrollmentCount;
+        public final int largestSlot;
+
+        Dataset(Path dir, List<String> slotIds, int studentCount, int roomCount, int backupRoomCount,
+                long enrollmentCount, int largestSlot) {
+            this.students = dir.resolve("students.csv");
+            this.rooms = dir.resolve("rooms.csv");
+            this.slots = dir.resolve("slots.csv");
+            this.enrollments = dir.resolve("enrollments.csv");
+            this.slotIds = slotIds;
+            this.studentCount = studentCount;
+            this.roomCount = roomCount;
+            this.backupRoomCount = backupRoomCount;
+            this.enrollmentCount = enrollmentCount;
+            this.largestSlot = largestSlot;
+        }
+
+        public String summary() {
+            return String.format("%d students, %d slots (largest %d), %d enrollments, %d rooms (%d backup)",
+                    studentCount, slotIds.size(), largestSlot, enrollmentCount, roomCount, backupRoomCount);
+        }
+    }
+
+    private DatasetGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opt = parse(args);
+        Path out = Path.of(opt.getOrDefault("out", "dataset"));
+        Dataset data = generate(out, opt);
+        System.out.println("Wrote " + data.summary() + " to " + out);
+
+        if (opt.containsKey("db")) {
+            Path db = Path.of(opt.get("db"));
+            if (Files.exists(db)) throw new IllegalArgumentException(db + " already exists; pick a new file");
+            System.setProperty("seatwise.db.file", db.toString());
+            long t = System.nanoTime();
+            long rows = importAll(AllocatorPhases.create(), data);
+            System.out.printf("Imported %d rows into %s in %.1f s%n", rows, db, (System.nanoTime() - t) / 1e9);
+        }
+    }
+
+    /** Generate with the command-line options (--students --branches --skew --slots --exams --backup-share --seed). */
+    static Dataset generate(Path dir, Map<String, String> opt) throws IOException {
+        return generate(dir,
+                Integer.parseInt(opt.getOrDefault("students", "100000")),
+                Integer.parseInt(opt.getOrDefault("branches", "6")),
+                Double.parseDouble(opt.getOrDefault("skew", "1.0")),
+                Integer.parseInt(opt.getOrDefault("slots", "12")),
+                Integer.parseInt(opt.getOrDefault("exams", "3")),
+                Double.parseDouble(opt.getOrDefault("backup-share", "0.1")),
+                Long.parseLong(opt.getOrDefault("seed", "42")));
+    }
+
+    public static Dataset generate(Path dir, int students, int branches, double skew, int slots,
+                                   int examsPerStudent, double backupShare, long seed) throws IOException {
+        if (examsPerStudent < 1 || examsPerStudent > slots) {
+            throw new IllegalArgumentException("--exams must be between 1 and --slots (" + slots + ")");
+        }
+        if (backupShare < 0 || backupShare >= 1) throw new IllegalArgumentException("--backup-share must be in [0, 1)");
+        Files.createDirectories(dir);
+        Workload w = Workload.generate(students, branches, skew, "uniform40", seed);
+        Random rnd = new Random(seed + 1);
+
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("students.csv"), StandardCharsets.UTF_8)) {
+            out.write("student_id,name,branch\n");
+            for (int i = 0; i < students; i++) {
+                out.write(w.studentIds[i] + "," + w.names[i] + "," + w.branches[i] + "\n");
+            }
+        }
+
+        List<String> slotIds = new ArrayList<>(slots);
+        LocalDate day = LocalDate.of(2026, 11, 2);
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("slots.csv"), StandardCharsets.UTF_8)) {
+            out.write("exam_slot_id,exam_date,start_time,end_time\n");
+            for (int s = 0; s < slots; s++) {
+                String id = String.format("EX%03d", s + 1);
+                slotIds.add(id);
+                boolean morning = s % 2 == 0;
+                out.write(id + "," + day.plusDays(s / 2) + "," + (morning ? "09:00,12:00" : "14:00,17:00") + "\n");
+            }
+        }
+
+        // each student draws examsPerStudent distinct slots (partial Fisher-Yates)
+        int[] perSlot = new int[slots];
+        int[] pick = new int[slots];
+        for (int s = 0; s < slots; s++) pick[s] = s;
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("enrollments.csv"), StandardCharsets.UTF_8)) {
+            out.write("exam_slot_id,student_id\n");
+            for (int i = 0; i < students; i++) {
+                for (int k = 0; k < examsPerStudent; k++) {
+                    int j = k + rnd.nextInt(slots - k);
+                    int tmp = pick[k];
+                    pick[k] = pick[j];
+                    pick[j] = tmp;
+                    perSlot[pick[k]]++;
+                    out.write(slotIds.get(pick[k]) + "," + w.studentIds[i] + "\n");
+                }
+            }
+        }
+        int largest = Arrays.stream(perSlot).max().orElse(0);
+
+        int totalWeight = 0;
+        for (int[] room : ROOM_MIX) totalWeight += room[3];
+        List<int[]> normal = new ArrayList<>();
+        int capacity = 0;
+        while (capacity < largest) {
+            int[] room = drawRoom(rnd, totalWeight);
+            normal.add(room);
+            capacity += room[0];
+        }
+        int backup = (int) Math.ceil(normal.size() * backupShare / (1 - backupShare));
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("rooms.csv"), StandardCharsets.UTF_8)) {
+            out.write("room_id,capacity,is_backup,seat_rows,seat_cols\n");
+            for (int r = 0; r < normal.size() + backup; r++) {
+                int[] room = r < normal.size() ? normal.get(r) : drawRoom(rnd, totalWeight);
+                out.write(String.format("R%05d,%d,%d,%s,%s%n", r, room[0], r < normal.size() ? 0 : 1,
+                        room[1] > 0 ? room[1] : "", room[2] > 0 ? room[2] : ""));
+            }
+        }
+        return new Dataset(dir, slotIds, students, normal.size() + backup, backup, (long) students * examsPerStudent, largest);
+    }
+
+    /** Import the four files in dependency order into the database the bridge's connections open. Returns rows imported. */
+    static long importAll(AllocatorPhases app, Dataset data) throws Exception {
+        return app.importCsv("STUDENTS", data.students)
+                + app.importCsv("ROOMS", data.rooms)
+                + app.importCsv("EXAM_SLOTS", data.slots)
+                + app.importCsv("ENROLLMENTS", data.enrollments);
+    }
+
+    private static int[] drawRoom(Random rnd, int totalWeight) {
+        int x = rnd.nextInt(totalWeight);
+        for (int[] room : ROOM_MIX) {
+            x -= room[3];
+            if (x < 0) return room;
+        }
+        return ROOM_MIX[ROOM_MIX.length - 1];
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> opt = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + args[i]);
+            opt.put(args[i].substring(2), args[++i]);
+        }
+        return opt;
+    }
+}
@@ -0,0 +1,65 @@
+package seatwise.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Database-backed runs against a temporary SQLite file: the persist step on its own
+ * (clearAllocationsForExam + saveAllocationBatch) and a full allocateSeatsForExam.
+ * JMH forks a fresh JVM per parameter combination, so the file is chosen before the
+ * connection pool first loads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    @Param({"10000", "50000"})
+    public int studentCount;
+
+    @Param({"6"})
+    public int branchCount;
+
+    @Param({"0.0", "1.2"})
+    public double branchSkew;
+
+    @Param({"uniform40", "auditorium"})
+    public String roomProfile;
+
+    private Path dbFile;
+    private AllocatorPhases phases;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dbFile = Files.createTempFile("seatwise-bench-", ".db");
+        System.setProperty("seatwise.db.file", dbFile.toString());
+        Workload workload = Workload.generate(studentCount, branchCount, branchSkew, roomProfile, 42L);
+        phases = AllocatorPhases.create();
+        phases.load(workload);
+        phases.openDatabase(dbFile, workload);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(dbFile);
+        Files.deleteIfExists(Path.of(dbFile + "-wal"));
+        Files.deleteIfExists(Path.of(dbFile + "-shm"));
+    }
+
+    @Benchmark
+    public int persist() throws Exception {
+        return phases.persist();
+    }
+
+    @Benchmark
+    public int allocateSeatsForExam() {
+        return phases.allocateEndToEnd("EX01");
+    }
+}
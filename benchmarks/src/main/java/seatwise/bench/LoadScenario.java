@@ -0,0 +1,246 @@
+package seatwise.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exam-week rehearsal on a fresh SQLite file: generate a dataset ({@link DatasetGenerator}),
+ * import its CSV files, allocate every slot in one batch, then run a login storm in which every
+ * student (or --logins of them) calls generateStudentReport from --threads threads, once per
+ * --rounds. The seat cache is emptied before the first round, as when the login application
+ * starts. Each step reports its time, throughput and heap high-water mark; the storm also
+ * reports p50/p90/p99/max latency. Written to stdout and as JSON to bench-results/load-&lt;timestamp&gt;.json; exits 1 if a login found no seat.
+ *
+ *   java -Xmx2g -cp benchmarks/target/benchmarks.jar seatwise.bench.LoadScenario --students 100000 --threads 200
+ *
+ * Takes the DatasetGenerator options plus --threads, --rounds, --logins and --db (a new file;
+ * by default a temporary one that is deleted afterwards).
+ */
+public class LoadScenario {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opt = DatasetGenerator.parse(args);
+        int threads = Integer.parseInt(opt.getOrDefault("threads", "100"));
+        int rounds = Integer.parseInt(opt.getOrDefault("rounds", "2"));
+
+        Path work = Files.createTempDirectory("seatwise-load-");
+        Path db = opt.containsKey("db") ? Path.of(opt.get("db")) : work.resolve("seatwise.db");
+        if (Files.exists(db)) throw new IllegalArgumentException(db + " already exists; pick a new file");
+        // both are read once, when the application classes first load
+        System.setProperty("seatwise.db.file", db.toString());
+        System.setProperty("seatwise.snapshot.dir", work.resolve("snapshots").toString());
+
+        List<Step> steps = new ArrayList<>();
+        List<Storm> storms = new ArrayList<>();
+        DatasetGenerator.Dataset data;
+        try {
+            HeapWatermark heap = new HeapWatermark();
+            long t = System.nanoTime();
+            data = DatasetGenerator.generate(work.resolve("csv"), opt);
+            steps.add(new Step("generate", data.enrollmentCount, "rows", System.nanoTime() - t, heap.peakBytes()));
+            System.out.println(data.summary());
+
+            AllocatorPhases app = AllocatorPhases.create();
+            heap = new HeapWatermark();
+            t = System.nanoTime();
+            long rows = DatasetGenerator.importAll(app, data);
+            steps.add(new Step("import", rows, "rows", System.nanoTime() - t, heap.peakBytes()));
+
+            heap = new HeapWatermark();
+            t = System.nanoTime();
+            int seats = app.allocateSlots(data.slotIds);
+            steps.add(new Step("allocate", seats, "seats", System.nanoTime() - t, heap.peakBytes()));
+
+            int logins = Integer.parseInt(opt.getOrDefault("logins", String.valueOf(data.studentCount)));
+            String[] who = loginOrder(data.studentCount, Math.min(logins, data.studentCount),
+                    Long.parseLong(opt.getOrDefault("seed", "42")));
+            app.clearSeatCache(); // allocation warmed it
+            for (int r = 0; r < rounds; r++) {
+                heap = new HeapWatermark();
+                Storm storm = storm(app, who, threads);
+                storm.heapBytes = heap.peakBytes();
+                storms.add(storm);
+                steps.add(new Step("login storm " + (r + 1), who.length, "logins", storm.elapsedNanos, storm.heapBytes));
+            }
+        } finally {
+            if (!opt.containsKey("db")) deleteTree(work);
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (Step s : steps) text.append(s.text()).append('\n');
+        for (int r = 0; r < storms.size(); r++) text.append("storm ").append(r + 1).append(": ").append(storms.get(r).text()).append('\n');
+        System.out.print(text);
+
+        Path dir = Files.createDirectories(Path.of("bench-results"));
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Files.writeString(dir.resolve("load-" + stamp + ".json"), json(data, threads, steps, storms));
+
+        boolean missing = storms.stream().anyMatch(s -> s.notFound > 0);
+        System.exit(missing ? 1 : 0);
+    }
+
+    // every selected student once, in a seeded random order
+    private static String[] loginOrder(int students, int logins, long seed) {
+        List<Integer> all = new ArrayList<>(students);
+        for (int i = 0; i < students; i++) all.add(i);
+        Collections.shuffle(all, new Random(seed + 2));
+        String[] ids = new String[logins];
+        for (int i = 0; i < logins; i++) ids[i] = String.format("S%07d", all.get(i)); // Workload's id format
+        return ids;
+    }
+
+    private static Storm storm(AllocatorPhases app, String[] who, int threads) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> parts = new ArrayList<>(threads);
+        long start = System.nanoTime();
+        try {
+            for (int th = 0; th < threads; th++) {
+                parts.add(pool.submit(() -> {
+                    long[] micros = new long[who.length / threads + 16];
+                    int n = 0;
+                    long notFound = 0;
+                    for (int i; (i = next.getAndIncrement()) < who.length; ) {
+                        long t = System.nanoTime();
+                        if (!app.studentReport(who[i])) notFound++;
+                        if (n == micros.length) micros = Arrays.copyOf(micros, n * 2);
+                        micros[n++] = (System.nanoTime() - t) / 1_000;
+                    }
+                    long[] out = Arrays.copyOf(micros, n + 1);
+                    out[n] = notFound; // last slot carries the miss count
+                    return out;
+                }));
+            }
+            long[] all = new long[who.length];
+            int n = 0;
+            long notFound = 0;
+            for (Future<long[]> f : parts) {
+                long[] part = f.get();
+                System.arraycopy(part, 0, all, n, part.length - 1);
+                n += part.length - 1;
+                notFound += part[part.length - 1];
+            }
+            long elapsed = System.nanoTime() - start;
+            Arrays.sort(all, 0, n);
+            return new Storm(Arrays.copyOf(all, n), notFound, elapsed);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static String json(DatasetGenerator.Dataset data, int threads, List<Step> steps, List<Storm> storms) {
+        StringBuilder json = new StringBuilder();
+        json.append(String.format(Locale.ROOT, "{\"students\":%d,\"slots\":%d,\"enrollments\":%d,\"rooms\":%d,"
+                        + "\"backupRooms\":%d,\"threads\":%d,\"steps\":[",
+                data.studentCount, data.slotIds.size(), data.enrollmentCount, data.roomCount, data.backupRoomCount, threads));
+        for (int i = 0; i < steps.size(); i++) {
+            Step s = steps.get(i);
+            if (i > 0) json.append(',');
+            json.append(String.format(Locale.ROOT, "{\"name\":\"%s\",\"items\":%d,\"seconds\":%.3f,\"perSecond\":%.1f,\"heapPeakMb\":%.1f}",
+                    s.name, s.items, s.seconds(), s.perSecond(), s.heapBytes / 1048576.0));
+        }
+        json.append("],\"storms\":[");
+        for (int i = 0; i < storms.size(); i++) {
+            Storm s = storms.get(i);
+            if (i > 0) json.append(',');
+            json.append(String.format(Locale.ROOT, "{\"logins\":%d,\"notFound\":%d,\"throughput\":%.1f,"
+                            + "\"p50Millis\":%.3f,\"p90Millis\":%.3f,\"p99Millis\":%.3f,\"maxMillis\":%.3f}",
+                    s.sortedMicros.length, s.notFound, s.throughput(),
+                    s.percentileMillis(50), s.percentileMillis(90), s.percentileMillis(99), s.percentileMillis(100)));
+        }
+        json.append("]}\n");
+        return json.toString();
+    }
+
+    private static void deleteTree(Path root) {
+        try (var paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Heap high-water mark since construction: the per-pool peaks of the heap pools, summed. The
+     * pools peak at different moments, so this is an upper bound on the heap in use at any one time.
+     */
+    private static class HeapWatermark {
+        private final List<MemoryPoolMXBean> pools = new ArrayList<>();
+
+        HeapWatermark() {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                    pool.resetPeakUsage();
+                    pools.add(pool);
+                }
+            }
+        }
+
+        long peakBytes() {
+            long sum = 0;
+            for (MemoryPoolMXBean pool : pools) sum += pool.getPeakUsage().getUsed();
+            return sum;
+        }
+    }
+
+    private static class Step {
+        final String name;
+        final long items;
+        final String unit;
+        final long nanos;
+        final long heapBytes;
+
+        Step(String name, long items, String unit, long nanos, long heapBytes) {
+            this.name = name;
+            this.items = items;
+            this.unit = unit;
+            this.nanos = nanos;
+            this.heapBytes = heapBytes;
+        }
+
+        double seconds() { return nanos / 1e9; }
+        double perSecond() { return items / Math.max(seconds(), 1e-9); }
+
+        String text() {
+            return String.format("%-14s %10d %-7s %8.2f s %10.0f %s/s   heap peak %6.0f MB",
+                    name, items, unit, seconds(), perSecond(), unit, heapBytes / 1048576.0);
+        }
+    }
+
+    private static class Storm {
+        final long[] sortedMicros;
+        final long notFound;
+        final long elapsedNanos;
+        long heapBytes;
+
+        Storm(long[] sortedMicros, long notFound, long elapsedNanos) {
+            this.sortedMicros = sortedMicros;
+            this.notFound = notFound;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        double throughput() { return sortedMicros.length / (elapsedNanos / 1e9); }
+
+        double percentileMillis(double p) {
+            if (sortedMicros.length == 0) return 0;
+            int i = (int) Math.ceil(p / 100.0 * sortedMicros.length) - 1;
+            return sortedMicros[Math.max(0, Math.min(i, sortedMicros.length - 1))] / 1000.0;
+        }
+
+        String text() {
+            return String.format("logins=%d notFound=%d throughput=%.0f/s latency p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+                    sortedMicros.length, notFound, throughput(),
+                    percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(100));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package seatwise.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test for the seat lookup HTTP service. Keeps a fixed number of requests in
+ * flight for a warmup and a measured period and reports throughput and p50/p90/p99/max latency,
+ * also written as JSON to bench-results/lookup-&lt;timestamp&gt;.json.
+ *
+ * Student ids and (slot, room) pairs are sampled from the SQLite file the server reads. Most
+ * requests are /seat lookups of allocated students; --room-percent go to /slot/../room/.. and
+ * --miss-percent ask for unknown students. With --embedded the server is started in this JVM.
+ *
+ *   java -cp benchmarks/target/benchmarks.jar seatwise.bench.SeatLookupLoadTest --embedded --concurrency 1000
+ */
+public class SeatLookupLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opt = parse(args);
+        String db = opt.getOrDefault("db", System.getProperty("seatwise.db.file", "data/smartexam.db"));
+        int concurrency = Integer.parseInt(opt.getOrDefault("concurrency", "500"));
+        int warmupSeconds = Integer.parseInt(opt.getOrDefault("warmup", "5"));
+        int seconds = Integer.parseInt(opt.getOrDefault("seconds", "20"));
+        int roomPercent = Integer.parseInt(opt.getOrDefault("room-percent", "5"));
+        int missPercent = Integer.parseInt(opt.getOrDefault("miss-percent", "5"));
+
+        String url = opt.get("url");
+        Object server = null;
+        if (opt.containsKey("embedded")) {
+            System.setProperty("seatwise.db.file", db);
+            server = startEmbedded();
+            url = "http://localhost:" + server.getClass().getMethod("port").invoke(server);
+        }
+        if (url == null) url = "http://localhost:8080";
+
+        List<String> students = new ArrayList<>();
+        List<String> rooms = new ArrayList<>();
+        sample(db, students, rooms);
+        if (students.isEmpty()) throw new IllegalStateException("No allocations in " + db + "; allocate a slot first");
+        System.out.println("Target " + url + ", " + students.size() + " sampled students, " + rooms.size()
+                + " rooms, " + concurrency + " in flight");
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Run run = new Run(client, url, students, rooms, concurrency, roomPercent, missPercent);
+        run.drive(warmupSeconds);
+        run.reset();
+        long elapsedNanos = run.drive(seconds);
+        Report report = run.report(elapsedNanos);
+        System.out.println(report.text());
+
+        Path dir = Files.createDirectories(Path.of("bench-results"));
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Files.writeString(dir.resolve("lookup-" + stamp + ".json"), report.json(url, concurrency));
+
+        if (server != null) server.getClass().getMethod("stop", int.class).invoke(server, 0);
+        System.exit(report.errors == 0 ? 0 : 1);
+    }
+
+    // the service lives in the application's default package, so it is reached reflectively
+    private static Object startEmbedded() throws ReflectiveOperationException {
+        Object server = Class.forName("SeatLookupServer").getConstructor(int.class).newInstance(0);
+        server.getClass().getMethod("start").invoke(server);
+        return server;
+    }
+
+    private static void sample(String db, List<String> students, List<String> rooms) throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + db);
+             Statement st = conn.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT student_id FROM Allocation ORDER BY random() LIMIT 20000")) {
+                while (rs.next()) students.add(rs.getString(1));
+            }
+            try (ResultSet rs = st.executeQuery("SELECT DISTINCT exam_slot_id, room_id FROM Allocation LIMIT 2000")) {
+                while (rs.next()) rooms.add(rs.getString(1) + "/room/" + rs.getString(2));
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> opt = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            String key = args[i].substring(2);
+            if (key.equals("embedded")) opt.put(key, "true");
+            else if (i + 1 < args.length) opt.put(key, args[++i]);
+            else throw new IllegalArgumentException("Missing value for " + args[i]);
+        }
+        return opt;
+    }
+
+    private static class Run {
+        final HttpClient client;
+        final String url;
+        final List<String> students;
+        final List<String> rooms;
+        final int roomPercent;
+        final int missPercent;
+        final Semaphore inFlight;
+        final int concurrency;
+
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong notFound = new AtomicLong();
+        long[] latencyMicros = new long[1 << 16];
+        int count;
+
+        Run(HttpClient client, String url, List<String> students, List<String> rooms,
+            int concurrency, int roomPercent, int missPercent) {
+            this.client = client;
+            this.url = url;
+            this.students = students;
+            this.rooms = rooms;
+            this.concurrency = concurrency;
+            this.roomPercent = rooms.isEmpty() ? 0 : roomPercent;
+            this.missPercent = missPercent;
+            this.inFlight = new Semaphore(concurrency);
+        }
+
+        // issues requests until the deadline, then waits for the stragglers; returns the elapsed time
+        long drive(int seconds) throws InterruptedException {
+            long start = System.nanoTime();
+            long deadline = start + seconds * 1_000_000_000L;
+            while (System.nanoTime() < deadline) {
+                inFlight.acquire();
+                HttpRequest request = HttpRequest.newBuilder(URI.create(url + nextPath()))
+                        .timeout(Duration.ofSeconds(30)).GET().build();
+                long sent = System.nanoTime();
+                client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                    long micros = (System.nanoTime() - sent) / 1_000;
+                    if (failure != null || response.statusCode() >= 500) errors.incrementAndGet();
+                    else if (response.statusCode() == 404) notFound.incrementAndGet();
+                    record(micros);
+                    inFlight.release();
+                });
+            }
+            inFlight.acquire(concurrency);
+            long elapsed = System.nanoTime() - start;
+            inFlight.release(concurrency);
+            return elapsed;
+        }
+
+        private String nextPath() {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            int roll = rnd.nextInt(100);
+            if (roll < roomPercent) return "/slot/" + rooms.get(rnd.nextInt(rooms.size()));
+            if (roll < roomPercent + missPercent) return "/seat/UNKNOWN-" + rnd.nextInt(1_000_000);
+            return "/seat/" + students.get(rnd.nextInt(students.size()));
+        }
+
+        synchronized void record(long micros) {
+            if (count == latencyMicros.length) latencyMicros = Arrays.copyOf(latencyMicros, count * 2);
+            latencyMicros[count++] = micros;
+        }
+
+        synchronized void reset() {
+            count = 0;
+            errors.set(0);
+            notFound.set(0);
+        }
+
+        synchronized Report report(long elapsedNanos) {
+            long[] sorted = Arrays.copyOf(latencyMicros, count);
+            Arrays.sort(sorted);
+            return new Report(count, errors.get(), notFound.get(), elapsedNanos, sorted);
+        }
+    }
+
+    private static class Report {
+        final long requests;
+        final long errors;
+        final long notFound;
+        final double seconds;
+        final long[] sortedMicros;
+
+        Report(long requests, long errors, long notFound, long elapsedNanos, long[] sortedMicros) {
+            this.requests = requests;
+            this.errors = errors;
+            this.notFound = notFound;
+            this.seconds = elapsedNanos / 1e9;
+            this.sortedMicros = sortedMicros;
+        }
+
+        double throughput() { return requests / seconds; }
+
+        double percentileMillis(double p) {
+            if (sortedMicros.length == 0) return 0;
+            int i = (int) Math.ceil(p / 100.0 * sortedMicros.length) - 1;
+            return sortedMicros[Math.max(0, Math.min(i, sortedMicros.length - 1))] / 1000.0;
+        }
+
+        String text() {
+            return String.format("requests=%d errors=%d notFound=%d time=%.1fs throughput=%.0f req/s%n"
+                            + "latency p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+                    requests, errors, notFound, seconds, throughput(),
+                    percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(100));
+        }
+
+        String json(String url, int concurrency) {
+            return String.format(Locale.ROOT, "{\"url\":\"%s\",\"concurrency\":%d,\"requests\":%d,\"errors\":%d,"
+                            + "\"notFound\":%d,\"seconds\":%.3f,\"throughput\":%.1f,"
+                            + "\"p50Millis\":%.3f,\"p90Millis\":%.3f,\"p99Millis\":%.3f,\"maxMillis\":%.3f}%n",
+                    url, concurrency, requests, errors, notFound, seconds, throughput(),
+                    percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(100));
+        }
+    }
+}
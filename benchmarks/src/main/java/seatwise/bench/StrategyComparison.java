@@ -0,0 +1,92 @@
+package seatwise.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Residual same-branch pairs against time for the greedy and annealing strategies on one
+ * synthetic workload. Greedy is a single point; the annealing run is traced from its start
+ * (greedy included) every time its best seating improves, sampled to one point per --step
+ * milliseconds. Written to stdout and as JSON to bench-results/strategies-&lt;timestamp&gt;.json.
+ *
+ *   java -cp benchmarks/target/benchmarks.jar seatwise.bench.StrategyComparison --skew 1.8 --rooms auditorium --budget 5000
+ */
+public class StrategyComparison {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opt = parse(args);
+        int students = Integer.parseInt(opt.getOrDefault("students", "50000"));
+        int branches = Integer.parseInt(opt.getOrDefault("branches", "6"));
+        double skew = Double.parseDouble(opt.getOrDefault("skew", "1.8"));
+        String rooms = opt.getOrDefault("rooms", "auditorium");
+        long budget = Long.parseLong(opt.getOrDefault("budget", "5000"));
+        int threads = Integer.parseInt(opt.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        long step = Long.parseLong(opt.getOrDefault("step", "250"));
+        long seed = Long.parseLong(opt.getOrDefault("seed", "42"));
+
+        AllocatorPhases phases = AllocatorPhases.create();
+        phases.load(Workload.generate(students, branches, skew, rooms, seed));
+        System.out.printf("%d students, %d branches, skew %.2f, %s rooms, budget %d ms on %d threads%n",
+                students, branches, skew, rooms, budget, threads);
+
+        long t0 = System.nanoTime();
+        int greedy = phases.allocateWith("greedy", 0, 1, null);
+        double greedyMillis = (System.nanoTime() - t0) / 1e6;
+        System.out.printf("greedy     %10.1f ms %10d violations%n", greedyMillis, greedy);
+
+        List<long[]> trace = Collections.synchronizedList(new ArrayList<>()); // {elapsed micros, violations}
+        long t1 = System.nanoTime();
+        int annealing = phases.allocateWith("annealing", budget, threads,
+                v -> trace.add(new long[]{(System.nanoTime() - t1) / 1_000, v}));
+        double annealingMillis = (System.nanoTime() - t1) / 1e6;
+        List<long[]> points = sample(trace, step * 1_000);
+        for (long[] p : points) System.out.printf("annealing  %10.1f ms %10d violations%n", p[0] / 1e3, p[1]);
+        System.out.printf("annealing  %10.1f ms %10d violations (final, %.1f%% fewer than greedy)%n",
+                annealingMillis, annealing, greedy == 0 ? 0.0 : 100.0 * (greedy - annealing) / greedy);
+
+        Path dir = Files.createDirectories(Path.of("bench-results"));
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        StringBuilder json = new StringBuilder();
+        json.append(String.format(Locale.ROOT, "{\"students\":%d,\"branches\":%d,\"skew\":%.3f,\"rooms\":\"%s\","
+                        + "\"budgetMillis\":%d,\"threads\":%d,\"greedy\":{\"millis\":%.1f,\"violations\":%d},"
+                        + "\"annealing\":{\"millis\":%.1f,\"violations\":%d,\"trace\":[",
+                students, branches, skew, rooms, budget, threads, greedyMillis, greedy, annealingMillis, annealing));
+        for (int i = 0; i < points.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append(String.format(Locale.ROOT, "[%.1f,%d]", points.get(i)[0] / 1e3, points.get(i)[1]));
+        }
+        json.append("]}}\n");
+        Files.writeString(dir.resolve("strategies-" + stamp + ".json"), json);
+    }
+
+    // last improvement within each window of the given length, in time order
+    private static List<long[]> sample(List<long[]> trace, long windowMicros) {
+        List<long[]> sorted;
+        synchronized (trace) {
+            sorted = new ArrayList<>(trace);
+        }
+        sorted.sort(Comparator.comparingLong(p -> p[0]));
+        List<long[]> out = new ArrayList<>();
+        for (long[] p : sorted) {
+            if (!out.isEmpty() && out.get(out.size() - 1)[0] / windowMicros == p[0] / windowMicros) {
+                out.set(out.size() - 1, p);
+            } else {
+                out.add(p);
+            }
+        }
+        return out;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> opt = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + args[i]);
+            opt.put(args[i].substring(2), args[++i]);
+        }
+        return opt;
+    }
+}
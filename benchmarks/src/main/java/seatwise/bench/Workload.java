@@ -0,0 +1,87 @@
+package seatwise.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic input for the allocator benchmarks.
+ *
+ * Branch sizes follow a Zipf-like weight 1/(k+1)^skew (skew 0 gives equal branches) and students are
+ * shuffled with the seed. Rooms are generated until normal capacity covers every student, using one
+ * of the room profiles: "uniform40" (flat rooms of 40), "mixed" (flat rooms of 30/40/60/120) or
+ * "auditorium" (300-seat 15x20 grid rooms).
+ */
+public final class Workload {
+    public final String[] studentIds;
+    public final String[] names;
+    public final String[] branches;
+    public final String[] roomIds;
+    public final int[] roomCapacity;
+    public final int[] roomRows;
+    public final int[] roomCols;
+
+    private Workload(String[] studentIds, String[] names, String[] branches,
+                     String[] roomIds, int[] roomCapacity, int[] roomRows, int[] roomCols) {
+        this.studentIds = studentIds;
+        this.names = names;
+        this.branches = branches;
+        this.roomIds = roomIds;
+        this.roomCapacity = roomCapacity;
+        this.roomRows = roomRows;
+        this.roomCols = roomCols;
+    }
+
+    public static Workload generate(int students, int branchCount, double skew, String roomProfile, long seed) {
+        Random rnd = new Random(seed);
+
+        double[] weight = new double[branchCount];
+        double total = 0;
+        for (int k = 0; k < branchCount; k++) {
+            weight[k] = 1.0 / Math.pow(k + 1, skew);
+            total += weight[k];
+        }
+        List<String> pool = new ArrayList<>(students);
+        int assigned = 0;
+        for (int k = 0; k < branchCount; k++) {
+            int count = k == branchCount - 1 ? students - assigned : (int) Math.round(students * weight[k] / total);
+            count = Math.min(count, students - assigned);
+            for (int i = 0; i < count; i++) pool.add("BR" + k);
+            assigned += count;
+        }
+        Collections.shuffle(pool, rnd);
+
+        String[] ids = new String[students];
+        String[] names = new String[students];
+        String[] branches = pool.toArray(new String[0]);
+        for (int i = 0; i < students; i++) {
+            ids[i] = String.format("S%07d", i);
+            names[i] = "Student " + i;
+        }
+
+        List<int[]> rooms = new ArrayList<>(); // capacity, rows, cols
+        int[] mixed = {30, 40, 60, 120};
+        int capacity = 0;
+        while (capacity < students) {
+            int[] room;
+            switch (roomProfile) {
+                case "uniform40": room = new int[]{40, 0, 0}; break;
+                case "mixed": room = new int[]{mixed[rooms.size() % mixed.length], 0, 0}; break;
+                case "auditorium": room = new int[]{300, 15, 20}; break;
+                default: throw new IllegalArgumentException("Unknown room profile: " + roomProfile);
+            }
+            rooms.add(room);
+            capacity += room[0];
+        }
+        String[] roomIds = new String[rooms.size()];
+        int[] cap = new int[rooms.size()], rows = new int[rooms.size()], cols = new int[rooms.size()];
+        for (int r = 0; r < rooms.size(); r++) {
+            roomIds[r] = String.format("R%05d", r);
+            cap[r] = rooms.get(r)[0];
+            rows[r] = rooms.get(r)[1];
+            cols[r] = rooms.get(r)[2];
+        }
+        return new Workload(ids, names, branches, roomIds, cap, rows, cols);
+    }
+}